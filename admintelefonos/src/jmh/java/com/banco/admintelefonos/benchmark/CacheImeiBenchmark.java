@@ -0,0 +1,114 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.component.LimitadorConcurrencia;
+import com.banco.admintelefonos.component.MetricasTelefono;
+import com.banco.admintelefonos.component.TelefonoCacheLocal;
+import com.banco.admintelefonos.model.Telefono;
+import com.banco.admintelefonos.service.TelefonoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Acierto de cache en {@code obtenerTelefonoPorImei}. Redis se reemplaza por un mapa en
+ * memoria, por lo que {@code aciertoRedis} mide el costo local (llave y codec binario) sin la red.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheImeiBenchmark {
+
+    private TelefonoService servicioConCacheLocal;
+    private TelefonoService servicioSoloRedis;
+    private String imei;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = DatosBenchmark.objectMapper();
+        Telefono telefono = DatosBenchmark.telefono();
+        imei = telefono.getImei();
+
+        CodecCacheTelefono codecCacheTelefono = new CodecCacheTelefono(objectMapper, CodecCacheTelefono.CODEC_BINARIO);
+        Map<String, byte[]> redis = new ConcurrentHashMap<>();
+        redis.put("telefono:imei:" + imei, codecCacheTelefono.codificar(telefono));
+
+        TelefonoCacheLocal cacheLocal = new TelefonoCacheLocal(10_000, Duration.ofMinutes(5), Duration.ofSeconds(30));
+        cacheLocal.guardar(imei, telefono);
+        TelefonoCacheLocal sinCacheLocal = new TelefonoCacheLocal(1, Duration.ofMinutes(5), Duration.ofSeconds(30)) {
+            @Override
+            public Telefono obtener(String imei) {
+                return null;
+            }
+
+            @Override
+            public void guardar(String imei, Telefono telefono) {
+            }
+        };
+
+        servicioConCacheLocal = crearServicio(redis, codecCacheTelefono, cacheLocal);
+        servicioSoloRedis = crearServicio(redis, codecCacheTelefono, sinCacheLocal);
+    }
+
+    @Benchmark
+    public Optional<Telefono> aciertoCacheLocal() {
+        return servicioConCacheLocal.obtenerTelefonoPorImei(imei);
+    }
+
+    @Benchmark
+    public Optional<Telefono> aciertoRedis() {
+        return servicioSoloRedis.obtenerTelefonoPorImei(imei);
+    }
+
+    private static TelefonoService crearServicio(Map<String, byte[]> redis, CodecCacheTelefono codecCacheTelefono,
+            TelefonoCacheLocal cacheLocal) {
+        TelefonoService servicio = new TelefonoService();
+        ReflectionTestUtils.setField(servicio, "redisTemplate", redisEnMemoria(redis));
+        ReflectionTestUtils.setField(servicio, "codecCacheTelefono", codecCacheTelefono);
+        ReflectionTestUtils.setField(servicio, "telefonoCacheLocal", cacheLocal);
+        ReflectionTestUtils.setField(servicio, "metricasTelefono", new MetricasTelefono(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(servicio, "limitadorConcurrencia",
+                new LimitadorConcurrencia(256, 256, Duration.ofSeconds(2)));
+        return servicio;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisTemplate<String, byte[]> redisEnMemoria(Map<String, byte[]> redis) {
+        ValueOperations<String, byte[]> operaciones = (ValueOperations<String, byte[]>) Proxy.newProxyInstance(
+                ValueOperations.class.getClassLoader(), new Class<?>[] { ValueOperations.class },
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "get" -> redis.get((String) args[0]);
+                    case "set" -> redis.put((String) args[0], (byte[]) args[1]);
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+        return new RedisTemplate<>() {
+            @Override
+            public ValueOperations<String, byte[]> opsForValue() {
+                return operaciones;
+            }
+        };
+    }
+}
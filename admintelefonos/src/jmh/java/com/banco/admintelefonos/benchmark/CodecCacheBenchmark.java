@@ -0,0 +1,56 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.model.Telefono;
+
+/**
+ * Codificacion de la entrada de cache por IMEI con cada formato. El tamaño de la
+ * entrada se imprime en el log de cada fork como {@code bytes por entrada}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecCacheBenchmark {
+
+    @Param({ CodecCacheTelefono.CODEC_JSON, CodecCacheTelefono.CODEC_BINARIO })
+    public String codec;
+
+    private CodecCacheTelefono codecCacheTelefono;
+    private Telefono telefono;
+    private byte[] entrada;
+
+    @Setup
+    public void setUp() {
+        codecCacheTelefono = new CodecCacheTelefono(DatosBenchmark.objectMapper(), codec);
+        telefono = DatosBenchmark.telefono();
+        entrada = codecCacheTelefono.codificar(telefono);
+        System.out.println("codec " + codec + ": " + entrada.length + " bytes por entrada");
+    }
+
+    @Benchmark
+    public byte[] codificar() {
+        return codecCacheTelefono.codificar(telefono);
+    }
+
+    @Benchmark
+    public Telefono decodificar() {
+        return codecCacheTelefono.decodificar(entrada);
+    }
+}
@@ -0,0 +1,67 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.banco.admintelefonos.config.DataHeaderFilter;
+import com.banco.admintelefonos.config.SecretosDataHeader;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+/**
+ * Costo del filtro de la cabecera DATA. En el caso rechazado se crea una respuesta nueva
+ * en cada invocacion, como ocurre en el servidor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataHeaderFilterBenchmark {
+
+    private DataHeaderFilter filter;
+    private MockHttpServletRequest requestValido;
+    private MockHttpServletRequest requestInvalido;
+    private MockHttpServletResponse responseValido;
+    private FilterChain filterChain;
+
+    @Setup
+    public void setUp() {
+        filter = new DataHeaderFilter(new SecretosDataHeader(List.of("MIEXAMENPRUEBA"), ""), new SimpleMeterRegistry());
+        requestValido = new MockHttpServletRequest("GET", "/telefonos");
+        requestValido.addHeader("DATA", "bXIHHGDUTBaGk7VX3Uj+7dfHY5N6nwK684IKIYvucD8=");
+        requestInvalido = new MockHttpServletRequest("GET", "/telefonos");
+        requestInvalido.addHeader("DATA", "bXIHHGDUTBaGk7VX3Uj+7dfHY5N6nwK684IKIYvucD9=");
+        responseValido = new MockHttpServletResponse();
+        filterChain = (request, response) -> {
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse cabeceraValida() throws Exception {
+        filter.doFilterInternal(requestValido, responseValido, filterChain);
+        return responseValido;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse cabeceraInvalida() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilterInternal(requestInvalido, response, filterChain);
+        return response;
+    }
+}
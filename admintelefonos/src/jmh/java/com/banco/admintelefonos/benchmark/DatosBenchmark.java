@@ -0,0 +1,46 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.time.LocalDateTime;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Datos y dependencias comunes de los benchmarks, configurados como los crea
+ * Spring Boot en la aplicacion.
+ */
+final class DatosBenchmark {
+
+    private DatosBenchmark() {
+    }
+
+    static Telefono telefono() {
+        Telefono telefono = new Telefono();
+        telefono.setId("65f1a2b3c4d5e6f708091a2b");
+        telefono.setNombre("Galaxy A54 Negro");
+        telefono.setMarca("Samsung");
+        telefono.setModelo("SM A546E");
+        telefono.setNombreCorto("A54");
+        telefono.setFechaCreacion(LocalDateTime.of(2025, 3, 14, 10, 30, 15));
+        telefono.setImei("356938035643809");
+        telefono.setNumeroCelular("5512345678");
+        telefono.setEmailSoporte("soporte@banco.com");
+        telefono.setTieneSistemaIOS(Boolean.FALSE);
+        return telefono;
+    }
+
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static MessageSource messageSource() {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        return messageSource;
+    }
+}
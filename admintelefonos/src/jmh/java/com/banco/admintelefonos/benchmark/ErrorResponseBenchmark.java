@@ -0,0 +1,78 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.MessageSource;
+
+import com.banco.admintelefonos.component.CatalogoErrores;
+import com.banco.admintelefonos.dto.ErrorResponse;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Resolver el mensaje en cada peticion frente a la tabla de {@link CatalogoErrores}; los
+ * casos *Json incluyen la serializacion del cuerpo con Jackson.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private MessageSource messageSource;
+    private CatalogoErrores catalogoErrores;
+    private ObjectMapper objectMapper;
+    private Locale espanol;
+
+    @Setup
+    public void setUp() {
+        messageSource = DatosBenchmark.messageSource();
+        objectMapper = new ObjectMapper();
+        catalogoErrores = new CatalogoErrores(messageSource, objectMapper, List.of("es", "en"));
+        espanol = Locale.forLanguageTag("es-MX");
+    }
+
+    @Benchmark
+    public ErrorResponse espanol() {
+        return crear(ErrorCode.NOMBRE_CARACTERES_ESPECIALES, espanol);
+    }
+
+    @Benchmark
+    public ErrorResponse ingles() {
+        return crear(ErrorCode.NOMBRE_CARACTERES_ESPECIALES, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public ErrorResponse catalogoEspanol() {
+        return catalogoErrores.respuesta(ErrorCode.NOMBRE_CARACTERES_ESPECIALES, espanol);
+    }
+
+    @Benchmark
+    public byte[] espanolJson() throws Exception {
+        return objectMapper.writeValueAsBytes(crear(ErrorCode.NOMBRE_CARACTERES_ESPECIALES, espanol));
+    }
+
+    @Benchmark
+    public byte[] catalogoEspanolJson() throws Exception {
+        return objectMapper.writeValueAsBytes(catalogoErrores.respuesta(ErrorCode.NOMBRE_CARACTERES_ESPECIALES, espanol));
+    }
+
+    private ErrorResponse crear(ErrorCode codigoError, Locale locale) {
+        String mensaje = messageSource.getMessage(codigoError.getMensajeKey(), null, locale);
+        return new ErrorResponse(codigoError.getCode(), mensaje);
+    }
+}
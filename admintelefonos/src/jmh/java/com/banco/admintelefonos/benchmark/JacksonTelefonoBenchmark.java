@@ -0,0 +1,47 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonTelefonoBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Telefono telefono;
+    private String telefonoJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = DatosBenchmark.objectMapper();
+        telefono = DatosBenchmark.telefono();
+        telefonoJson = objectMapper.writeValueAsString(telefono);
+    }
+
+    @Benchmark
+    public String serializar() throws Exception {
+        return objectMapper.writeValueAsString(telefono);
+    }
+
+    @Benchmark
+    public Telefono deserializar() throws Exception {
+        return objectMapper.readValue(telefonoJson, Telefono.class);
+    }
+}
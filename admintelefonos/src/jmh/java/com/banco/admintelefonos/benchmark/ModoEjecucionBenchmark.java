@@ -0,0 +1,133 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banco.admintelefonos.component.LimitadorConcurrencia;
+
+/**
+ * Prueba de carga simulada de {@code GET /telefonos/imei/{imei}} en los dos modos de
+ * ejecucion. Cada operacion atiende un lote de peticiones concurrentes: lectura de Redis
+ * con la latencia del parametro y, en el 10% de fallos, una consulta a Mongo de 3 ms con
+ * un pool de 100 conexiones mas la escritura en Redis. El modo plataforma usa los 200
+ * hilos de Tomcat; el modo virtual un hilo virtual por peticion con
+ * {@link LimitadorConcurrencia}. Las latencias son esperas simuladas, no red real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModoEjecucionBenchmark {
+
+    private static final int PETICIONES_POR_LOTE = 4000;
+    private static final int HILOS_TOMCAT = 200;
+    private static final int POOL_MONGO = 100;
+    private static final long LATENCIA_MONGO_NANOS = TimeUnit.MILLISECONDS.toNanos(3);
+
+    @Param({ "1", "10" })
+    public int latenciaRedisMs;
+
+    private ExecutorService plataforma;
+    private ExecutorService virtual;
+    private LimitadorConcurrencia limitador;
+    private Semaphore poolMongo;
+    private long latenciaRedisNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plataforma = Executors.newFixedThreadPool(HILOS_TOMCAT);
+        virtual = Executors.newVirtualThreadPerTaskExecutor();
+        limitador = new LimitadorConcurrencia(POOL_MONGO, 256, Duration.ofSeconds(30));
+        poolMongo = new Semaphore(POOL_MONGO);
+        latenciaRedisNanos = TimeUnit.MILLISECONDS.toNanos(latenciaRedisMs);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plataforma.shutdownNow();
+        virtual.shutdownNow();
+    }
+
+    @Benchmark
+    public int hilosDePlataforma() throws Exception {
+        return atenderLote(plataforma, false);
+    }
+
+    @Benchmark
+    public int hilosVirtuales() throws Exception {
+        return atenderLote(virtual, true);
+    }
+
+    private int atenderLote(ExecutorService executor, boolean limitar) throws Exception {
+        List<Future<Boolean>> peticiones = new ArrayList<>(PETICIONES_POR_LOTE);
+        for (int i = 0; i < PETICIONES_POR_LOTE; i++) {
+            peticiones.add(executor.submit(() -> atenderPeticion(limitar)));
+        }
+        int aciertos = 0;
+        for (Future<Boolean> peticion : peticiones) {
+            if (peticion.get()) {
+                aciertos++;
+            }
+        }
+        return aciertos;
+    }
+
+    private boolean atenderPeticion(boolean limitar) throws InterruptedException {
+        redis(limitar);
+        if (ThreadLocalRandom.current().nextInt(10) > 0) {
+            return true;
+        }
+        if (limitar) {
+            limitador.mongo(() -> {
+                consultarMongo();
+                return null;
+            });
+        } else {
+            consultarMongo();
+        }
+        redis(limitar);
+        return false;
+    }
+
+    private void redis(boolean limitar) {
+        if (limitar) {
+            limitador.redis(() -> LockSupport.parkNanos(latenciaRedisNanos));
+        } else {
+            LockSupport.parkNanos(latenciaRedisNanos);
+        }
+    }
+
+    // El pool de conexiones del driver existe en ambos modos
+    private void consultarMongo() {
+        poolMongo.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(LATENCIA_MONGO_NANOS);
+        } finally {
+            poolMongo.release();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.banco.admintelefonos.component.ValidadorTelefono;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.banco.admintelefonos.model.Telefono;
+
+/**
+ * Compara {@link ValidadorTelefono} contra la validacion anterior del controlador,
+ * copiada aqui sin cambios (Pattern.matches y trim por campo).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MotorValidacionBenchmark {
+
+    private ValidadorTelefono validadorTelefono;
+    private Telefono valido;
+    private Telefono emailInvalido;
+
+    @Setup
+    public void setUp() {
+        validadorTelefono = new ValidadorTelefono();
+        valido = DatosBenchmark.telefono();
+        emailInvalido = DatosBenchmark.telefono();
+        emailInvalido.setEmailSoporte("soporte@@banco.com");
+    }
+
+    @Benchmark
+    public ErrorCode anteriorValido() {
+        return validacionAnterior(valido);
+    }
+
+    @Benchmark
+    public ErrorCode validadorValido() {
+        return validadorTelefono.validar(valido, true);
+    }
+
+    @Benchmark
+    public ErrorCode anteriorEmailInvalido() {
+        return validacionAnterior(emailInvalido);
+    }
+
+    @Benchmark
+    public ErrorCode validadorEmailInvalido() {
+        return validadorTelefono.validar(emailInvalido, true);
+    }
+
+    private static ErrorCode validacionAnterior(Telefono telefono) {
+        String regex = "[a-zA-Z0-9\\s]+";
+        String emailRegex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
+
+        if (telefono.getNombre() == null || telefono.getNombre().trim().isEmpty()) {
+            return ErrorCode.NOMBRE_REQUERIDO;
+        }
+        if (!Pattern.matches(regex, telefono.getNombre())) {
+            return ErrorCode.NOMBRE_CARACTERES_ESPECIALES;
+        }
+        if (telefono.getMarca() == null || telefono.getMarca().trim().isEmpty()) {
+            return ErrorCode.MARCA_REQUERIDO;
+        }
+        if (!Pattern.matches(regex, telefono.getMarca())) {
+            return ErrorCode.MARCA_CARACTERES_ESPECIALES;
+        }
+        if (telefono.getModelo() == null || telefono.getModelo().trim().isEmpty()) {
+            return ErrorCode.MODELO_REQUERIDO;
+        }
+        if (!Pattern.matches(regex, telefono.getModelo())) {
+            return ErrorCode.MODELO_CARACTERES_ESPECIALES;
+        }
+        if (telefono.getNombreCorto() == null || telefono.getNombreCorto().trim().isEmpty()) {
+            return ErrorCode.NOMBRE_CORTO_REQUERIDO;
+        }
+        if (!Pattern.matches(regex, telefono.getNombreCorto())) {
+            return ErrorCode.NOMBRE_CORTO_CARACTERES_ESPECIALES;
+        }
+        if (telefono.getFechaCreacion() == null) {
+            return ErrorCode.FECHA_CREACION_REQUERIDO;
+        }
+        if (telefono.getImei() == null || telefono.getImei().trim().isEmpty()) {
+            return ErrorCode.IMEI_REQUERIDO;
+        }
+        if (telefono.getEmailSoporte() != null && !telefono.getEmailSoporte().trim().isEmpty()) {
+            if (!Pattern.matches(emailRegex, telefono.getEmailSoporte())) {
+                return ErrorCode.EMAIL_FORMATO_INVALIDO;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.banco.admintelefonos.benchmark;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.banco.admintelefonos.component.CamposTelefono;
+import com.banco.admintelefonos.component.CatalogoErrores;
+import com.banco.admintelefonos.component.ExportadorTelefonos;
+import com.banco.admintelefonos.component.ValidadorTelefono;
+import com.banco.admintelefonos.controller.TelefonoController;
+import com.banco.admintelefonos.model.Telefono;
+import com.banco.admintelefonos.service.TelefonoService;
+
+/**
+ * Validacion de {@code POST /telefonos}: el servicio es un doble que devuelve el mismo
+ * telefono, por lo que se mide la validacion y la construccion de la respuesta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacionBenchmark {
+
+    private TelefonoController controller;
+    private Telefono valido;
+    private Telefono nombreInvalido;
+    private Telefono emailInvalido;
+    private Locale locale;
+
+    @Setup
+    public void setUp() {
+        TelefonoService servicio = new TelefonoService() {
+            @Override
+            public Telefono guardarTelefono(Telefono telefono) {
+                return telefono;
+            }
+        };
+        controller = new TelefonoController(servicio,
+                new CatalogoErrores(DatosBenchmark.messageSource(), DatosBenchmark.objectMapper(), List.of("es", "en")),
+                DatosBenchmark.objectMapper(),
+                new ValidadorTelefono(), new ExportadorTelefonos(DatosBenchmark.objectMapper()),
+                new CamposTelefono(DatosBenchmark.objectMapper()));
+        valido = DatosBenchmark.telefono();
+        nombreInvalido = DatosBenchmark.telefono();
+        nombreInvalido.setNombre("Galaxy A54 #Negro");
+        emailInvalido = DatosBenchmark.telefono();
+        emailInvalido.setEmailSoporte("soporte@@banco.com");
+        locale = Locale.ENGLISH;
+    }
+
+    @Benchmark
+    public ResponseEntity<?> telefonoValido() {
+        return controller.crearTelefono(valido, false, locale);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> nombreConCaracteresEspeciales() {
+        return controller.crearTelefono(nombreInvalido, false, locale);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> emailInvalido() {
+        return controller.crearTelefono(emailInvalido, false, locale);
+    }
+}
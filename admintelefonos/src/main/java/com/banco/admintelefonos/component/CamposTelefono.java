@@ -0,0 +1,92 @@
+package com.banco.admintelefonos.component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Seleccion de campos ({@code ?fields=}) de las lecturas de telefonos. La misma seleccion
+ * se aplica como proyeccion de Mongo, para que el servidor no envie ni el driver decodifique
+ * los demas campos, y como filtro de Jackson, para que tampoco se serialicen como null.
+ * <p>
+ * El filtro vive en una copia del {@link ObjectMapper} de la aplicacion; el resto de la
+ * aplicacion, incluida la cache, sigue serializando el telefono completo.
+ */
+@Component
+public class CamposTelefono {
+
+    public static final List<String> DISPONIBLES = List.of("id", "nombre", "marca", "modelo", "nombreCorto",
+            "fechaCreacion", "imei", "numeroCelular", "emailSoporte", "tieneSistemaIOS", "version",
+            "fechaModificacion");
+
+    private static final String FILTRO = "camposTelefono";
+
+    private final ObjectMapper objectMapperFiltrado;
+
+    public CamposTelefono(ObjectMapper objectMapper) {
+        this.objectMapperFiltrado = objectMapper.copy().addMixIn(Telefono.class, FiltroTelefono.class);
+    }
+
+    /**
+     * Campos pedidos, separados por coma, en el orden de {@link #DISPONIBLES}. El id se
+     * incluye siempre porque lo necesitan el cursor y los clientes para volver a consultar.
+     *
+     * @throws IllegalArgumentException si la lista esta vacia o trae un campo desconocido
+     */
+    public static Set<String> parsear(String fields) {
+        Set<String> pedidos = new LinkedHashSet<>();
+        for (String campo : fields.split(",", -1)) {
+            String nombre = campo.trim();
+            if (!DISPONIBLES.contains(nombre)) {
+                throw new IllegalArgumentException("Campo desconocido: " + nombre);
+            }
+            pedidos.add(nombre);
+        }
+        pedidos.add("id");
+        Set<String> campos = new LinkedHashSet<>();
+        for (String campo : DISPONIBLES) {
+            if (pedidos.contains(campo)) {
+                campos.add(campo);
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * Sin seleccion ({@code null}) la consulta trae el documento completo.
+     */
+    public static Query proyectar(Query query, Set<String> campos) {
+        if (campos != null) {
+            query.fields().include(campos.toArray(new String[0]));
+        }
+        return query;
+    }
+
+    /**
+     * Writer que solo escribe los campos seleccionados de cada telefono, a cualquier
+     * profundidad del valor: pagina, mapa o telefono suelto.
+     */
+    public ObjectWriter writer(Set<String> campos) {
+        return objectMapperFiltrado.writer(new SimpleFilterProvider()
+                .addFilter(FILTRO, SimpleBeanPropertyFilter.filterOutAllExcept(campos)));
+    }
+
+    public byte[] escribir(Object valor, Set<String> campos) throws JsonProcessingException {
+        return writer(campos).writeValueAsBytes(valor);
+    }
+
+    @JsonFilter(FILTRO)
+    private abstract static class FiltroTelefono {
+    }
+}
@@ -0,0 +1,113 @@
+package com.banco.admintelefonos.component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.dto.ErrorResponse;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Respuestas de error de cada {@link ErrorCode} en los idiomas soportados, resueltas una
+ * sola vez al iniciar. Cada respuesta guarda ademas su JSON ya codificado en UTF-8, asi que
+ * responder un error es una busqueda en el mapa y una copia de bytes al serializar.
+ * El primer idioma de telefono.errores.idiomas corresponde a messages.properties y se usa
+ * para cualquier idioma no soportado.
+ */
+@Component
+public class CatalogoErrores {
+
+    private final Map<String, EnumMap<ErrorCode, ErrorPrerenderizado>> porIdioma;
+    private final EnumMap<ErrorCode, ErrorPrerenderizado> porDefecto;
+
+    public CatalogoErrores(MessageSource messageSource, ObjectMapper objectMapper,
+            @Value("${telefono.errores.idiomas:es,en}") List<String> idiomas) {
+        if (idiomas.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un idioma para los mensajes de error");
+        }
+        Map<String, EnumMap<ErrorCode, ErrorPrerenderizado>> tabla = new HashMap<>();
+        for (int i = 0; i < idiomas.size(); i++) {
+            String idioma = idiomas.get(i).strip();
+            // El idioma por defecto se lee del archivo base para no caer en el locale del sistema
+            Locale locale = i == 0 ? Locale.ROOT : Locale.forLanguageTag(idioma);
+            tabla.put(idioma, resolver(messageSource, objectMapper, locale));
+        }
+        this.porIdioma = Map.copyOf(tabla);
+        this.porDefecto = porIdioma.get(idiomas.get(0).strip());
+    }
+
+    public ErrorResponse respuesta(ErrorCode codigoError, Locale locale) {
+        return entradas(locale).get(codigoError);
+    }
+
+    public String mensaje(ErrorCode codigoError, Locale locale) {
+        return entradas(locale).get(codigoError).getMensaje();
+    }
+
+    public String json(ErrorCode codigoError, Locale locale) {
+        return entradas(locale).get(codigoError).json.getValue();
+    }
+
+    private EnumMap<ErrorCode, ErrorPrerenderizado> entradas(Locale locale) {
+        if (locale == null) {
+            return porDefecto;
+        }
+        return porIdioma.getOrDefault(locale.getLanguage(), porDefecto);
+    }
+
+    private static EnumMap<ErrorCode, ErrorPrerenderizado> resolver(MessageSource messageSource,
+            ObjectMapper objectMapper, Locale locale) {
+        EnumMap<ErrorCode, ErrorPrerenderizado> entradas = new EnumMap<>(ErrorCode.class);
+        for (ErrorCode codigoError : ErrorCode.values()) {
+            String mensaje = messageSource.getMessage(codigoError.getMensajeKey(), null, locale);
+            try {
+                String json = objectMapper.writeValueAsString(new ErrorResponse(codigoError.getCode(), mensaje));
+                entradas.put(codigoError, new ErrorPrerenderizado(codigoError.getCode(), mensaje, json));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("No fue posible serializar el error " + codigoError, e);
+            }
+        }
+        return entradas;
+    }
+
+    /**
+     * Respuesta compartida entre peticiones que Jackson escribe copiando su JSON ya
+     * codificado en lugar de recorrer sus propiedades.
+     */
+    public static final class ErrorPrerenderizado extends ErrorResponse implements JsonSerializable {
+
+        private final SerializedString json;
+
+        ErrorPrerenderizado(String codigoError, String mensaje, String json) {
+            super(codigoError, mensaje);
+            this.json = new SerializedString(json);
+            // Codifica los bytes UTF-8 ahora y no en la primera respuesta
+            this.json.asUnquotedUTF8();
+        }
+
+        @Override
+        public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(json);
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+                throws IOException {
+            serialize(gen, serializers);
+        }
+    }
+}
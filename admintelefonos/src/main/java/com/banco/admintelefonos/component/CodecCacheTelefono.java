@@ -0,0 +1,115 @@
+package com.banco.admintelefonos.component;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Codifica los telefonos que se guardan en Redis. Escribe con el formato configurado en
+ * {@code telefono.cache.codec} y lee cualquier formato conocido segun su primer byte, de
+ * modo que un despliegue puede cambiar de formato sin vaciar la cache.
+ * <p>
+ * Con el codec binario las entradas se escriben dentro de una envoltura: byte {@code 0x02},
+ * creacion (epoch ms), TTL (ms) y costo de la consulta (us) como varints, y despues el
+ * telefono. Con json se escribe el JSON sin envoltura, el unico formato que leen las
+ * versiones anteriores; esas entradas no tienen metadatos y no se refrescan antes de vencer.
+ */
+@Component
+public class CodecCacheTelefono {
+
+    public static final String CODEC_JSON = "json";
+    public static final String CODEC_BINARIO = "binario";
+
+    // Entrada negativa: el IMEI no existe. No coincide con el primer byte de ningun formato
+    private static final byte MARCA_AUSENTE = 0x00;
+    private static final byte[] AUSENTE = { MARCA_AUSENTE };
+    private static final byte MARCA_ENVOLTURA = 0x02;
+
+    private final CodecTelefonoBinario binario = new CodecTelefonoBinario();
+    private final CodecTelefono escritura;
+    private final List<CodecTelefono> lectura;
+
+    public CodecCacheTelefono(ObjectMapper objectMapper,
+            @Value("${telefono.cache.codec:" + CODEC_JSON + "}") String codec) {
+        CodecTelefono json = new CodecTelefonoJson(objectMapper);
+        this.lectura = List.of(binario, json);
+        this.escritura = switch (codec) {
+            case CODEC_JSON -> json;
+            case CODEC_BINARIO -> binario;
+            default -> throw new IllegalArgumentException("telefono.cache.codec desconocido: " + codec);
+        };
+    }
+
+    public byte[] codificar(Telefono telefono) {
+        return escritura.codificar(telefono);
+    }
+
+    public byte[] codificarEntrada(EntradaCacheTelefono entrada) {
+        if (escritura != binario) {
+            return escritura.codificar(entrada.getTelefono());
+        }
+        CodecTelefonoBinario.Escritor escritor = new CodecTelefonoBinario.Escritor();
+        escritor.escribirByte(MARCA_ENVOLTURA);
+        escritor.escribirVarint(entrada.getCreadoEnMillis());
+        escritor.escribirVarint(entrada.getTtlMillis());
+        escritor.escribirVarint(entrada.getCostoMicros());
+        escritor.escribirBytes(escritura.codificar(entrada.getTelefono()));
+        return escritor.resultado();
+    }
+
+    /**
+     * Lee una entrada con o sin envoltura; sin envoltura los metadatos quedan en 0.
+     */
+    public EntradaCacheTelefono decodificarEntrada(byte[] datos) {
+        if (datos.length == 0 || datos[0] != MARCA_ENVOLTURA) {
+            return new EntradaCacheTelefono(decodificar(datos), 0, 0, 0);
+        }
+        CodecTelefonoBinario.Lector lector = new CodecTelefonoBinario.Lector(datos);
+        lector.leerByte();
+        long creadoEnMillis = lector.leerVarint();
+        long ttlMillis = lector.leerVarint();
+        long costoMicros = lector.leerVarint();
+        return new EntradaCacheTelefono(decodificar(lector.leerResto()), creadoEnMillis, ttlMillis, costoMicros);
+    }
+
+    /**
+     * Validadores de una entrada binaria sin decodificar el telefono. Null si la entrada
+     * es negativa o de otro formato; el llamador debe decodificarla completa.
+     */
+    public MetadatosTelefono leerMetadatos(byte[] datos) {
+        if (datos.length == 0 || esAusente(datos)) {
+            return null;
+        }
+        CodecTelefonoBinario.Lector lector = new CodecTelefonoBinario.Lector(datos);
+        if (datos[0] == MARCA_ENVOLTURA) {
+            lector.leerByte();
+            lector.leerVarint();
+            lector.leerVarint();
+            lector.leerVarint();
+        }
+        return binario.leerMetadatos(lector);
+    }
+
+    public byte[] ausente() {
+        return AUSENTE.clone();
+    }
+
+    public boolean esAusente(byte[] datos) {
+        return datos.length == 1 && datos[0] == MARCA_AUSENTE;
+    }
+
+    public Telefono decodificar(byte[] datos) {
+        for (CodecTelefono codec : lectura) {
+            if (codec.reconoce(datos)) {
+                return codec.decodificar(datos);
+            }
+        }
+        throw new IllegalArgumentException("Formato de cache desconocido");
+    }
+}
@@ -0,0 +1,19 @@
+package com.banco.admintelefonos.component;
+
+import com.banco.admintelefonos.model.Telefono;
+
+/**
+ * Formato de un {@link Telefono} guardado en Redis. Cada formato se reconoce por su
+ * primer byte para que entradas de distintas versiones convivan durante un despliegue.
+ */
+public interface CodecTelefono {
+
+    byte[] codificar(Telefono telefono);
+
+    Telefono decodificar(byte[] datos);
+
+    /**
+     * Indica si {@code datos} fue escrito por este formato.
+     */
+    boolean reconoce(byte[] datos);
+}
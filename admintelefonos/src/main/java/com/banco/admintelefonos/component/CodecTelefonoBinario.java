@@ -0,0 +1,357 @@
+package com.banco.admintelefonos.component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.bson.types.ObjectId;
+
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.model.Telefono;
+
+/**
+ * Formato binario v1. Despues del byte de version va una mascara de 16 bits con los
+ * campos presentes y, en orden, solo esos campos:
+ * <ul>
+ * <li>textos: longitud varint y bytes UTF-8</li>
+ * <li>id: los 12 bytes del ObjectId cuando el id lo es</li>
+ * <li>imei: cantidad de digitos y valor varint cuando es numerico</li>
+ * <li>fechaCreacion: segundos (zigzag varint) y nanosegundos (varint)</li>
+ * <li>tieneSistemaIOS: solo bits de la mascara</li>
+ * <li>version: varint al final, despues de emailSoporte</li>
+ * <li>fechaModificacion: epoch ms varint, despues de la version</li>
+ * </ul>
+ * Un cambio de estructura debe usar otro byte de version. La version y la fecha de
+ * modificacion se agregaron con bits que antes no se usaban y al final de la entrada,
+ * por lo que los lectores anteriores las ignoran sin fallar.
+ */
+public class CodecTelefonoBinario implements CodecTelefono {
+
+    public static final byte VERSION = 0x01;
+
+    private static final int ID = 1;
+    private static final int NOMBRE = 1 << 1;
+    private static final int MARCA = 1 << 2;
+    private static final int MODELO = 1 << 3;
+    private static final int NOMBRE_CORTO = 1 << 4;
+    private static final int FECHA_CREACION = 1 << 5;
+    private static final int IMEI = 1 << 6;
+    private static final int NUMERO_CELULAR = 1 << 7;
+    private static final int EMAIL_SOPORTE = 1 << 8;
+    private static final int TIENE_IOS = 1 << 9;
+    private static final int VALOR_IOS = 1 << 10;
+    private static final int ID_OBJECT_ID = 1 << 11;
+    private static final int IMEI_NUMERICO = 1 << 12;
+    private static final int VERSION_DOCUMENTO = 1 << 13;
+    private static final int FECHA_MODIFICACION = 1 << 14;
+
+    private static final int MAXIMO_DIGITOS_IMEI = 18;
+
+    @Override
+    public byte[] codificar(Telefono telefono) {
+        Escritor escritor = new Escritor();
+        escritor.escribirByte(VERSION);
+        int mascara = mascara(telefono);
+        escritor.escribirByte(mascara >>> 8);
+        escritor.escribirByte(mascara);
+
+        if ((mascara & ID_OBJECT_ID) != 0) {
+            escritor.escribirBytes(new ObjectId(telefono.getId()).toByteArray());
+        } else if ((mascara & ID) != 0) {
+            escritor.escribirTexto(telefono.getId());
+        }
+        escritor.escribirTexto(telefono.getNombre());
+        escritor.escribirTexto(telefono.getMarca());
+        escritor.escribirTexto(telefono.getModelo());
+        escritor.escribirTexto(telefono.getNombreCorto());
+        if ((mascara & FECHA_CREACION) != 0) {
+            LocalDateTime fecha = telefono.getFechaCreacion();
+            long segundos = fecha.toEpochSecond(ZoneOffset.UTC);
+            escritor.escribirVarint((segundos << 1) ^ (segundos >> 63));
+            escritor.escribirVarint(fecha.getNano());
+        }
+        if ((mascara & IMEI_NUMERICO) != 0) {
+            escritor.escribirByte(telefono.getImei().length());
+            escritor.escribirVarint(Long.parseLong(telefono.getImei()));
+        } else {
+            escritor.escribirTexto(telefono.getImei());
+        }
+        escritor.escribirTexto(telefono.getNumeroCelular());
+        escritor.escribirTexto(telefono.getEmailSoporte());
+        if ((mascara & VERSION_DOCUMENTO) != 0) {
+            escritor.escribirVarint(telefono.getVersion());
+        }
+        if ((mascara & FECHA_MODIFICACION) != 0) {
+            escritor.escribirVarint(telefono.getFechaModificacion().toEpochMilli());
+        }
+        return escritor.resultado();
+    }
+
+    @Override
+    public Telefono decodificar(byte[] datos) {
+        if (!reconoce(datos)) {
+            throw new IllegalArgumentException("Version de entrada no soportada");
+        }
+        Lector lector = new Lector(datos);
+        lector.leerByte();
+        int mascara = (lector.leerByte() << 8) | lector.leerByte();
+
+        Telefono telefono = new Telefono();
+        if ((mascara & ID_OBJECT_ID) != 0) {
+            telefono.setId(new ObjectId(lector.leerBytes(12)).toHexString());
+        } else if ((mascara & ID) != 0) {
+            telefono.setId(lector.leerTexto());
+        }
+        telefono.setNombre((mascara & NOMBRE) != 0 ? lector.leerTexto() : null);
+        telefono.setMarca((mascara & MARCA) != 0 ? lector.leerTexto() : null);
+        telefono.setModelo((mascara & MODELO) != 0 ? lector.leerTexto() : null);
+        telefono.setNombreCorto((mascara & NOMBRE_CORTO) != 0 ? lector.leerTexto() : null);
+        if ((mascara & FECHA_CREACION) != 0) {
+            long zigzag = lector.leerVarint();
+            long segundos = (zigzag >>> 1) ^ -(zigzag & 1);
+            telefono.setFechaCreacion(
+                    LocalDateTime.ofEpochSecond(segundos, (int) lector.leerVarint(), ZoneOffset.UTC));
+        }
+        if ((mascara & IMEI_NUMERICO) != 0) {
+            int digitos = lector.leerByte();
+            telefono.setImei(rellenarConCeros(Long.toString(lector.leerVarint()), digitos));
+        } else if ((mascara & IMEI) != 0) {
+            telefono.setImei(lector.leerTexto());
+        }
+        telefono.setNumeroCelular((mascara & NUMERO_CELULAR) != 0 ? lector.leerTexto() : null);
+        telefono.setEmailSoporte((mascara & EMAIL_SOPORTE) != 0 ? lector.leerTexto() : null);
+        if ((mascara & TIENE_IOS) != 0) {
+            telefono.setTieneSistemaIOS((mascara & VALOR_IOS) != 0);
+        }
+        if ((mascara & VERSION_DOCUMENTO) != 0) {
+            telefono.setVersion(lector.leerVarint());
+        }
+        if ((mascara & FECHA_MODIFICACION) != 0) {
+            telefono.setFechaModificacion(Instant.ofEpochMilli(lector.leerVarint()));
+        }
+        return telefono;
+    }
+
+    /**
+     * Lee id, version y fecha de modificacion saltando los demas campos, sin crear el
+     * telefono ni sus textos. Null si la entrada no esta en este formato.
+     */
+    MetadatosTelefono leerMetadatos(Lector lector) {
+        if (lector.leerByte() != VERSION) {
+            return null;
+        }
+        int mascara = (lector.leerByte() << 8) | lector.leerByte();
+
+        String id = null;
+        if ((mascara & ID_OBJECT_ID) != 0) {
+            id = new ObjectId(lector.leerBytes(12)).toHexString();
+        } else if ((mascara & ID) != 0) {
+            id = lector.leerTexto();
+        }
+        for (int campo : new int[] { NOMBRE, MARCA, MODELO, NOMBRE_CORTO }) {
+            if ((mascara & campo) != 0) {
+                lector.saltarTexto();
+            }
+        }
+        if ((mascara & FECHA_CREACION) != 0) {
+            lector.leerVarint();
+            lector.leerVarint();
+        }
+        if ((mascara & IMEI_NUMERICO) != 0) {
+            lector.leerByte();
+            lector.leerVarint();
+        } else if ((mascara & IMEI) != 0) {
+            lector.saltarTexto();
+        }
+        for (int campo : new int[] { NUMERO_CELULAR, EMAIL_SOPORTE }) {
+            if ((mascara & campo) != 0) {
+                lector.saltarTexto();
+            }
+        }
+        Long version = (mascara & VERSION_DOCUMENTO) != 0 ? lector.leerVarint() : null;
+        Instant fechaModificacion = (mascara & FECHA_MODIFICACION) != 0
+                ? Instant.ofEpochMilli(lector.leerVarint())
+                : null;
+        return new MetadatosTelefono(id, version, fechaModificacion);
+    }
+
+    @Override
+    public boolean reconoce(byte[] datos) {
+        return datos.length > 0 && datos[0] == VERSION;
+    }
+
+    private static int mascara(Telefono telefono) {
+        int mascara = 0;
+        if (telefono.getId() != null) {
+            mascara |= esObjectId(telefono.getId()) ? ID | ID_OBJECT_ID : ID;
+        }
+        mascara |= telefono.getNombre() != null ? NOMBRE : 0;
+        mascara |= telefono.getMarca() != null ? MARCA : 0;
+        mascara |= telefono.getModelo() != null ? MODELO : 0;
+        mascara |= telefono.getNombreCorto() != null ? NOMBRE_CORTO : 0;
+        mascara |= telefono.getFechaCreacion() != null ? FECHA_CREACION : 0;
+        if (telefono.getImei() != null) {
+            mascara |= esNumerico(telefono.getImei()) ? IMEI | IMEI_NUMERICO : IMEI;
+        }
+        mascara |= telefono.getNumeroCelular() != null ? NUMERO_CELULAR : 0;
+        mascara |= telefono.getEmailSoporte() != null ? EMAIL_SOPORTE : 0;
+        if (telefono.getTieneSistemaIOS() != null) {
+            mascara |= telefono.getTieneSistemaIOS() ? TIENE_IOS | VALOR_IOS : TIENE_IOS;
+        }
+        // Una version negativa no cabe en el varint sin signo; se omite
+        mascara |= telefono.getVersion() != null && telefono.getVersion() >= 0 ? VERSION_DOCUMENTO : 0;
+        mascara |= telefono.getFechaModificacion() != null && telefono.getFechaModificacion().toEpochMilli() >= 0
+                ? FECHA_MODIFICACION
+                : 0;
+        return mascara;
+    }
+
+    // Solo hexadecimal en minusculas, que es lo que devuelve ObjectId.toHexString al decodificar
+    private static boolean esObjectId(String valor) {
+        if (valor.length() != 24) {
+            return false;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean esNumerico(String valor) {
+        if (valor.isEmpty() || valor.length() > MAXIMO_DIGITOS_IMEI) {
+            return false;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String rellenarConCeros(String valor, int digitos) {
+        if (valor.length() >= digitos) {
+            return valor;
+        }
+        StringBuilder relleno = new StringBuilder(digitos);
+        for (int i = valor.length(); i < digitos; i++) {
+            relleno.append('0');
+        }
+        return relleno.append(valor).toString();
+    }
+
+    // Compartidos con la envoltura de metadatos de CodecCacheTelefono
+    static final class Escritor {
+
+        private byte[] buffer = new byte[128];
+        private int posicion;
+
+        void escribirByte(int valor) {
+            asegurarCapacidad(1);
+            buffer[posicion++] = (byte) valor;
+        }
+
+        void escribirBytes(byte[] valor) {
+            asegurarCapacidad(valor.length);
+            System.arraycopy(valor, 0, buffer, posicion, valor.length);
+            posicion += valor.length;
+        }
+
+        void escribirVarint(long valor) {
+            asegurarCapacidad(10);
+            while ((valor & ~0x7FL) != 0) {
+                buffer[posicion++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            buffer[posicion++] = (byte) valor;
+        }
+
+        // Los campos nulos no se escriben; su ausencia queda en la mascara
+        void escribirTexto(String valor) {
+            if (valor == null) {
+                return;
+            }
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            escribirVarint(bytes.length);
+            escribirBytes(bytes);
+        }
+
+        byte[] resultado() {
+            return Arrays.copyOf(buffer, posicion);
+        }
+
+        private void asegurarCapacidad(int adicional) {
+            if (posicion + adicional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, posicion + adicional));
+            }
+        }
+    }
+
+    static final class Lector {
+
+        private final byte[] datos;
+        private int posicion;
+
+        Lector(byte[] datos) {
+            this.datos = datos;
+        }
+
+        int leerByte() {
+            verificarDisponible(1);
+            return datos[posicion++] & 0xFF;
+        }
+
+        byte[] leerBytes(int longitud) {
+            verificarDisponible(longitud);
+            byte[] valor = Arrays.copyOfRange(datos, posicion, posicion + longitud);
+            posicion += longitud;
+            return valor;
+        }
+
+        long leerVarint() {
+            long valor = 0;
+            for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+                int b = leerByte();
+                valor |= (long) (b & 0x7F) << desplazamiento;
+                if ((b & 0x80) == 0) {
+                    return valor;
+                }
+            }
+            throw new IllegalArgumentException("Varint invalido");
+        }
+
+        byte[] leerResto() {
+            return leerBytes(datos.length - posicion);
+        }
+
+        void saltarTexto() {
+            long longitud = leerVarint();
+            if (longitud > datos.length - posicion) {
+                throw new IllegalArgumentException("Entrada truncada");
+            }
+            posicion += (int) longitud;
+        }
+
+        String leerTexto() {
+            long longitud = leerVarint();
+            if (longitud > datos.length - posicion) {
+                throw new IllegalArgumentException("Entrada truncada");
+            }
+            String valor = new String(datos, posicion, (int) longitud, StandardCharsets.UTF_8);
+            posicion += (int) longitud;
+            return valor;
+        }
+
+        private void verificarDisponible(int longitud) {
+            if (longitud > datos.length - posicion) {
+                throw new IllegalArgumentException("Entrada truncada");
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.banco.admintelefonos.component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Formato original: el telefono serializado con Jackson en JSON UTF-8.
+ */
+public class CodecTelefonoJson implements CodecTelefono {
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public CodecTelefonoJson(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(Telefono.class);
+        this.writer = objectMapper.writerFor(Telefono.class);
+    }
+
+    @Override
+    public byte[] codificar(Telefono telefono) {
+        try {
+            return writer.writeValueAsBytes(telefono);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Telefono decodificar(byte[] datos) {
+        try {
+            return reader.readValue(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean reconoce(byte[] datos) {
+        return datos.length > 0 && datos[0] == '{';
+    }
+}
@@ -0,0 +1,281 @@
+package com.banco.admintelefonos.component;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.count;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.facet;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.dto.EstadisticasTelefono;
+import com.banco.admintelefonos.model.Telefono;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Contadores del inventario en un solo documento de {@code estadisticas_telefonos}: total,
+ * telefonos por marca, por valor de tieneSistemaIOS y creaciones por dia de fechaCreacion.
+ * Cada escritura de telefonos aplica su {@link Delta} con un {@code $inc} atomico, por lo
+ * que leer las estadisticas es leer un documento.
+ * <p>
+ * Las escrituras que no se pueden contar (un fallo entre el telefono y su delta) dejan una
+ * desviacion que corrige la reconciliacion periodica: recalcula los contadores con una
+ * agregacion {@code $facet} y aplica la diferencia contra el documento leido como otro
+ * {@code $inc}, asi no se pierden los deltas que llegan mientras tanto. Una escritura que
+ * cae entre la agregacion y la lectura puede quedar descontada hasta la siguiente.
+ */
+@Component
+public class ContadoresTelefono {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadoresTelefono.class);
+
+    public static final String COLECCION = "estadisticas_telefonos";
+    static final String ID = "inventario";
+
+    private static final String TOTAL = "total";
+    private static final String POR_MARCA = "porMarca";
+    private static final String IOS = "ios";
+    private static final String CREACIONES_POR_DIA = "creacionesPorDia";
+    private static final String RECONCILIADO_EN = "reconciliadoEn";
+    private static final String CON_IOS = "si";
+    private static final String SIN_IOS = "no";
+    // No lo produce codificarClave, que siempre escapa '%'
+    private static final String SIN_DATO = "%00";
+
+    private final MongoTemplate mongoTemplate;
+    private volatile long ultimaDesviacion;
+
+    public ContadoresTelefono(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        Gauge.builder("telefono.estadisticas.desviacion", this, contadores -> contadores.ultimaDesviacion)
+                .description("Diferencia absoluta entre los contadores y la coleccion en la ultima reconciliacion")
+                .register(meterRegistry);
+    }
+
+    public static Query consulta() {
+        return new Query(Criteria.where("_id").is(ID));
+    }
+
+    /**
+     * Aplica el delta de una escritura. Un fallo no revierte la escritura del telefono;
+     * la desviacion la corrige la reconciliacion.
+     */
+    public void aplicar(Delta delta) {
+        if (delta.vacio()) {
+            return;
+        }
+        try {
+            mongoTemplate.upsert(consulta(), delta.update(), COLECCION);
+        } catch (Exception e) {
+            log.warn("No fue posible actualizar los contadores de telefonos; los corregira la reconciliacion", e);
+        }
+    }
+
+    public EstadisticasTelefono obtener() {
+        return estadisticas(mongoTemplate.findOne(consulta(), Document.class, COLECCION));
+    }
+
+    @Scheduled(initialDelayString = "${telefono.estadisticas.retraso-inicial:10s}",
+            fixedDelayString = "${telefono.estadisticas.reconciliacion:1h}")
+    public void reconciliar() {
+        try {
+            Document calculado = calcular();
+            Document anterior = mongoTemplate.findOne(consulta(), Document.class, COLECCION);
+            Map<String, Long> diferencias = diferencias(anterior, calculado);
+            Update correccion = new Update().set(RECONCILIADO_EN, calculado.get(RECONCILIADO_EN));
+            diferencias.forEach(correccion::inc);
+            mongoTemplate.upsert(consulta(), correccion, COLECCION);
+            // La primera reconciliacion crea el documento; no es una desviacion
+            ultimaDesviacion = anterior == null ? 0
+                    : diferencias.values().stream().mapToLong(Math::abs).sum();
+            if (ultimaDesviacion > 0) {
+                log.info("Contadores de telefonos reconciliados con una desviacion de {}", ultimaDesviacion);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible reconciliar los contadores de telefonos", e);
+        }
+    }
+
+    /**
+     * Recorre la coleccion una vez con cuatro ramas de {@code $facet}. El dia se calcula en
+     * la zona del proceso, la misma con la que se guarda fechaCreacion y con la que el
+     * {@link Delta} toma su fecha.
+     */
+    Document calcular() {
+        Aggregation agregacion = newAggregation(facet(count().as("n")).as(TOTAL)
+                .and(group("marca").count().as("n")).as(POR_MARCA)
+                .and(group("tieneSistemaIOS").count().as("n")).as(IOS)
+                .and(match(Criteria.where("fechaCreacion").type(9)),
+                        project().and(DateOperators.dateOf("fechaCreacion")
+                                .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId()))
+                                .toString("%Y-%m-%d")).as("dia"),
+                        group("dia").count().as("n"))
+                .as(CREACIONES_POR_DIA));
+        Document resultado = mongoTemplate.aggregate(agregacion, Telefono.class, Document.class).getUniqueMappedResult();
+
+        Document contadores = new Document("_id", ID);
+        List<Document> total = resultado != null ? resultado.getList(TOTAL, Document.class) : List.of();
+        contadores.append(TOTAL, total.isEmpty() ? 0L : ((Number) total.get(0).get("n")).longValue());
+        Document marcas = new Document();
+        Document ios = new Document();
+        Document dias = new Document();
+        if (resultado != null) {
+            for (Document grupo : resultado.getList(POR_MARCA, Document.class)) {
+                // null, vacia y en blanco comparten la clave de sin marca
+                marcas.merge(claveMarca((String) grupo.get("_id")), ((Number) grupo.get("n")).longValue(),
+                        (actual, n) -> numero(actual) + numero(n));
+            }
+            for (Document grupo : resultado.getList(IOS, Document.class)) {
+                ios.append(claveIos((Boolean) grupo.get("_id")), ((Number) grupo.get("n")).longValue());
+            }
+            for (Document grupo : resultado.getList(CREACIONES_POR_DIA, Document.class)) {
+                dias.append((String) grupo.get("_id"), ((Number) grupo.get("n")).longValue());
+            }
+        }
+        return contadores.append(POR_MARCA, marcas).append(IOS, ios).append(CREACIONES_POR_DIA, dias)
+                .append(RECONCILIADO_EN, new Date());
+    }
+
+    public static EstadisticasTelefono estadisticas(Document contadores) {
+        if (contadores == null) {
+            contadores = new Document();
+        }
+        Map<String, Long> porMarca = new TreeMap<>();
+        long sinMarca = 0;
+        for (Map.Entry<String, Long> marca : valores(contadores, POR_MARCA).entrySet()) {
+            if (SIN_DATO.equals(marca.getKey())) {
+                sinMarca = marca.getValue();
+            } else {
+                porMarca.put(decodificarClave(marca.getKey()), marca.getValue());
+            }
+        }
+        Map<String, Long> ios = valores(contadores, IOS);
+        long total = numero(contadores.get(TOTAL));
+        long conIos = ios.getOrDefault(CON_IOS, 0L);
+        Date reconciliadoEn = contadores.getDate(RECONCILIADO_EN);
+        return new EstadisticasTelefono(total, porMarca, sinMarca, conIos, ios.getOrDefault(SIN_IOS, 0L),
+                ios.getOrDefault(SIN_DATO, 0L), total > 0 ? (double) conIos / total : 0,
+                new TreeMap<>(valores(contadores, CREACIONES_POR_DIA)),
+                reconciliadoEn != null ? reconciliadoEn.toInstant() : null);
+    }
+
+    // Omite los contadores en cero que dejan las bajas
+    private static Map<String, Long> valores(Document contadores, String campo) {
+        Map<String, Long> valores = new HashMap<>();
+        Document documento = contadores.get(campo, Document.class);
+        if (documento != null) {
+            documento.forEach((clave, valor) -> {
+                long n = numero(valor);
+                if (n != 0) {
+                    valores.put(clave, n);
+                }
+            });
+        }
+        return valores;
+    }
+
+    // Lo que hay que sumar a cada contador leido para llegar al recalculado, con la ruta del $inc
+    private static Map<String, Long> diferencias(Document anterior, Document calculado) {
+        if (anterior == null) {
+            anterior = new Document();
+        }
+        Map<String, Long> diferencias = new HashMap<>();
+        diferencias.put(TOTAL, numero(calculado.get(TOTAL)) - numero(anterior.get(TOTAL)));
+        for (String campo : List.of(POR_MARCA, IOS, CREACIONES_POR_DIA)) {
+            valores(calculado, campo).forEach((clave, n) -> diferencias.merge(campo + "." + clave, n, Long::sum));
+            valores(anterior, campo).forEach((clave, n) -> diferencias.merge(campo + "." + clave, -n, Long::sum));
+        }
+        diferencias.values().removeIf(n -> n == 0);
+        return diferencias;
+    }
+
+    private static long numero(Object valor) {
+        return valor instanceof Number n ? n.longValue() : 0L;
+    }
+
+    private static String claveMarca(String marca) {
+        return marca == null || marca.isBlank() ? SIN_DATO : codificarClave(marca);
+    }
+
+    private static String claveIos(Boolean tieneSistemaIOS) {
+        if (tieneSistemaIOS == null) {
+            return SIN_DATO;
+        }
+        return tieneSistemaIOS ? CON_IOS : SIN_IOS;
+    }
+
+    // '.' y '$' no pueden ir en la ruta de un $inc; '%' se escapa para que la clave sea reversible
+    static String codificarClave(String valor) {
+        return valor.replace("%", "%25").replace(".", "%2E").replace("$", "%24");
+    }
+
+    static String decodificarClave(String clave) {
+        return clave.replace("%2E", ".").replace("%24", "$").replace("%25", "%");
+    }
+
+    /**
+     * Cambio neto de los contadores por una o varias escrituras: se resta el estado anterior
+     * de cada telefono y se suma el nuevo, asi una actualizacion que no toca marca, iOS ni
+     * fecha de creacion queda vacia y no escribe.
+     */
+    public static final class Delta {
+
+        private final Map<String, Long> incrementos = new HashMap<>();
+
+        public Delta sumar(Telefono telefono) {
+            return mover(telefono, 1);
+        }
+
+        public Delta restar(Telefono telefono) {
+            return mover(telefono, -1);
+        }
+
+        public boolean vacio() {
+            return incrementos.values().stream().allMatch(n -> n == 0);
+        }
+
+        public Update update() {
+            Update update = new Update();
+            incrementos.forEach((campo, n) -> {
+                if (n != 0) {
+                    update.inc(campo, n);
+                }
+            });
+            return update;
+        }
+
+        private Delta mover(Telefono telefono, long signo) {
+            incrementar(TOTAL, signo);
+            incrementar(POR_MARCA + "." + claveMarca(telefono.getMarca()), signo);
+            incrementar(IOS + "." + claveIos(telefono.getTieneSistemaIOS()), signo);
+            if (telefono.getFechaCreacion() != null) {
+                incrementar(CREACIONES_POR_DIA + "." + telefono.getFechaCreacion().toLocalDate(), signo);
+            }
+            return this;
+        }
+
+        private void incrementar(String campo, long n) {
+            incrementos.merge(campo, n, Long::sum);
+        }
+    }
+}
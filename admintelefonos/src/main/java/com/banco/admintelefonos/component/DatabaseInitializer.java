@@ -1,12 +1,27 @@
 package com.banco.admintelefonos.component;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition.TextIndexDefinitionBuilder;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import com.banco.admintelefonos.model.EventoInvalidacion;
+
+// Antes que la precarga de cache, que lee por el indice de fechaCreacion
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class DatabaseInitializer implements CommandLineRunner {
 
+    public static final String INDICE_IMEI = "imei_unico";
+
     private final MongoTemplate mongoTemplate;
 
     public DatabaseInitializer(MongoTemplate mongoTemplate) {
@@ -20,5 +35,58 @@ public class DatabaseInitializer implements CommandLineRunner {
             mongoTemplate.createCollection("telefonos");
         }
 
+        crearIndices();
+        crearIndicesBusqueda();
+        crearIndicesOutbox();
+        migrarVersion();
+    }
+
+    private void crearIndices() {
+        IndexOperations indices = mongoTemplate.indexOps("telefonos");
+
+        // IMEI unico: atiende findByImei y las consultas $in de los lotes, y hace que
+        // la escritura detecte los duplicados sin consultar antes
+        indices.ensureIndex(new Index().on("imei", Sort.Direction.ASC).unique().sparse().named(INDICE_IMEI));
+
+        // Filtros de la exportacion: rango de fechas solo o marca con rango de fechas
+        indices.ensureIndex(new Index().on("fechaCreacion", Sort.Direction.ASC).named("fechaCreacion"));
+        indices.ensureIndex(new Index().on("marca", Sort.Direction.ASC).on("fechaCreacion", Sort.Direction.ASC)
+                .named("marca_fechaCreacion"));
+    }
+
+    private void crearIndicesBusqueda() {
+        IndexOperations indices = mongoTemplate.indexOps("telefonos");
+
+        // q de /_search; sin idioma para no aplicar stemming ni stop words a nombres de modelos
+        indices.ensureIndex(new TextIndexDefinitionBuilder().onField("nombre", 3F).onField("modelo", 2F)
+                .onField("marca", 2F).onField("nombreCorto").withDefaultLanguage("none").named("busqueda_texto")
+                .build());
+
+        // Un indice por campo de prefijo, con fechaCreacion al final para el rango; marca con
+        // modelo resuelve los dos prefijos juntos
+        indices.ensureIndex(new Index().on("marca", Sort.Direction.ASC).on("modelo", Sort.Direction.ASC)
+                .on("fechaCreacion", Sort.Direction.ASC).named("marca_modelo_fechaCreacion"));
+        indices.ensureIndex(new Index().on("modelo", Sort.Direction.ASC).on("fechaCreacion", Sort.Direction.ASC)
+                .named("modelo_fechaCreacion"));
+        indices.ensureIndex(new Index().on("nombre", Sort.Direction.ASC).on("fechaCreacion", Sort.Direction.ASC)
+                .named("nombre_fechaCreacion"));
+        indices.ensureIndex(new Index().on("nombreCorto", Sort.Direction.ASC)
+                .on("fechaCreacion", Sort.Direction.ASC).named("nombreCorto_fechaCreacion"));
+    }
+
+    // Los documentos anteriores a @Version quedan en la version 0: sin ella save() los
+    // trataria como nuevos y las actualizaciones condicionales no los encontrarian
+    private void migrarVersion() {
+        mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L), "telefonos");
+    }
+
+    private void crearIndicesOutbox() {
+        IndexOperations indices = mongoTemplate.indexOps(EventoInvalidacion.COLECCION);
+
+        // El relay busca los eventos libres en orden de creacion y luego los que reclamo
+        indices.ensureIndex(new Index().on("bloqueadoHasta", Sort.Direction.ASC).on("creadoEn", Sort.Direction.ASC)
+                .named("bloqueadoHasta_creadoEn"));
+        indices.ensureIndex(new Index().on("reclamo", Sort.Direction.ASC).sparse().named("reclamo"));
     }
 }
@@ -0,0 +1,157 @@
+package com.banco.admintelefonos.component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Escribe un flujo de telefonos como NDJSON o CSV directamente sobre la salida,
+ * un documento a la vez, para que la memoria no dependa del tamaño de la coleccion.
+ */
+@Component
+public class ExportadorTelefonos {
+
+    public static final String FORMATO_NDJSON = "ndjson";
+    public static final String FORMATO_CSV = "csv";
+    public static final String ENCABEZADO_CSV =
+            "id,nombre,marca,modelo,nombreCorto,fechaCreacion,imei,numeroCelular,emailSoporte,tieneSistemaIOS\n";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writerTelefono;
+
+    public ExportadorTelefonos(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.writerTelefono = objectMapper.writerFor(Telefono.class);
+    }
+
+    public void escribirNdjson(Stream<Telefono> telefonos, OutputStream salida) throws IOException {
+        escribirNdjson(telefonos, salida, writerTelefono);
+    }
+
+    /**
+     * Con el writer de {@link CamposTelefono} cada linea lleva solo los campos seleccionados.
+     */
+    public void escribirNdjson(Stream<Telefono> telefonos, OutputStream salida, ObjectWriter writer)
+            throws IOException {
+        try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+            Iterator<Telefono> iterador = telefonos.iterator();
+            while (iterador.hasNext()) {
+                writer.writeValue(generador, iterador.next());
+                generador.writeRaw('\n');
+            }
+        }
+    }
+
+    public void escribirCsv(Stream<Telefono> telefonos, OutputStream salida) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8))) {
+            writer.write(ENCABEZADO_CSV);
+            Iterator<Telefono> iterador = telefonos.iterator();
+            while (iterador.hasNext()) {
+                writer.write(lineaCsv(iterador.next()));
+            }
+        }
+    }
+
+    /**
+     * CSV con solo las columnas seleccionadas, en el orden de {@link CamposTelefono#DISPONIBLES}.
+     */
+    public void escribirCsv(Stream<Telefono> telefonos, OutputStream salida, Set<String> campos)
+            throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8))) {
+            writer.write(encabezadoCsv(campos));
+            Iterator<Telefono> iterador = telefonos.iterator();
+            while (iterador.hasNext()) {
+                writer.write(lineaCsv(iterador.next(), campos));
+            }
+        }
+    }
+
+    public String encabezadoCsv(Set<String> campos) {
+        return String.join(",", campos) + "\n";
+    }
+
+    public String lineaCsv(Telefono telefono, Set<String> campos) {
+        StringBuilder linea = new StringBuilder(16 * campos.size());
+        boolean primero = true;
+        for (String campo : campos) {
+            if (!primero) {
+                linea.append(',');
+            }
+            agregarCampo(linea, valorCsv(telefono, campo));
+            primero = false;
+        }
+        return linea.append('\n').toString();
+    }
+
+    private static String valorCsv(Telefono telefono, String campo) {
+        Object valor = switch (campo) {
+            case "id" -> telefono.getId();
+            case "nombre" -> telefono.getNombre();
+            case "marca" -> telefono.getMarca();
+            case "modelo" -> telefono.getModelo();
+            case "nombreCorto" -> telefono.getNombreCorto();
+            case "fechaCreacion" -> telefono.getFechaCreacion();
+            case "imei" -> telefono.getImei();
+            case "numeroCelular" -> telefono.getNumeroCelular();
+            case "emailSoporte" -> telefono.getEmailSoporte();
+            case "tieneSistemaIOS" -> telefono.getTieneSistemaIOS();
+            case "version" -> telefono.getVersion();
+            case "fechaModificacion" -> telefono.getFechaModificacion();
+            default -> throw new IllegalArgumentException("Campo desconocido: " + campo);
+        };
+        return valor != null ? valor.toString() : null;
+    }
+
+    public String lineaCsv(Telefono telefono) {
+        StringBuilder linea = new StringBuilder(160);
+        agregarCampo(linea, telefono.getId()).append(',');
+        agregarCampo(linea, telefono.getNombre()).append(',');
+        agregarCampo(linea, telefono.getMarca()).append(',');
+        agregarCampo(linea, telefono.getModelo()).append(',');
+        agregarCampo(linea, telefono.getNombreCorto()).append(',');
+        agregarCampo(linea, telefono.getFechaCreacion() != null ? telefono.getFechaCreacion().toString() : null)
+                .append(',');
+        agregarCampo(linea, telefono.getImei()).append(',');
+        agregarCampo(linea, telefono.getNumeroCelular()).append(',');
+        agregarCampo(linea, telefono.getEmailSoporte()).append(',');
+        agregarCampo(linea, telefono.getTieneSistemaIOS() != null ? telefono.getTieneSistemaIOS().toString() : null);
+        return linea.append('\n').toString();
+    }
+
+    // Comillas dobles solo cuando el valor trae separador, comillas o saltos de linea (RFC 4180)
+    private static StringBuilder agregarCampo(StringBuilder linea, String valor) {
+        if (valor == null) {
+            return linea;
+        }
+        boolean requiereComillas = false;
+        for (int i = 0; i < valor.length() && !requiereComillas; i++) {
+            char c = valor.charAt(i);
+            requiereComillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!requiereComillas) {
+            return linea.append(valor);
+        }
+        linea.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                linea.append('"');
+            }
+            linea.append(c);
+        }
+        return linea.append('"');
+    }
+}
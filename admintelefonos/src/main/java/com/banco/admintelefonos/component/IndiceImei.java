@@ -0,0 +1,305 @@
+package com.banco.admintelefonos.component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+import com.banco.admintelefonos.model.Telefono;
+
+/**
+ * Indice en memoria de telefonos por IMEI con claves {@code long} primitivas. Usa dos
+ * tablas de direccionamiento abierto con sondeo lineal: IMEI -> telefono para las
+ * consultas e id -> IMEI para aplicar los borrados del change stream, que solo traen
+ * el {@code _id}. No crea objetos por entrada ni por consulta.
+ * <p>
+ * Lo escribe un solo hilo (el snapshot) y lo leen los hilos de las peticiones con una
+ * lectura optimista de {@link StampedLock}; solo si coincide con una escritura se
+ * repite la lectura con el candado de lectura.
+ * <p>
+ * Solo se indexan IMEIs de 15 digitos, que caben en un {@code long} sin ambiguedad
+ * por ceros a la izquierda; los demas quedan fuera y se consultan por el camino normal.
+ */
+public class IndiceImei {
+
+    public static final long SIN_CLAVE = -1L;
+
+    private static final int DIGITOS_IMEI = 15;
+    private static final int CAPACIDAD_MINIMA = 16;
+    // Factor de carga maximo 1/2: sondeos cortos a cambio de arreglos el doble de grandes
+    private static final int DESPLAZAMIENTO_CARGA = 1;
+    // Estimacion con referencias comprimidas: cabecera de objeto, campos y cadenas Latin-1
+    private static final int BYTES_OBJETO_TELEFONO = 56;
+    private static final int BYTES_CADENA = 40;
+    private static final int BYTES_FECHA = 48;
+    private static final int BYTES_LONG = 16;
+    private static final int BYTES_INSTANTE = 24;
+
+    private final StampedLock candado = new StampedLock();
+
+    private long[] claves;
+    private Telefono[] telefonos;
+    private String[] ids;
+    private long[] clavesPorId;
+    private int tamanio;
+    private long bytesDocumentos;
+
+    public IndiceImei() {
+        this(CAPACIDAD_MINIMA);
+    }
+
+    public IndiceImei(int capacidadEsperada) {
+        int capacidad = capacidadPara(capacidadEsperada);
+        this.claves = vacias(capacidad);
+        this.telefonos = new Telefono[capacidad];
+        this.ids = new String[capacidad];
+        this.clavesPorId = new long[capacidad];
+    }
+
+    /**
+     * Convierte el IMEI en su clave numerica o devuelve {@link #SIN_CLAVE} si no tiene
+     * exactamente 15 digitos.
+     */
+    public static long clave(String imei) {
+        if (imei == null || imei.length() != DIGITOS_IMEI) {
+            return SIN_CLAVE;
+        }
+        long clave = 0;
+        for (int i = 0; i < DIGITOS_IMEI; i++) {
+            int digito = imei.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return SIN_CLAVE;
+            }
+            clave = clave * 10 + digito;
+        }
+        return clave;
+    }
+
+    public Telefono obtener(long clave) {
+        long sello = candado.tryOptimisticRead();
+        Telefono telefono = buscar(clave);
+        if (candado.validate(sello)) {
+            return telefono;
+        }
+        sello = candado.readLock();
+        try {
+            return buscar(clave);
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Inserta o reemplaza el telefono; si su IMEI cambio se quita la clave anterior y si
+     * el nuevo IMEI no es indexable el telefono sale del indice.
+     */
+    public void guardar(Telefono telefono) {
+        long sello = candado.writeLock();
+        try {
+            quitarId(telefono.getId());
+            long clave = clave(telefono.getImei());
+            if (clave == SIN_CLAVE || telefono.getId() == null) {
+                return;
+            }
+            // Otro id con el mismo IMEI solo ocurre si se aplico tarde el borrado del anterior
+            int anterior = posicion(claves, clave);
+            if (claves[anterior] == clave) {
+                quitarId(telefonos[anterior].getId());
+            }
+            if ((tamanio + 1) << DESPLAZAMIENTO_CARGA > claves.length) {
+                redimensionar(claves.length << 1);
+            }
+            int i = posicion(claves, clave);
+            claves[i] = clave;
+            telefonos[i] = telefono;
+            int j = posicionId(ids, telefono.getId());
+            ids[j] = telefono.getId();
+            clavesPorId[j] = clave;
+            tamanio++;
+            bytesDocumentos += estimarBytes(telefono);
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    public void eliminar(String id) {
+        long sello = candado.writeLock();
+        try {
+            quitarId(id);
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    /**
+     * Memoria estimada del indice: los cuatro arreglos mas los telefonos que referencia.
+     */
+    public long bytesEstimados() {
+        long sello = candado.readLock();
+        try {
+            long arreglos = (long) claves.length * (Long.BYTES + Integer.BYTES) * 2;
+            return arreglos + bytesDocumentos;
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    private Telefono buscar(long clave) {
+        long[] clavesLeidas = claves;
+        Telefono[] telefonosLeidos = telefonos;
+        if (clave == SIN_CLAVE || clavesLeidas.length != telefonosLeidos.length) {
+            return null;
+        }
+        int mascara = clavesLeidas.length - 1;
+        int i = indice(clave, mascara);
+        // Acotado a la capacidad por si una escritura concurrente deja la tabla a medias
+        for (int sondeos = 0; sondeos <= mascara; sondeos++) {
+            long actual = clavesLeidas[i];
+            if (actual == clave) {
+                return telefonosLeidos[i];
+            }
+            if (actual == SIN_CLAVE) {
+                return null;
+            }
+            i = (i + 1) & mascara;
+        }
+        return null;
+    }
+
+    private void quitarId(String id) {
+        if (id == null) {
+            return;
+        }
+        int j = posicionId(ids, id);
+        if (ids[j] == null) {
+            return;
+        }
+        long clave = clavesPorId[j];
+        quitarPosicionId(j);
+        int i = posicion(claves, clave);
+        if (claves[i] == clave) {
+            bytesDocumentos -= estimarBytes(telefonos[i]);
+            quitarPosicion(i);
+            tamanio--;
+        }
+    }
+
+    // Borrado con desplazamiento hacia atras: no deja marcas que alarguen los sondeos
+    private void quitarPosicion(int hueco) {
+        int mascara = claves.length - 1;
+        int siguiente = (hueco + 1) & mascara;
+        while (claves[siguiente] != SIN_CLAVE) {
+            int ideal = indice(claves[siguiente], mascara);
+            if (((siguiente - ideal) & mascara) >= ((siguiente - hueco) & mascara)) {
+                claves[hueco] = claves[siguiente];
+                telefonos[hueco] = telefonos[siguiente];
+                hueco = siguiente;
+            }
+            siguiente = (siguiente + 1) & mascara;
+        }
+        claves[hueco] = SIN_CLAVE;
+        telefonos[hueco] = null;
+    }
+
+    private void quitarPosicionId(int hueco) {
+        int mascara = ids.length - 1;
+        int siguiente = (hueco + 1) & mascara;
+        while (ids[siguiente] != null) {
+            int ideal = indiceId(ids[siguiente], mascara);
+            if (((siguiente - ideal) & mascara) >= ((siguiente - hueco) & mascara)) {
+                ids[hueco] = ids[siguiente];
+                clavesPorId[hueco] = clavesPorId[siguiente];
+                hueco = siguiente;
+            }
+            siguiente = (siguiente + 1) & mascara;
+        }
+        ids[hueco] = null;
+        clavesPorId[hueco] = 0;
+    }
+
+    private void redimensionar(int capacidad) {
+        long[] nuevasClaves = vacias(capacidad);
+        Telefono[] nuevosTelefonos = new Telefono[capacidad];
+        String[] nuevosIds = new String[capacidad];
+        long[] nuevasClavesPorId = new long[capacidad];
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != SIN_CLAVE) {
+                int k = posicion(nuevasClaves, claves[i]);
+                nuevasClaves[k] = claves[i];
+                nuevosTelefonos[k] = telefonos[i];
+            }
+            if (ids[i] != null) {
+                int k = posicionId(nuevosIds, ids[i]);
+                nuevosIds[k] = ids[i];
+                nuevasClavesPorId[k] = clavesPorId[i];
+            }
+        }
+        claves = nuevasClaves;
+        telefonos = nuevosTelefonos;
+        ids = nuevosIds;
+        clavesPorId = nuevasClavesPorId;
+    }
+
+    // Posicion de la clave o del primer hueco donde iria
+    private static int posicion(long[] tabla, long clave) {
+        int mascara = tabla.length - 1;
+        int i = indice(clave, mascara);
+        while (tabla[i] != SIN_CLAVE && tabla[i] != clave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private static int posicionId(String[] tabla, String id) {
+        int mascara = tabla.length - 1;
+        int i = indiceId(id, mascara);
+        while (tabla[i] != null && !tabla[i].equals(id)) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private static int indice(long clave, int mascara) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private static int indiceId(String id, int mascara) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    private static int capacidadPara(int esperada) {
+        long necesaria = Math.max(CAPACIDAD_MINIMA, (long) esperada << DESPLAZAMIENTO_CARGA);
+        return (int) Math.min(1 << 30, Long.highestOneBit(necesaria - 1) << 1);
+    }
+
+    private static long[] vacias(int capacidad) {
+        long[] tabla = new long[capacidad];
+        Arrays.fill(tabla, SIN_CLAVE);
+        return tabla;
+    }
+
+    static long estimarBytes(Telefono telefono) {
+        long bytes = BYTES_OBJETO_TELEFONO;
+        for (String valor : new String[] { telefono.getId(), telefono.getNombre(), telefono.getMarca(),
+                telefono.getModelo(), telefono.getNombreCorto(), telefono.getImei(), telefono.getNumeroCelular(),
+                telefono.getEmailSoporte() }) {
+            if (valor != null) {
+                bytes += BYTES_CADENA + ((valor.length() + 7) & ~7);
+            }
+        }
+        if (telefono.getFechaCreacion() != null) {
+            bytes += BYTES_FECHA;
+        }
+        if (telefono.getVersion() != null) {
+            bytes += BYTES_LONG;
+        }
+        if (telefono.getFechaModificacion() != null) {
+            bytes += BYTES_INSTANTE;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,65 @@
+package com.banco.admintelefonos.component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Limita las llamadas simultaneas a Mongo y Redis. Con hilos virtuales ya no es el
+ * pool de Tomcat el que acota la concurrencia, asi que cada backend tiene su propio
+ * semaforo del tamaño de su pool de conexiones. Si no hay permiso dentro del tiempo de
+ * espera se responde 503 en lugar de encolar sin limite.
+ */
+@Component
+public class LimitadorConcurrencia {
+
+    private final Semaphore mongo;
+    private final Semaphore redis;
+    private final long esperaMaximaNanos;
+
+    public LimitadorConcurrencia(@Value("${telefono.concurrencia.mongo:100}") int maximoMongo,
+            @Value("${telefono.concurrencia.redis:256}") int maximoRedis,
+            @Value("${telefono.concurrencia.espera-maxima:2s}") Duration esperaMaxima) {
+        this.mongo = new Semaphore(maximoMongo, true);
+        this.redis = new Semaphore(maximoRedis, true);
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+    }
+
+    public <T> T mongo(Supplier<T> operacion) {
+        return ejecutar(mongo, "Mongo", operacion);
+    }
+
+    public <T> T redis(Supplier<T> operacion) {
+        return ejecutar(redis, "Redis", operacion);
+    }
+
+    public void redis(Runnable operacion) {
+        ejecutar(redis, "Redis", () -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    private <T> T ejecutar(Semaphore semaforo, String backend, Supplier<T> operacion) {
+        try {
+            if (!semaforo.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Limite de concurrencia alcanzado para " + backend);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Espera interrumpida para " + backend);
+        }
+        try {
+            return operacion.get();
+        } finally {
+            semaforo.release();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.banco.admintelefonos.component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+/**
+ * Metricas propias del servicio de telefonos. Los medidores se registran una sola vez
+ * aqui para no buscarlos en el registro en cada peticion. Las llamadas a
+ * {@code TelefonoRepository}, los comandos de Mongo y las peticiones HTTP ya se miden
+ * con las metricas automaticas de Spring Boot.
+ */
+@Component
+public class MetricasTelefono {
+
+    private final Counter cacheAciertoSnapshot;
+    private final Counter cacheAciertoLocal;
+    private final Counter cacheAciertoRedis;
+    private final Counter cacheAciertoNegativo;
+    private final Counter cacheRefrescoAnticipado;
+    private final Timer cacheEdad;
+    private final Counter consultasCompartidas;
+    private final Counter cachePrecargados;
+    private final Counter cacheFallo;
+    private final Counter cacheError;
+    private final Timer redisGet;
+    private final Timer redisSet;
+    private final Timer redisDelete;
+    private final Timer kafkaEnvioAck;
+    private final Timer kafkaEnvioError;
+    private final Counter outboxPublicados;
+
+    public MetricasTelefono(MeterRegistry meterRegistry) {
+        this.cacheAciertoSnapshot = contadorCache(meterRegistry, "acierto_snapshot");
+        this.cacheAciertoLocal = contadorCache(meterRegistry, "acierto_local");
+        this.cacheAciertoRedis = contadorCache(meterRegistry, "acierto_redis");
+        this.cacheAciertoNegativo = contadorCache(meterRegistry, "acierto_negativo");
+        this.cacheRefrescoAnticipado = contadorCache(meterRegistry, "refresco_anticipado");
+        this.cacheEdad = Timer.builder("telefono.cache.edad")
+                .description("Antiguedad de las entradas de Redis al leerlas")
+                .register(meterRegistry);
+        this.consultasCompartidas = Counter.builder("telefono.cache.consultas.compartidas")
+                .description("Consultas por IMEI que esperaron la consulta a Mongo ya en curso de otra peticion")
+                .register(meterRegistry);
+        this.cachePrecargados = Counter.builder("telefono.cache.precargados")
+                .description("Telefonos escritos en Redis por la precarga al arrancar")
+                .register(meterRegistry);
+        this.cacheFallo = contadorCache(meterRegistry, "fallo");
+        this.cacheError = contadorCache(meterRegistry, "error");
+        this.redisGet = timerRedis(meterRegistry, "get");
+        this.redisSet = timerRedis(meterRegistry, "set");
+        this.redisDelete = timerRedis(meterRegistry, "delete");
+        this.kafkaEnvioAck = timerKafka(meterRegistry, "ack");
+        this.kafkaEnvioError = timerKafka(meterRegistry, "error");
+        this.outboxPublicados = Counter.builder("telefono.outbox.publicados")
+                .description("Eventos del outbox de invalidacion publicados y confirmados por Kafka")
+                .register(meterRegistry);
+    }
+
+    public void aciertoSnapshot() {
+        cacheAciertoSnapshot.increment();
+    }
+
+    public void aciertoCacheLocal() {
+        cacheAciertoLocal.increment();
+    }
+
+    public void aciertoCacheRedis() {
+        cacheAciertoRedis.increment();
+    }
+
+    public void aciertoCacheNegativo() {
+        cacheAciertoNegativo.increment();
+    }
+
+    public void refrescoAnticipado() {
+        cacheRefrescoAnticipado.increment();
+    }
+
+    public void edadEntradaCache(long edadMillis) {
+        cacheEdad.record(Math.max(0, edadMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public void consultaCompartida() {
+        consultasCompartidas.increment();
+    }
+
+    public void precargaCache(int cantidad) {
+        cachePrecargados.increment(cantidad);
+    }
+
+    public void falloCache() {
+        cacheFallo.increment();
+    }
+
+    public void errorCache() {
+        cacheError.increment();
+    }
+
+    public <T> T redisGet(Supplier<T> operacion) {
+        return redisGet.record(operacion);
+    }
+
+    public void redisSet(Runnable operacion) {
+        redisSet.record(operacion);
+    }
+
+    public void redisDelete(Runnable operacion) {
+        redisDelete.record(operacion);
+    }
+
+    // Variantes reactivas: el tiempo corre desde la suscripcion hasta que la operacion termina
+
+    public <T> Mono<T> redisGet(Mono<T> operacion) {
+        return medir(redisGet, operacion);
+    }
+
+    public <T> Mono<T> redisSet(Mono<T> operacion) {
+        return medir(redisSet, operacion);
+    }
+
+    public <T> Mono<T> redisDelete(Mono<T> operacion) {
+        return medir(redisDelete, operacion);
+    }
+
+    private static <T> Mono<T> medir(Timer timer, Mono<T> operacion) {
+        return Mono.defer(() -> {
+            long inicio = System.nanoTime();
+            return operacion.doFinally(senal -> timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Mide el tiempo desde el envio hasta la confirmacion del broker, separando las
+     * confirmaciones de los errores.
+     */
+    public void envioKafka(CompletableFuture<?> envio) {
+        long inicio = System.nanoTime();
+        envio.whenComplete((resultado, error) -> {
+            long duracion = System.nanoTime() - inicio;
+            (error == null ? kafkaEnvioAck : kafkaEnvioError).record(duracion, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    public void invalidacionesPublicadas(int cantidad) {
+        outboxPublicados.increment(cantidad);
+    }
+
+    private static Counter contadorCache(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("telefono.cache.imei")
+                .description("Consultas por IMEI segun el nivel de cache que respondio")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private static Timer timerRedis(MeterRegistry meterRegistry, String operacion) {
+        return Timer.builder("telefono.redis")
+                .description("Latencia de las operaciones de Redis sobre la cache de IMEI")
+                .tag("operacion", operacion)
+                .register(meterRegistry);
+    }
+
+    private static Timer timerKafka(MeterRegistry meterRegistry, String resultado) {
+        return Timer.builder("telefono.kafka.envio")
+                .description("Tiempo hasta la confirmacion de los mensajes de invalidacion")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,67 @@
+package com.banco.admintelefonos.component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+
+/**
+ * Vigencia de las entradas {@code telefono:imei:} en Redis.
+ * <ul>
+ * <li>El TTL lleva una variacion aleatoria de {@code ±jitter} para que las llaves escritas
+ * juntas no expiren juntas.</li>
+ * <li>Antes de expirar, cada lectura puede decidir refrescar la entrada con la regla XFetch:
+ * {@code ahora - costo * beta * ln(aleatorio) >= creado + ttl}. La probabilidad crece al
+ * acercarse la expiracion y con el costo de la consulta, por lo que una llave caliente la
+ * refresca una sola peticion antes de que todas fallen a la vez.</li>
+ * </ul>
+ */
+@Component
+public class PoliticaCacheTelefono {
+
+    private final long ttlMillis;
+    private final double jitter;
+    private final double beta;
+
+    public PoliticaCacheTelefono(@Value("${telefono.cache.ttl:1h}") Duration ttl,
+            @Value("${telefono.cache.ttl-jitter:0.1}") double jitter,
+            @Value("${telefono.cache.refresco-anticipado.beta:1.0}") double beta) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("telefono.cache.ttl debe ser positivo");
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("telefono.cache.ttl-jitter debe estar en [0, 1)");
+        }
+        if (beta < 0) {
+            throw new IllegalArgumentException("telefono.cache.refresco-anticipado.beta no puede ser negativo");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.jitter = jitter;
+        this.beta = beta;
+    }
+
+    public Duration ttlConJitter() {
+        double factor = 1 + jitter * (2 * aleatorio() - 1);
+        return Duration.ofMillis(Math.max(1, Math.round(ttlMillis * factor)));
+    }
+
+    public boolean debeRefrescar(EntradaCacheTelefono entrada, long ahoraMillis) {
+        if (!entrada.tieneMetadatos() || beta == 0) {
+            return false;
+        }
+        double costoMillis = entrada.getCostoMicros() / 1000.0;
+        // ln de (0, 1] es <= 0, asi que el termino adelanta el "ahora" en proporcion al costo
+        double adelanto = -costoMillis * beta * Math.log(1 - aleatorio());
+        return ahoraMillis + adelanto >= entrada.getCreadoEnMillis() + entrada.getTtlMillis();
+    }
+
+    /**
+     * Valor uniforme en [0, 1).
+     */
+    protected double aleatorio() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+}
@@ -0,0 +1,154 @@
+package com.banco.admintelefonos.component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.model.Telefono;
+import com.banco.admintelefonos.service.TelefonoService;
+
+/**
+ * Precarga en Redis los telefonos creados mas recientemente para que, tras un despliegue
+ * o un vaciado de Redis, las primeras consultas por IMEI no caigan todas en Mongo.
+ * Lee en lotes con un solo cursor ordenado por fechaCreacion y escribe cada lote con
+ * SETs en pipeline. Corre antes de que la aplicacion se marque lista, por lo que el
+ * readiness probe no admite trafico hasta terminar, y se detiene al agotar el tiempo
+ * maximo. Solo existe si {@code telefono.cache.precarga.habilitada=true}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "telefono.cache.precarga", name = "habilitada", havingValue = "true")
+public class PrecargaCacheTelefono implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecargaCacheTelefono.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final CodecCacheTelefono codecCacheTelefono;
+    private final PoliticaCacheTelefono politicaCacheTelefono;
+    private final MetricasTelefono metricasTelefono;
+    private final int cantidad;
+    private final int tamanioLote;
+    private final Duration tiempoMaximo;
+
+    public PrecargaCacheTelefono(MongoTemplate mongoTemplate, RedisTemplate<String, byte[]> redisTemplate,
+            CodecCacheTelefono codecCacheTelefono, PoliticaCacheTelefono politicaCacheTelefono,
+            MetricasTelefono metricasTelefono,
+            @Value("${telefono.cache.precarga.cantidad:10000}") int cantidad,
+            @Value("${telefono.cache.precarga.tamanio-lote:500}") int tamanioLote,
+            @Value("${telefono.cache.precarga.tiempo-maximo:20s}") Duration tiempoMaximo) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.codecCacheTelefono = codecCacheTelefono;
+        this.politicaCacheTelefono = politicaCacheTelefono;
+        this.metricasTelefono = metricasTelefono;
+        this.cantidad = cantidad;
+        this.tamanioLote = tamanioLote;
+        this.tiempoMaximo = tiempoMaximo;
+    }
+
+    @Override
+    public void run(String... args) {
+        long inicio = System.nanoTime();
+        long limite = inicio + tiempoMaximo.toNanos();
+        int precargados = 0;
+        try {
+            precargados = precargar(limite);
+        } catch (Exception e) {
+            // La precarga es una optimizacion: si falla la aplicacion arranca igual
+            metricasTelefono.errorCache();
+            log.warn("No fue posible completar la precarga de la cache de IMEI", e);
+        }
+        log.info("Precarga de cache de IMEI: {} telefonos en {} ms", precargados,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private int precargar(long limite) {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "fechaCreacion"))
+                .limit(cantidad)
+                .cursorBatchSize(tamanioLote);
+
+        int precargados = 0;
+        try (Stream<Telefono> telefonos = mongoTemplate.stream(query, Telefono.class)) {
+            Iterator<Telefono> cursor = telefonos.iterator();
+            List<Telefono> lote = new ArrayList<>(tamanioLote);
+            long inicioLote = System.nanoTime();
+            while (System.nanoTime() < limite && cursor.hasNext()) {
+                Telefono telefono = cursor.next();
+                if (telefono.getImei() != null) {
+                    lote.add(telefono);
+                }
+                if (lote.size() == tamanioLote) {
+                    precargados += escribirLote(lote, inicioLote);
+                    inicioLote = System.nanoTime();
+                }
+            }
+            // Lo leido antes de terminar el cursor o de alcanzar el limite tambien se escribe
+            precargados += escribirLote(lote, inicioLote);
+        }
+        if (System.nanoTime() >= limite) {
+            log.warn("Precarga de cache de IMEI detenida al alcanzar el tiempo maximo de {}", tiempoMaximo);
+        }
+        metricasTelefono.precargaCache(precargados);
+        return precargados;
+    }
+
+    /**
+     * Un pipeline por lote: un solo viaje a Redis por cada {@code tamanioLote} telefonos.
+     * Se usa SET NX para no pisar entradas mas recientes que escribio otra instancia.
+     * Vacia el lote y devuelve cuantos telefonos escribio.
+     */
+    private int escribirLote(List<Telefono> lote, long inicioLote) {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        long costoMicros = (System.nanoTime() - inicioLote) / 1000 / lote.size();
+        long ahora = System.currentTimeMillis();
+        List<byte[]> llaves = new ArrayList<>(lote.size());
+        List<byte[]> valores = new ArrayList<>(lote.size());
+        List<Duration> ttls = new ArrayList<>(lote.size());
+        for (Telefono telefono : lote) {
+            Duration ttl = politicaCacheTelefono.ttlConJitter();
+            llaves.add((TelefonoService.TELEFONO_CACHE_PREFIX + telefono.getImei()).getBytes(StandardCharsets.UTF_8));
+            valores.add(codecCacheTelefono.codificarEntrada(
+                    new EntradaCacheTelefono(telefono, ahora, ttl.toMillis(), costoMicros)));
+            ttls.add(ttl);
+        }
+        metricasTelefono.redisSet(() -> redisTemplate.executePipelined((RedisCallback<Object>) conexion -> {
+            escribir(conexion, llaves, valores, ttls);
+            return null;
+        }));
+        int escritos = lote.size();
+        lote.clear();
+        return escritos;
+    }
+
+    private static void escribir(RedisConnection conexion, List<byte[]> llaves, List<byte[]> valores,
+            List<Duration> ttls) {
+        for (int i = 0; i < llaves.size(); i++) {
+            conexion.stringCommands().set(llaves.get(i), valores.get(i),
+                    Expiration.from(ttls.get(i)), SetOption.SET_IF_ABSENT);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.banco.admintelefonos.component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.model.EventoInvalidacion;
+import com.banco.admintelefonos.service.TelefonoService;
+
+/**
+ * Publica en el topico de invalidacion los eventos del outbox. Cada ejecucion reclama
+ * un lote con un bloqueo temporal, borra las llaves de Redis, envia los IMEIs agrupados
+ * y elimina los eventos cuando Kafka confirma. Si la instancia cae o el envio falla,
+ * el bloqueo vence y otra ejecucion vuelve a publicar el lote (al menos una vez).
+ */
+@Component
+@ConditionalOnProperty(prefix = "telefono.outbox.relay", name = "habilitado", havingValue = "true",
+        matchIfMissing = true)
+public class RelayInvalidaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayInvalidaciones.class);
+
+    // Limite de IMEIs por mensaje para acotar el tamaño de cada registro de Kafka
+    static final int MAXIMO_IMEIS_MENSAJE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final MetricasTelefono metricasTelefono;
+    private final int tamanioLote;
+    private final Duration bloqueo;
+
+    public RelayInvalidaciones(MongoTemplate mongoTemplate, RedisTemplate<String, byte[]> redisTemplate,
+            KafkaTemplate<String, String> kafkaTemplate, MetricasTelefono metricasTelefono,
+            @Value("${telefono.outbox.tamanio-lote:200}") int tamanioLote,
+            @Value("${telefono.outbox.bloqueo:30s}") Duration bloqueo) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.metricasTelefono = metricasTelefono;
+        this.tamanioLote = tamanioLote;
+        this.bloqueo = bloqueo;
+    }
+
+    @Scheduled(fixedDelayString = "${telefono.outbox.intervalo:200ms}")
+    public void publicarPendientes() {
+        try {
+            // Mientras haya lotes completos se sigue sin esperar al siguiente intervalo
+            while (publicarLote() == tamanioLote) {
+                // siguiente lote
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible publicar las invalidaciones pendientes", e);
+        }
+    }
+
+    /**
+     * Reclama y publica un lote; devuelve cuantos eventos libres encontro.
+     */
+    private int publicarLote() throws Exception {
+        Instant ahora = Instant.now();
+        Query libres = new Query(libre(ahora))
+                .with(Sort.by(Sort.Direction.ASC, "creadoEn"))
+                .limit(tamanioLote);
+        libres.fields().include("id");
+        List<String> candidatos = new ArrayList<>();
+        for (EventoInvalidacion evento : mongoTemplate.find(libres, EventoInvalidacion.class)) {
+            candidatos.add(evento.getId());
+        }
+        if (candidatos.isEmpty()) {
+            return 0;
+        }
+
+        // Solo se quedan los que nadie reclamo entre la consulta y la actualizacion
+        String reclamo = UUID.randomUUID().toString();
+        Query reclamables = new Query(new Criteria().andOperator(Criteria.where("id").in(candidatos), libre(ahora)));
+        mongoTemplate.updateMulti(reclamables,
+                new Update().set("reclamo", reclamo).set("bloqueadoHasta", ahora.plus(bloqueo)),
+                EventoInvalidacion.class);
+        List<EventoInvalidacion> lote = mongoTemplate.find(new Query(Criteria.where("reclamo").is(reclamo)),
+                EventoInvalidacion.class);
+        if (!lote.isEmpty()) {
+            publicar(lote);
+        }
+        return candidatos.size();
+    }
+
+    private void publicar(List<EventoInvalidacion> lote) throws Exception {
+        Set<String> imeis = new LinkedHashSet<>();
+        List<String> ids = new ArrayList<>(lote.size());
+        for (EventoInvalidacion evento : lote) {
+            imeis.addAll(evento.getImeis());
+            ids.add(evento.getId());
+        }
+
+        // La escritura ya borro las llaves; se repite por si cayo antes de hacerlo
+        List<String> cacheKeys = new ArrayList<>(imeis.size());
+        for (String imei : imeis) {
+            cacheKeys.add(TelefonoService.TELEFONO_CACHE_PREFIX + imei);
+        }
+        try {
+            metricasTelefono.redisDelete(() -> redisTemplate.delete(cacheKeys));
+        } catch (Exception e) {
+            metricasTelefono.errorCache();
+            log.warn("No fue posible borrar de Redis {} IMEIs del outbox", cacheKeys.size(), e);
+        }
+
+        List<String> pendientes = new ArrayList<>(imeis);
+        List<CompletableFuture<?>> envios = new ArrayList<>();
+        for (int desde = 0; desde < pendientes.size(); desde += MAXIMO_IMEIS_MENSAJE) {
+            List<String> grupo = pendientes.subList(desde, Math.min(desde + MAXIMO_IMEIS_MENSAJE, pendientes.size()));
+            CompletableFuture<?> envio = kafkaTemplate.send(TelefonoService.TELEFONO_CACHE_INVALIDATION_TOPIC,
+                    String.join(TelefonoService.SEPARADOR_IMEIS, grupo));
+            metricasTelefono.envioKafka(envio);
+            envios.add(envio);
+        }
+        // Si Kafka no confirma dentro del bloqueo, el lote queda para el siguiente reclamo
+        CompletableFuture.allOf(envios.toArray(new CompletableFuture[0])).get(bloqueo.toMillis(),
+                TimeUnit.MILLISECONDS);
+
+        mongoTemplate.remove(new Query(Criteria.where("id").in(ids)), EventoInvalidacion.class);
+        metricasTelefono.invalidacionesPublicadas(lote.size());
+    }
+
+    private static Criteria libre(Instant ahora) {
+        return new Criteria().orOperator(Criteria.where("bloqueadoHasta").is(null),
+                Criteria.where("bloqueadoHasta").lt(ahora));
+    }
+}
@@ -0,0 +1,238 @@
+package com.banco.admintelefonos.component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.model.Telefono;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Copia en memoria de toda la coleccion {@code telefonos} indexada por IMEI, para que las
+ * consultas por IMEI no salgan del proceso. Se carga una vez con un cursor de Mongo y
+ * despues se mantiene al dia con un change stream (requiere replica set). El stream se
+ * abre desde un instante anterior a la carga, de modo que los cambios ocurridos durante
+ * ella se vuelven a aplicar; aplicar un evento dos veces deja el mismo resultado.
+ * <p>
+ * Si el stream falla o la coleccion se elimina, el snapshot deja de responder (las
+ * consultas vuelven a la cache y a Mongo) hasta que el reintento lo carga de nuevo. El
+ * reintento solo lanza la recarga en un hilo propio, para no ocupar el planificador que
+ * comparte con el relay del outbox, y el snapshot vuelve a responder cuando la suscripcion
+ * al stream esta activa, no al registrarla.
+ * Solo existe si {@code telefono.snapshot.habilitado=true}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "telefono.snapshot", name = "habilitado", havingValue = "true")
+public class SnapshotImei implements CommandLineRunner, MessageListener<ChangeStreamDocument<Document>, Telefono> {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotImei.class);
+
+    // Cubre la diferencia de reloj con el cluster: esos cambios se aplican dos veces
+    private static final Duration MARGEN_REPETICION = Duration.ofSeconds(5);
+    private static final Duration ESPERA_ACTIVACION = Duration.ofSeconds(10);
+
+    private final MongoTemplate mongoTemplate;
+    private final MessageListenerContainer contenedorCambios;
+    private final int tamanioLote;
+    private final Timer retraso;
+    private final SimpleAsyncTaskExecutor cargador = new SimpleAsyncTaskExecutor("snapshot-imei-carga-");
+    private final AtomicBoolean cargando = new AtomicBoolean();
+
+    private volatile IndiceImei indice = new IndiceImei();
+    private volatile boolean disponible;
+    private volatile long ultimoRetrasoMillis;
+    private Subscription suscripcion;
+
+    public SnapshotImei(MongoTemplate mongoTemplate, MessageListenerContainer contenedorCambios,
+            MeterRegistry meterRegistry, @Value("${telefono.snapshot.tamanio-lote:1000}") int tamanioLote) {
+        this.mongoTemplate = mongoTemplate;
+        this.contenedorCambios = contenedorCambios;
+        this.tamanioLote = tamanioLote;
+        this.retraso = Timer.builder("telefono.snapshot.retraso")
+                .description("Tiempo entre un cambio en Mongo y su aplicacion en el snapshot de IMEI")
+                .register(meterRegistry);
+        Gauge.builder("telefono.snapshot.retraso.ultimo", this, snapshot -> snapshot.ultimoRetrasoMillis)
+                .description("Retraso en milisegundos del ultimo cambio aplicado al snapshot")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("telefono.snapshot.dispositivos", this, snapshot -> snapshot.indice.tamanio())
+                .description("Telefonos cargados en el snapshot de IMEI")
+                .register(meterRegistry);
+        Gauge.builder("telefono.snapshot.bytes.dispositivo", this, SnapshotImei::bytesPorDispositivo)
+                .description("Memoria estimada del snapshot por telefono")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("telefono.snapshot.disponible", this, snapshot -> snapshot.disponible ? 1 : 0)
+                .description("1 si el snapshot esta cargado y responde consultas")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(String... args) {
+        iniciar();
+    }
+
+    @Scheduled(initialDelayString = "${telefono.snapshot.reintento:30s}",
+            fixedDelayString = "${telefono.snapshot.reintento:30s}")
+    public void reintentar() {
+        if (disponible || !cargando.compareAndSet(false, true)) {
+            return;
+        }
+        cargador.execute(() -> {
+            try {
+                iniciar();
+            } finally {
+                cargando.set(false);
+            }
+        });
+    }
+
+    /**
+     * Clave del IMEI si el snapshot puede responder por el, o {@link IndiceImei#SIN_CLAVE}
+     * si la consulta debe seguir el camino normal.
+     */
+    public long clave(String imei) {
+        return disponible ? IndiceImei.clave(imei) : IndiceImei.SIN_CLAVE;
+    }
+
+    public Telefono obtener(long clave) {
+        return indice.obtener(clave);
+    }
+
+    public boolean estaDisponible() {
+        return disponible;
+    }
+
+    synchronized void iniciar() {
+        disponible = false;
+        if (suscripcion != null) {
+            contenedorCambios.remove(suscripcion);
+            suscripcion = null;
+        }
+        try {
+            long inicio = System.nanoTime();
+            Instant desde = Instant.now().minus(MARGEN_REPETICION);
+            indice = cargar();
+            ChangeStreamRequest<Telefono> solicitud = ChangeStreamRequest.builder(this)
+                    .collection(mongoTemplate.getCollectionName(Telefono.class))
+                    .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                    .resumeAt(desde)
+                    .build();
+            suscripcion = contenedorCambios.register(solicitud, Telefono.class, this::errorCambios);
+            // register es asincrono: sin el stream abierto los cambios no llegarian al indice
+            if (!suscripcion.await(ESPERA_ACTIVACION)) {
+                log.warn("El change stream del snapshot de IMEI no se activo en {}; se reintentara", ESPERA_ACTIVACION);
+                contenedorCambios.remove(suscripcion);
+                suscripcion = null;
+                return;
+            }
+            disponible = true;
+            log.info("Snapshot de IMEI cargado: {} telefonos en {} ms", indice.tamanio(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("No fue posible cargar el snapshot de IMEI; se reintentara", e);
+        }
+    }
+
+    private IndiceImei cargar() {
+        IndiceImei nuevo = new IndiceImei((int) Math.min(Integer.MAX_VALUE / 2,
+                mongoTemplate.estimatedCount(Telefono.class)));
+        Query query = new Query().cursorBatchSize(tamanioLote);
+        try (Stream<Telefono> telefonos = mongoTemplate.stream(query, Telefono.class)) {
+            telefonos.forEach(nuevo::guardar);
+        }
+        return nuevo;
+    }
+
+    @Override
+    public void onMessage(Message<ChangeStreamDocument<Document>, Telefono> mensaje) {
+        ChangeStreamDocument<Document> cambio = mensaje.getRaw();
+        if (cambio == null || cambio.getOperationType() == null) {
+            return;
+        }
+        switch (cambio.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Telefono telefono = mensaje.getBody();
+                // Sin documento completo: se borro antes de que el stream lo buscara
+                if (telefono != null) {
+                    indice.guardar(telefono);
+                } else {
+                    indice.eliminar(id(cambio));
+                }
+            }
+            case DELETE -> indice.eliminar(id(cambio));
+            default -> {
+                // drop, rename o invalidate: el snapshot ya no refleja la coleccion
+                disponible = false;
+                log.warn("Snapshot de IMEI desactivado por el evento {}", cambio.getOperationTypeString());
+                return;
+            }
+        }
+        registrarRetraso(cambio);
+    }
+
+    private void errorCambios(Throwable error) {
+        disponible = false;
+        log.warn("Fallo el change stream del snapshot de IMEI; se reintentara la carga", error);
+    }
+
+    private void registrarRetraso(ChangeStreamDocument<Document> cambio) {
+        long momento;
+        if (cambio.getWallTime() != null) {
+            momento = cambio.getWallTime().getValue();
+        } else if (cambio.getClusterTime() != null) {
+            momento = cambio.getClusterTime().getTime() * 1000L;
+        } else {
+            return;
+        }
+        long retrasoMillis = Math.max(0, System.currentTimeMillis() - momento);
+        ultimoRetrasoMillis = retrasoMillis;
+        retraso.record(Duration.ofMillis(retrasoMillis));
+    }
+
+    private static String id(ChangeStreamDocument<Document> cambio) {
+        BsonValue id = cambio.getDocumentKey() != null ? cambio.getDocumentKey().get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : null;
+    }
+
+    private double bytesPorDispositivo() {
+        IndiceImei actual = indice;
+        int tamanio = actual.tamanio();
+        return tamanio == 0 ? 0 : (double) actual.bytesEstimados() / tamanio;
+    }
+}
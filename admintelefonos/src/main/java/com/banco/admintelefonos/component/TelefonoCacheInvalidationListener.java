@@ -0,0 +1,26 @@
+package com.banco.admintelefonos.component;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.service.TelefonoService;
+
+@Component
+public class TelefonoCacheInvalidationListener {
+
+    private final TelefonoCacheLocal telefonoCacheLocal;
+
+    public TelefonoCacheInvalidationListener(TelefonoCacheLocal telefonoCacheLocal) {
+        this.telefonoCacheLocal = telefonoCacheLocal;
+    }
+
+    // Cada instancia usa su propio group-id para recibir todas las invalidaciones.
+    // Un mensaje puede traer varios IMEIs separados por coma cuando viene de un lote.
+    @KafkaListener(topics = TelefonoService.TELEFONO_CACHE_INVALIDATION_TOPIC,
+            groupId = "${telefono.cache.local.group-id}")
+    public void onInvalidacion(String imeis) {
+        for (String imei : imeis.split(TelefonoService.SEPARADOR_IMEIS)) {
+            telefonoCacheLocal.invalidar(imei);
+        }
+    }
+}
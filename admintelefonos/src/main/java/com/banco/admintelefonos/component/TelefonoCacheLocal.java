@@ -0,0 +1,58 @@
+package com.banco.admintelefonos.component;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.model.Telefono;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cache en memoria (L1) de telefonos por IMEI que se consulta antes de Redis (L2).
+ * Tiene tamaño maximo y expiracion para acotar el uso de heap; la coherencia entre
+ * instancias se mantiene con los mensajes del topico de invalidacion. Los IMEIs que no
+ * existen se recuerdan aparte con una expiracion corta.
+ */
+@Component
+public class TelefonoCacheLocal {
+
+    private final Cache<String, Telefono> cache;
+    private final Cache<String, Boolean> ausentes;
+
+    public TelefonoCacheLocal(@Value("${telefono.cache.local.max-size:10000}") long maxSize,
+            @Value("${telefono.cache.local.expire-after-write:5m}") Duration expireAfterWrite,
+            @Value("${telefono.cache.negativo.ttl:30s}") Duration ttlAusente) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.ausentes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlAusente)
+                .build();
+    }
+
+    public Telefono obtener(String imei) {
+        return cache.getIfPresent(imei);
+    }
+
+    public void guardar(String imei, Telefono telefono) {
+        ausentes.invalidate(imei);
+        cache.put(imei, telefono);
+    }
+
+    public boolean estaAusente(String imei) {
+        return ausentes.getIfPresent(imei) != null;
+    }
+
+    public void registrarAusente(String imei) {
+        ausentes.put(imei, Boolean.TRUE);
+    }
+
+    public void invalidar(String imei) {
+        cache.invalidate(imei);
+        ausentes.invalidate(imei);
+    }
+}
@@ -0,0 +1,169 @@
+package com.banco.admintelefonos.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.banco.admintelefonos.model.Telefono;
+
+/**
+ * Reglas de validacion de un {@link Telefono}, compartidas por el alta individual, la
+ * actualizacion y los lotes. Los campos se recorren caracter por caracter con las mismas
+ * reglas que las expresiones regulares originales, sin compilar patrones ni crear copias
+ * con {@code trim()}, por lo que un telefono valido no genera objetos.
+ */
+@Component
+public class ValidadorTelefono {
+
+    /**
+     * Modo rapido: regresa el primer error en el orden de los campos o {@code null} si el
+     * telefono es valido.
+     */
+    public ErrorCode validar(Telefono telefono, boolean esCreacion) {
+        ErrorCode error;
+        if ((error = validarTexto(telefono.getNombre(), ErrorCode.NOMBRE_REQUERIDO,
+                ErrorCode.NOMBRE_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        if ((error = validarTexto(telefono.getMarca(), ErrorCode.MARCA_REQUERIDO,
+                ErrorCode.MARCA_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        if ((error = validarTexto(telefono.getModelo(), ErrorCode.MODELO_REQUERIDO,
+                ErrorCode.MODELO_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        if ((error = validarTexto(telefono.getNombreCorto(), ErrorCode.NOMBRE_CORTO_REQUERIDO,
+                ErrorCode.NOMBRE_CORTO_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        if (telefono.getFechaCreacion() == null) {
+            return ErrorCode.FECHA_CREACION_REQUERIDO;
+        }
+        if (esCreacion && esVacio(telefono.getImei())) {
+            return ErrorCode.IMEI_REQUERIDO;
+        }
+        return validarEmail(telefono.getEmailSoporte());
+    }
+
+    /**
+     * Modo completo: regresa todos los errores encontrados, uno por campo, en el mismo
+     * orden que el modo rapido. La lista esta vacia si el telefono es valido.
+     */
+    public List<ErrorCode> validarTodos(Telefono telefono, boolean esCreacion) {
+        List<ErrorCode> errores = new ArrayList<>();
+        agregar(errores, validarTexto(telefono.getNombre(), ErrorCode.NOMBRE_REQUERIDO,
+                ErrorCode.NOMBRE_CARACTERES_ESPECIALES));
+        agregar(errores, validarTexto(telefono.getMarca(), ErrorCode.MARCA_REQUERIDO,
+                ErrorCode.MARCA_CARACTERES_ESPECIALES));
+        agregar(errores, validarTexto(telefono.getModelo(), ErrorCode.MODELO_REQUERIDO,
+                ErrorCode.MODELO_CARACTERES_ESPECIALES));
+        agregar(errores, validarTexto(telefono.getNombreCorto(), ErrorCode.NOMBRE_CORTO_REQUERIDO,
+                ErrorCode.NOMBRE_CORTO_CARACTERES_ESPECIALES));
+        if (telefono.getFechaCreacion() == null) {
+            errores.add(ErrorCode.FECHA_CREACION_REQUERIDO);
+        }
+        if (esCreacion && esVacio(telefono.getImei())) {
+            errores.add(ErrorCode.IMEI_REQUERIDO);
+        }
+        agregar(errores, validarEmail(telefono.getEmailSoporte()));
+        return errores;
+    }
+
+    /**
+     * Validacion de una actualizacion parcial: solo se revisan los campos que vienen en
+     * la solicitud, con las mismas reglas; uno presente pero vacio cuenta como requerido.
+     */
+    public ErrorCode validarParcial(Telefono telefono) {
+        ErrorCode error;
+        if (telefono.getNombre() != null && (error = validarTexto(telefono.getNombre(), ErrorCode.NOMBRE_REQUERIDO,
+                ErrorCode.NOMBRE_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        if (telefono.getMarca() != null && (error = validarTexto(telefono.getMarca(), ErrorCode.MARCA_REQUERIDO,
+                ErrorCode.MARCA_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        if (telefono.getModelo() != null && (error = validarTexto(telefono.getModelo(), ErrorCode.MODELO_REQUERIDO,
+                ErrorCode.MODELO_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        if (telefono.getNombreCorto() != null && (error = validarTexto(telefono.getNombreCorto(),
+                ErrorCode.NOMBRE_CORTO_REQUERIDO, ErrorCode.NOMBRE_CORTO_CARACTERES_ESPECIALES)) != null) {
+            return error;
+        }
+        return validarEmail(telefono.getEmailSoporte());
+    }
+
+    private static void agregar(List<ErrorCode> errores, ErrorCode error) {
+        if (error != null) {
+            errores.add(error);
+        }
+    }
+
+    private static ErrorCode validarTexto(String valor, ErrorCode requerido, ErrorCode caracteresEspeciales) {
+        if (esVacio(valor)) {
+            return requerido;
+        }
+        return esAlfanumerico(valor) ? null : caracteresEspeciales;
+    }
+
+    // El email es opcional; si viene debe cumplir ^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$
+    private static ErrorCode validarEmail(String email) {
+        if (esVacio(email)) {
+            return null;
+        }
+        int arroba = email.indexOf('@');
+        if (arroba <= 0 || arroba == email.length() - 1) {
+            return ErrorCode.EMAIL_FORMATO_INVALIDO;
+        }
+        for (int i = 0; i < arroba; i++) {
+            char c = email.charAt(i);
+            if (!esLetraODigito(c) && c != '+' && c != '_' && c != '.' && c != '-') {
+                return ErrorCode.EMAIL_FORMATO_INVALIDO;
+            }
+        }
+        for (int i = arroba + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (!esLetraODigito(c) && c != '.' && c != '-') {
+                return ErrorCode.EMAIL_FORMATO_INVALIDO;
+            }
+        }
+        return null;
+    }
+
+    // Equivalente a valor == null || valor.trim().isEmpty()
+    private static boolean esVacio(String valor) {
+        if (valor == null) {
+            return true;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            if (valor.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Equivalente a Pattern.matches("[a-zA-Z0-9\\s]+", valor) para un valor no vacio
+    private static boolean esAlfanumerico(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (!esLetraODigito(c) && !esEspacio(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean esLetraODigito(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    // Clase \s de java.util.regex: [ \t\n\x0B\f\r]
+    private static boolean esEspacio(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+}
@@ -1,11 +1,14 @@
 package com.banco.admintelefonos.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -15,15 +18,39 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 
+/**
+ * Rechaza con 401 las peticiones cuya cabecera DATA no coincide con alguno de los
+ * hashes de {@link SecretosDataHeader}. El cuerpo del rechazo se escribe desde un
+ * arreglo fijo para no pasar por el Writer y su codificacion en cada peticion.
+ * <p>
+ * Los endpoints de {@code /actuator} quedan fuera: las sondas de liveness/readiness y el
+ * scrape de Prometheus no envian la cabecera.
+ */
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DataHeaderFilter extends OncePerRequestFilter {
 
     private static final String HEADER_NAME = "DATA";
+    static final String RUTA_ACTUATOR = "/actuator";
+    static final byte[] CUERPO_NO_AUTORIZADO = "Unauthorized: Invalid DATA header".getBytes(StandardCharsets.UTF_8);
 
-    private final String expectedHash;
+    private final SecretosDataHeader secretos;
+    private final Counter rechazos;
 
-    public DataHeaderFilter(@Value("${data.header.secret}") String expectedSecret) {
-        this.expectedHash = calculateSHA256(expectedSecret);
+    public DataHeaderFilter(SecretosDataHeader secretos, MeterRegistry meterRegistry) {
+        this.secretos = secretos;
+        this.rechazos = Counter.builder("telefono.data.header.rechazos")
+                .description("Peticiones rechazadas por una cabecera DATA ausente o invalida")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@SuppressWarnings("null") HttpServletRequest request) {
+        return esRutaActuator(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    static boolean esRutaActuator(String ruta) {
+        return ruta.equals(RUTA_ACTUATOR) || ruta.startsWith(RUTA_ACTUATOR + "/");
     }
 
     @Override
@@ -33,16 +60,19 @@ public class DataHeaderFilter extends OncePerRequestFilter {
 
         String dataHeader = request.getHeader(HEADER_NAME);
 
-        if (dataHeader == null || !dataHeader.equals(expectedHash)) {
+        if (!secretos.esValido(dataHeader)) {
+            rechazos.increment();
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
-            response.getWriter().write("Unauthorized: Invalid DATA header");
+            response.setContentLength(CUERPO_NO_AUTORIZADO.length);
+            ServletOutputStream salida = response.getOutputStream();
+            salida.write(CUERPO_NO_AUTORIZADO);
             return;
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private static String calculateSHA256(String input) {
+    static String calculateSHA256(String input) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
@@ -0,0 +1,55 @@
+package com.banco.admintelefonos.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Version WebFlux de {@link DataHeaderFilter}: misma cabecera, mismos secretos
+ * ({@link SecretosDataHeader}), misma exclusion de {@code /actuator} y misma respuesta 401
+ * para el modo reactivo.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class DataHeaderWebFilter implements WebFilter {
+
+    private static final String HEADER_NAME = "DATA";
+
+    private final SecretosDataHeader secretos;
+    private final Counter rechazos;
+
+    public DataHeaderWebFilter(SecretosDataHeader secretos, MeterRegistry meterRegistry) {
+        this.secretos = secretos;
+        this.rechazos = Counter.builder("telefono.data.header.rechazos")
+                .description("Peticiones rechazadas por una cabecera DATA ausente o invalida")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (DataHeaderFilter.esRutaActuator(exchange.getRequest().getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+
+        String dataHeader = exchange.getRequest().getHeaders().getFirst(HEADER_NAME);
+
+        if (!secretos.esValido(dataHeader)) {
+            rechazos.increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            DataBuffer cuerpo = response.bufferFactory().wrap(DataHeaderFilter.CUERPO_NO_AUTORIZADO);
+            return response.writeWith(Mono.just(cuerpo));
+        }
+
+        return chain.filter(exchange);
+    }
+}
@@ -0,0 +1,115 @@
+package com.banco.admintelefonos.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes aceptados en la cabecera DATA, compartidos por {@link DataHeaderFilter} y
+ * {@link DataHeaderWebFilter}. Cada secreto se guarda ya convertido al Base64 de su
+ * SHA-256, de modo que validar una peticion solo recorre arreglos sin crear objetos.
+ * Se aceptan varios secretos a la vez para rotar sin cortar clientes; si se configura
+ * data.header.archivo-secretos (un secreto por linea) el archivo reemplaza a la
+ * propiedad y se vuelve a leer cuando cambia, sin reiniciar la aplicacion.
+ */
+@Component
+public class SecretosDataHeader {
+
+    private static final Logger log = LoggerFactory.getLogger(SecretosDataHeader.class);
+
+    private final Path archivo;
+
+    // Se reemplaza completo al recargar; las peticiones en curso siguen con la copia que leyeron
+    private volatile byte[][] hashes;
+    private FileTime ultimaModificacion;
+
+    public SecretosDataHeader(@Value("${data.header.secret}") List<String> secretos,
+            @Value("${data.header.archivo-secretos:}") String archivo) {
+        this.archivo = archivo == null || archivo.isBlank() ? null : Path.of(archivo);
+        actualizar(secretos);
+        recargar();
+    }
+
+    /**
+     * Compara la cabecera con todos los hashes vigentes sin salir antes al encontrar
+     * una diferencia, para que el tiempo no revele cuantos caracteres coinciden.
+     */
+    public boolean esValido(String cabecera) {
+        if (cabecera == null) {
+            return false;
+        }
+        byte[][] vigentes = hashes;
+        int coincidencias = 0;
+        for (byte[] esperado : vigentes) {
+            coincidencias |= coincide(esperado, cabecera);
+        }
+        return coincidencias != 0;
+    }
+
+    /**
+     * Reemplaza los secretos aceptados; una lista vacia se ignora para no rechazar todo
+     * el trafico por un archivo truncado.
+     */
+    public void actualizar(Collection<String> secretos) {
+        List<byte[]> nuevos = new ArrayList<>();
+        for (String secreto : secretos) {
+            if (secreto != null && !secreto.isBlank()) {
+                nuevos.add(DataHeaderFilter.calculateSHA256(secreto.strip()).getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        if (nuevos.isEmpty()) {
+            if (hashes == null) {
+                throw new IllegalArgumentException("Se requiere al menos un secreto para la cabecera DATA");
+            }
+            log.warn("Se ignoro una actualizacion sin secretos para la cabecera DATA");
+            return;
+        }
+        hashes = nuevos.toArray(new byte[0][]);
+    }
+
+    @Scheduled(fixedDelayString = "${data.header.recarga:30s}")
+    public synchronized void recargar() {
+        if (archivo == null) {
+            return;
+        }
+        try {
+            FileTime modificacion = Files.getLastModifiedTime(archivo);
+            if (modificacion.equals(ultimaModificacion)) {
+                return;
+            }
+            List<String> secretos = new ArrayList<>();
+            for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+                if (!linea.isBlank() && !linea.startsWith("#")) {
+                    secretos.add(linea);
+                }
+            }
+            actualizar(secretos);
+            ultimaModificacion = modificacion;
+            log.info("Secretos de la cabecera DATA recargados desde {}: {}", archivo, hashes.length);
+        } catch (IOException e) {
+            log.warn("No fue posible leer los secretos de la cabecera DATA desde {}", archivo, e);
+        }
+    }
+
+    private static int coincide(byte[] esperado, String cabecera) {
+        if (cabecera.length() != esperado.length) {
+            return 0;
+        }
+        int diferencia = 0;
+        for (int i = 0; i < esperado.length; i++) {
+            diferencia |= esperado[i] ^ cabecera.charAt(i);
+        }
+        return diferencia == 0 ? 1 : 0;
+    }
+}
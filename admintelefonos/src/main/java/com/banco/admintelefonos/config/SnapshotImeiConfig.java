@@ -0,0 +1,23 @@
+package com.banco.admintelefonos.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+
+/**
+ * Contenedor del change stream que mantiene al dia {@code SnapshotImei}. Spring lo inicia
+ * y lo detiene con el contexto; la suscripcion la registra el snapshot al terminar la carga.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "telefono.snapshot", name = "habilitado", havingValue = "true")
+public class SnapshotImeiConfig {
+
+    @Bean
+    public MessageListenerContainer contenedorCambiosTelefono(MongoTemplate mongoTemplate) {
+        return new DefaultMessageListenerContainer(mongoTemplate, new SimpleAsyncTaskExecutor("snapshot-imei-"));
+    }
+}
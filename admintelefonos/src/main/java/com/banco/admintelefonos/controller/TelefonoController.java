@@ -1,178 +1,442 @@
 package com.banco.admintelefonos.controller;
 
-import org.springframework.context.MessageSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.banco.admintelefonos.component.CamposTelefono;
+import com.banco.admintelefonos.component.CatalogoErrores;
+import com.banco.admintelefonos.component.ExportadorTelefonos;
+import com.banco.admintelefonos.component.ValidadorTelefono;
+import com.banco.admintelefonos.dto.CriteriosBusqueda;
 import com.banco.admintelefonos.dto.ErrorResponse;
+import com.banco.admintelefonos.dto.EstadisticasTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.dto.PaginaCursor;
+import com.banco.admintelefonos.dto.ResultadoBulk;
+import com.banco.admintelefonos.dto.ResultadoConsultaImeis;
 import com.banco.admintelefonos.enums.ErrorCode;
 import com.banco.admintelefonos.model.Telefono;
 import com.banco.admintelefonos.service.TelefonoService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/telefonos")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class TelefonoController {
 
+    private static final int TAMANIO_MAXIMO_CURSOR = 1000;
+    private static final int MAXIMO_ITEMS_BULK = 5000;
+    private static final int TAMANIO_LOTE_BULK = 500;
+    private static final int MAXIMO_IMEIS_CONSULTA = 5000;
+    private static final int TAMANIO_MAXIMO_BUSQUEDA = 100;
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+    private static final MediaType MEDIA_TYPE_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final TelefonoService telefonoService;
-    private final MessageSource messageSource;
+    private final CatalogoErrores catalogoErrores;
+    private final ObjectMapper objectMapper;
+    private final ValidadorTelefono validadorTelefono;
+    private final ExportadorTelefonos exportadorTelefonos;
+    private final CamposTelefono camposTelefono;
 
-    public TelefonoController(TelefonoService telefonoService, MessageSource messageSource) {
+    public TelefonoController(TelefonoService telefonoService, CatalogoErrores catalogoErrores,
+            ObjectMapper objectMapper, ValidadorTelefono validadorTelefono, ExportadorTelefonos exportadorTelefonos,
+            CamposTelefono camposTelefono) {
         this.telefonoService = telefonoService;
-        this.messageSource = messageSource;
+        this.catalogoErrores = catalogoErrores;
+        this.objectMapper = objectMapper;
+        this.validadorTelefono = validadorTelefono;
+        this.exportadorTelefonos = exportadorTelefonos;
+        this.camposTelefono = camposTelefono;
     }
 
+    /**
+     * Con {@code fields} (por ejemplo {@code ?fields=imei,nombreCorto}) Mongo solo devuelve
+     * esos campos y la respuesta solo los serializa; el id se incluye siempre.
+     */
     @GetMapping
-    public ResponseEntity<Page<Telefono>> obtenerTelefonos(Pageable pageable) {
-        return ResponseEntity.ok(telefonoService.obtenerTelefonos(pageable));
+    public ResponseEntity<?> obtenerTelefonos(Pageable pageable, @RequestParam(required = false) String fields,
+            Locale locale) throws JsonProcessingException {
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return crearErrorResponse(ErrorCode.CAMPO_INVALIDO, locale);
+        }
+        return respuestaConCampos(telefonoService.obtenerTelefonos(pageable, campos), campos);
+    }
+
+    @GetMapping("/_scroll")
+    public ResponseEntity<?> obtenerTelefonosPorCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size, @RequestParam(required = false) String fields,
+            Locale locale) throws JsonProcessingException {
+        int tamanio = Math.max(1, Math.min(size, TAMANIO_MAXIMO_CURSOR));
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return crearErrorResponse(ErrorCode.CAMPO_INVALIDO, locale);
+        }
+        PaginaCursor<Telefono> pagina;
+        try {
+            pagina = telefonoService.obtenerTelefonosPorCursor(cursor, tamanio, campos);
+        } catch (IllegalArgumentException e) {
+            return crearErrorResponse(ErrorCode.CURSOR_INVALIDO, locale);
+        }
+        return respuestaConCampos(pagina, campos);
+    }
+
+    /**
+     * Exporta los telefonos del filtro leyendo un cursor de Mongo y escribiendo cada
+     * documento en la respuesta. La escritura bloquea mientras el cliente no consume,
+     * por lo que el cursor solo avanza al ritmo de la descarga.
+     */
+    @GetMapping("/_export")
+    public ResponseEntity<?> exportarTelefonos(
+            @RequestParam(defaultValue = ExportadorTelefonos.FORMATO_NDJSON) String formato,
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String fields,
+            Locale locale) {
+        boolean csv = ExportadorTelefonos.FORMATO_CSV.equalsIgnoreCase(formato);
+        if (!csv && !ExportadorTelefonos.FORMATO_NDJSON.equalsIgnoreCase(formato)) {
+            return crearErrorResponse(ErrorCode.FORMATO_EXPORTACION_INVALIDO, locale);
+        }
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return crearErrorResponse(ErrorCode.CAMPO_INVALIDO, locale);
+        }
+
+        StreamingResponseBody cuerpo = salida -> {
+            try (Stream<Telefono> telefonos = telefonoService.exportarTelefonos(marca, desde, hasta, campos)) {
+                if (csv && campos != null) {
+                    exportadorTelefonos.escribirCsv(telefonos, salida, campos);
+                } else if (csv) {
+                    exportadorTelefonos.escribirCsv(telefonos, salida);
+                } else if (campos != null) {
+                    exportadorTelefonos.escribirNdjson(telefonos, salida, camposTelefono.writer(campos));
+                } else {
+                    exportadorTelefonos.escribirNdjson(telefonos, salida);
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(csv ? MEDIA_TYPE_CSV : MediaType.parseMediaType(MEDIA_TYPE_NDJSON))
+                .body(cuerpo);
+    }
+
+    /**
+     * Busqueda por texto ({@code q}), prefijos de nombre, marca, modelo y nombreCorto y
+     * rango de fechaCreacion, con conteos opcionales por faceta
+     * ({@code ?facets=marca,modelo,tieneSistemaIOS}). Exige al menos un criterio para que
+     * ninguna busqueda recorra la coleccion completa.
+     */
+    @GetMapping("/_search")
+    public ResponseEntity<?> buscarTelefonos(@RequestParam(required = false) String q,
+            @RequestParam(required = false) String nombre,
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String modelo,
+            @RequestParam(required = false) String nombreCorto,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String facets,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Locale locale) {
+        Set<String> facetas;
+        try {
+            facetas = facets != null ? CriteriosBusqueda.parsearFacetas(facets) : null;
+        } catch (IllegalArgumentException e) {
+            return crearErrorResponse(ErrorCode.FACETA_INVALIDA, locale);
+        }
+        CriteriosBusqueda criterios = new CriteriosBusqueda(q, nombre, marca, modelo, nombreCorto, desde, hasta,
+                facetas);
+        if (criterios.sinCriterios()) {
+            return crearErrorResponse(ErrorCode.BUSQUEDA_SIN_CRITERIOS, locale);
+        }
+        int tamanio = Math.max(1, Math.min(size, TAMANIO_MAXIMO_BUSQUEDA));
+        return ResponseEntity.ok(telefonoService.buscarTelefonos(criterios, Math.max(0, page), tamanio));
+    }
+
+    /**
+     * Estadisticas del inventario desde el documento de contadores: una lectura por id,
+     * sin importar el tamanio de la coleccion.
+     */
+    @GetMapping("/_stats")
+    public ResponseEntity<EstadisticasTelefono> obtenerEstadisticas() {
+        return ResponseEntity.ok(telefonoService.obtenerEstadisticas());
     }
 
+    /**
+     * Las peticiones condicionales se responden con 304 a partir de la version y la fecha
+     * de modificacion, que se consultan sin traer el documento. Si no coinciden se lee el
+     * telefono completo y se devuelve con sus validadores.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Telefono> obtenerTelefonoPorId(@PathVariable String id) {
+    public ResponseEntity<Telefono> obtenerTelefonoPorId(@PathVariable String id,
+            @RequestHeader HttpHeaders cabeceras) {
+        if (MetadatosTelefono.esCondicional(cabeceras)) {
+            MetadatosTelefono metadatos = telefonoService.obtenerMetadatosPorId(id);
+            if (metadatos != null && metadatos.noModificado(cabeceras)) {
+                return noModificado(metadatos);
+            }
+        }
         Optional<Telefono> telefono = telefonoService.obtenerTelefonoPorId(id);
-        return telefono.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return telefono.map(TelefonoController::conValidadores).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Como {@link #obtenerTelefonoPorId}; los validadores salen del snapshot, de la cache
+     * local o de la entrada en Redis sin decodificarla.
+     */
     @GetMapping("/imei/{imei}")
-    public ResponseEntity<Telefono> obtenerTelefonoPorImei(@PathVariable String imei) {
+    public ResponseEntity<Telefono> obtenerTelefonoPorImei(@PathVariable String imei,
+            @RequestHeader HttpHeaders cabeceras) {
+        if (MetadatosTelefono.esCondicional(cabeceras)) {
+            MetadatosTelefono metadatos = telefonoService.obtenerMetadatosPorImei(imei);
+            if (metadatos != null && metadatos.noModificado(cabeceras)) {
+                return noModificado(metadatos);
+            }
+        }
         Optional<Telefono> telefono = telefonoService.obtenerTelefonoPorImei(imei);
-        return telefono.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return telefono.map(TelefonoController::conValidadores).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<Telefono> noModificado(MetadatosTelefono metadatos) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(metadatos.cabeceras()).build();
+    }
+
+    // Con ETag en la respuesta Spring tambien contesta 304 si la condicion se cumple con el documento leido
+    private static ResponseEntity<Telefono> conValidadores(Telefono telefono) {
+        return ResponseEntity.ok().headers(MetadatosTelefono.de(telefono).cabeceras()).body(telefono);
+    }
+
+    /**
+     * Consulta varios IMEIs en una sola peticion: un MGET en Redis y una consulta $in en
+     * Mongo para los que falten, en lugar de una peticion por IMEI. Como la cache guarda
+     * documentos completos, {@code fields} aqui solo reduce la serializacion.
+     */
+    @PostMapping("/imei/_batch")
+    public ResponseEntity<?> obtenerTelefonosPorImeis(@RequestBody List<String> imeis,
+            @RequestParam(required = false) String fields, Locale locale) throws JsonProcessingException {
+        if (imeis.size() > MAXIMO_IMEIS_CONSULTA || imeis.stream().anyMatch(imei -> imei == null || imei.isBlank())) {
+            return crearErrorResponse(ErrorCode.LOTE_IMEIS_INVALIDO, locale);
+        }
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return crearErrorResponse(ErrorCode.CAMPO_INVALIDO, locale);
+        }
+        ResultadoConsultaImeis resultado = telefonoService.obtenerTelefonosPorImei(imeis);
+        return respuestaConCampos(resultado, campos);
+    }
+
+    // Sin seleccion responde el convertidor de Spring; con ella se escribe con el filtro de campos
+    private ResponseEntity<?> respuestaConCampos(Object cuerpo, Set<String> campos) throws JsonProcessingException {
+        if (campos == null) {
+            return ResponseEntity.ok(cuerpo);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(camposTelefono.escribir(cuerpo, campos));
     }
 
     @PostMapping
-    public ResponseEntity<?> crearTelefono(@RequestBody Telefono telefono, Locale locale) {
-        ResponseEntity<?> validacion = validarTelefono(telefono, locale, true);
+    public ResponseEntity<?> crearTelefono(@RequestBody Telefono telefono,
+            @RequestParam(defaultValue = "false") boolean todosLosErrores, Locale locale) {
+        ResponseEntity<?> validacion = validarTelefono(telefono, todosLosErrores, locale, true);
         if (validacion != null) {
             return validacion;
         }
 
-        Telefono nuevoTelefono = telefonoService.guardarTelefono(telefono);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoTelefono);
+        // El indice unico de IMEI resuelve los duplicados en la misma escritura
+        try {
+            Telefono nuevoTelefono = telefonoService.guardarTelefono(telefono);
+            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoTelefono);
+        } catch (DuplicateKeyException e) {
+            return crearErrorResponse(TelefonoService.errorLlaveDuplicada(e.getMessage()), locale);
+        }
+    }
+
+    @PostMapping(value = "/_bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> crearTelefonosBulk(@RequestBody List<Telefono> telefonos,
+            @RequestParam(defaultValue = "false") boolean upsert, Locale locale) {
+        // Un elemento null (en el arreglo o una linea "null" del NDJSON) no es un telefono que validar
+        if (telefonos.size() > MAXIMO_ITEMS_BULK || telefonos.contains(null)) {
+            return crearErrorResponse(ErrorCode.BULK_INVALIDO, locale);
+        }
+
+        List<ResultadoBulk> resultados = new ArrayList<>(telefonos.size());
+        for (int desde = 0; desde < telefonos.size(); desde += TAMANIO_LOTE_BULK) {
+            List<Telefono> lote = telefonos.subList(desde, Math.min(desde + TAMANIO_LOTE_BULK, telefonos.size()));
+            procesarLoteBulk(lote, desde, upsert, locale, resultados);
+        }
+        return ResponseEntity.ok(resultados);
+    }
+
+    @PostMapping(value = "/_bulk", consumes = MEDIA_TYPE_NDJSON)
+    public ResponseEntity<?> crearTelefonosBulkNdjson(InputStream cuerpo,
+            @RequestParam(defaultValue = "false") boolean upsert, Locale locale) {
+        // Se lee todo el flujo antes de escribir para no dejar lotes aplicados si una linea es invalida
+        List<Telefono> telefonos = new ArrayList<>();
+        try (MappingIterator<Telefono> lineas = objectMapper.readerFor(Telefono.class).readValues(cuerpo)) {
+            while (lineas.hasNextValue()) {
+                if (telefonos.size() == MAXIMO_ITEMS_BULK) {
+                    return crearErrorResponse(ErrorCode.BULK_INVALIDO, locale);
+                }
+                telefonos.add(lineas.nextValue());
+            }
+        } catch (IOException | RuntimeException e) {
+            return crearErrorResponse(ErrorCode.BULK_INVALIDO, locale);
+        }
+        return crearTelefonosBulk(telefonos, upsert, locale);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> actualizarTelefono(@PathVariable String id, @RequestBody Telefono telefono,
+            @RequestParam(defaultValue = "false") boolean todosLosErrores, @RequestHeader HttpHeaders cabeceras,
             Locale locale) {
-        ResponseEntity<?> validacion = validarTelefono(telefono, locale, false);
+        ResponseEntity<?> validacion = validarTelefono(telefono, todosLosErrores, locale, false);
         if (validacion != null) {
             return validacion;
         }
+        return aplicarActualizacion(id, telefono, cabeceras, locale);
+    }
 
-        Optional<Telefono> telefonoExistenteOptional = telefonoService.obtenerTelefonoPorId(id);
-        if (telefonoExistenteOptional.isPresent()) {
-            Telefono telefonoExistente = telefonoExistenteOptional.get();
-
-            // Actualizar los campos que se proporcionan en el objeto telefono
-            if (telefono.getNombre() != null) {
-                telefonoExistente.setNombre(telefono.getNombre());
-            }
-            if (telefono.getMarca() != null) {
-                telefonoExistente.setMarca(telefono.getMarca());
-            }
-            if (telefono.getModelo() != null) {
-                telefonoExistente.setModelo(telefono.getModelo());
-            }
-            if (telefono.getNombreCorto() != null) {
-                telefonoExistente.setNombreCorto(telefono.getNombreCorto());
-            }
-            if (telefono.getFechaCreacion() != null) {
-                telefonoExistente.setFechaCreacion(telefono.getFechaCreacion());
-            }
-            if (telefono.getNumeroCelular() != null) {
-                telefonoExistente.setNumeroCelular(telefono.getNumeroCelular());
-            }
-            if (telefono.getEmailSoporte() != null) {
-                telefonoExistente.setEmailSoporte(telefono.getEmailSoporte());
-            }
-            if (telefono.getTieneSistemaIOS() != null) {
-                telefonoExistente.setTieneSistemaIOS(telefono.getTieneSistemaIOS());
-            }
-
-            Telefono telefonoActualizado = telefonoService.guardarTelefono(telefonoExistente);
-            return ResponseEntity.ok(telefonoActualizado);
-        } else {
-            return crearErrorResponse(ErrorCode.TELEFONO_NO_ENCONTRADO, "telefono.no.encontrado", locale);
+    /**
+     * Actualiza solo los campos presentes en el cuerpo. Con If-Match (el ETag del GET) la
+     * escritura solo se aplica sobre esa version y responde 412 si otro la cambio; la
+     * {@code version} del cuerpo se ignora.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> actualizarTelefonoParcial(@PathVariable String id, @RequestBody Telefono cambios,
+            @RequestHeader HttpHeaders cabeceras, Locale locale) {
+        ErrorCode error = validadorTelefono.validarParcial(cambios);
+        if (error != null) {
+            return crearErrorResponse(error, locale);
         }
+        return aplicarActualizacion(id, cambios, cabeceras, locale);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarTelefono(@PathVariable String id) {
-        Optional<Telefono> telefono = telefonoService.obtenerTelefonoPorId(id);
-        if (telefono.isPresent()) {
-            telefonoService.eliminarTelefono(id);
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        Optional<Telefono> eliminado = telefonoService.eliminarTelefono(id);
+        return eliminado.isPresent() ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
-    private ResponseEntity<?> validarTelefono(Telefono telefono, Locale locale, boolean esCreacion) {
-        String regex = "[a-zA-Z0-9\\s]+";
-        String emailRegex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$"; // Expresión regular para email
-
-        if (telefono.getNombre() == null || telefono.getNombre().trim().isEmpty()) {
-            return crearErrorResponse(ErrorCode.NOMBRE_REQUERIDO, "nombre.requerido", locale);
-        }
-        if (!Pattern.matches(regex, telefono.getNombre())) {
-            return crearErrorResponse(ErrorCode.NOMBRE_CARACTERES_ESPECIALES, "nombre.caracteres.especiales", locale);
-        }
-
-        if (telefono.getMarca() == null || telefono.getMarca().trim().isEmpty()) {
-            return crearErrorResponse(ErrorCode.MARCA_REQUERIDO, "marca.requerido", locale);
-        }
-        if (!Pattern.matches(regex, telefono.getMarca())) {
-            return crearErrorResponse(ErrorCode.MARCA_CARACTERES_ESPECIALES, "marca.caracteres.especiales", locale);
+    /**
+     * Elimina una lista de ids en una sola escritura y responde cuales existian.
+     */
+    @PostMapping("/_bulk-delete")
+    public ResponseEntity<?> eliminarTelefonos(@RequestBody List<String> ids, Locale locale) {
+        if (ids.isEmpty() || ids.size() > MAXIMO_ITEMS_BULK || ids.stream().anyMatch(id -> id == null || id.isBlank())) {
+            return crearErrorResponse(ErrorCode.BULK_INVALIDO, locale);
         }
+        return ResponseEntity.ok(telefonoService.eliminarTelefonos(ids));
+    }
 
-        if (telefono.getModelo() == null || telefono.getModelo().trim().isEmpty()) {
-            return crearErrorResponse(ErrorCode.MODELO_REQUERIDO, "modelo.requerido", locale);
-        }
-        if (!Pattern.matches(regex, telefono.getModelo())) {
-            return crearErrorResponse(ErrorCode.MODELO_CARACTERES_ESPECIALES, "modelo.caracteres.especiales", locale);
+    private void procesarLoteBulk(List<Telefono> lote, int desplazamiento, boolean upsert, Locale locale,
+            List<ResultadoBulk> resultados) {
+        List<Telefono> validos = new ArrayList<>(lote.size());
+        List<Integer> indicesValidos = new ArrayList<>(lote.size());
+        ResultadoBulk[] resultadosLote = new ResultadoBulk[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            Telefono telefono = lote.get(i);
+            // La existencia del IMEI se revisa en el servicio con una sola consulta por lote
+            ErrorCode error = validadorTelefono.validar(telefono, true);
+            if (error != null) {
+                resultadosLote[i] = ResultadoBulk.error(desplazamiento + i, telefono.getImei(), error);
+            } else {
+                validos.add(telefono);
+                indicesValidos.add(i);
+            }
         }
 
-        if (telefono.getNombreCorto() == null || telefono.getNombreCorto().trim().isEmpty()) {
-            return crearErrorResponse(ErrorCode.NOMBRE_CORTO_REQUERIDO, "nombreCorto.requerido", locale);
-        }
-        if (!Pattern.matches(regex, telefono.getNombreCorto())) {
-            return crearErrorResponse(ErrorCode.NOMBRE_CORTO_CARACTERES_ESPECIALES, "nombreCorto.caracteres.especiales",
-                    locale);
+        if (!validos.isEmpty()) {
+            List<ResultadoBulk> guardados = telefonoService.guardarTelefonosBulk(validos, upsert);
+            for (int j = 0; j < guardados.size(); j++) {
+                ResultadoBulk resultado = guardados.get(j);
+                int i = indicesValidos.get(j);
+                resultado.setIndice(desplazamiento + i);
+                resultadosLote[i] = resultado;
+            }
         }
 
-        if (telefono.getFechaCreacion() == null) {
-            return crearErrorResponse(ErrorCode.FECHA_CREACION_REQUERIDO, "fechaCreacion.requerido", locale);
+        for (ResultadoBulk resultado : resultadosLote) {
+            if (resultado.getError() != null) {
+                resultado.setMensaje(catalogoErrores.mensaje(resultado.getError(), locale));
+            }
+            resultados.add(resultado);
         }
+    }
 
-        if (esCreacion) {
-            if (telefono.getImei() != null && !telefono.getImei().trim().isEmpty()) {
-                Optional<Telefono> telefonoExistenteImei = telefonoService.obtenerTelefonoPorImei(telefono.getImei());
-                if (telefonoExistenteImei.isPresent()) {
-                    return crearErrorResponse(ErrorCode.IMEI_YA_EXISTE, "imei.ya.existe", locale);
-                }
-            } else {
-                return crearErrorResponse(ErrorCode.IMEI_REQUERIDO, "imei.requerido", locale);
+    // Un solo findAndModify: sin lectura previa ni reescritura del documento completo
+    private ResponseEntity<?> aplicarActualizacion(String id, Telefono cambios, HttpHeaders cabeceras,
+            Locale locale) {
+        try {
+            Optional<Telefono> actualizado = telefonoService.actualizarTelefono(id, cambios,
+                    MetadatosTelefono.versionExigida(id, cabeceras));
+            if (actualizado.isPresent()) {
+                return ResponseEntity.ok(actualizado.get());
             }
+            return crearErrorResponse(ErrorCode.TELEFONO_NO_ENCONTRADO, locale);
+        } catch (OptimisticLockingFailureException e) {
+            return crearErrorResponse(ErrorCode.VERSION_CONFLICTO, locale, HttpStatus.PRECONDITION_FAILED);
         }
+    }
 
-        if (telefono.getEmailSoporte() != null && !telefono.getEmailSoporte().trim().isEmpty()) {
-            if (!Pattern.matches(emailRegex, telefono.getEmailSoporte())) {
-                return crearErrorResponse(ErrorCode.EMAIL_FORMATO_INVALIDO, "email.formato.invalido", locale);
+    private ResponseEntity<?> validarTelefono(Telefono telefono, boolean todosLosErrores, Locale locale,
+            boolean esCreacion) {
+        if (todosLosErrores) {
+            List<ErrorCode> errores = validadorTelefono.validarTodos(telefono, esCreacion);
+            if (errores.isEmpty()) {
+                return null;
+            }
+            List<ErrorResponse> respuestas = new ArrayList<>(errores.size());
+            for (ErrorCode error : errores) {
+                respuestas.add(catalogoErrores.respuesta(error, locale));
             }
+            return ResponseEntity.badRequest().body(respuestas);
         }
 
-        return null;
+        ErrorCode error = validadorTelefono.validar(telefono, esCreacion);
+        return error != null ? crearErrorResponse(error, locale) : null;
+    }
+
+    private ResponseEntity<ErrorResponse> crearErrorResponse(ErrorCode codigoError, Locale locale) {
+        return crearErrorResponse(codigoError, locale, HttpStatus.BAD_REQUEST);
     }
 
-    private ResponseEntity<ErrorResponse> crearErrorResponse(ErrorCode codigoError, String mensajeKey, Locale locale) {
-        String mensaje = messageSource.getMessage(mensajeKey, null, locale);
-        ErrorResponse errorResponse = new ErrorResponse(codigoError.getCode(), mensaje);
-        return ResponseEntity.badRequest().body(errorResponse);
+    private ResponseEntity<ErrorResponse> crearErrorResponse(ErrorCode codigoError, Locale locale,
+            HttpStatus estado) {
+        return ResponseEntity.status(estado).body(catalogoErrores.respuesta(codigoError, locale));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,445 @@
+package com.banco.admintelefonos.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.banco.admintelefonos.component.CamposTelefono;
+import com.banco.admintelefonos.component.CatalogoErrores;
+import com.banco.admintelefonos.component.ExportadorTelefonos;
+import com.banco.admintelefonos.component.ValidadorTelefono;
+import com.banco.admintelefonos.dto.CriteriosBusqueda;
+import com.banco.admintelefonos.dto.ErrorResponse;
+import com.banco.admintelefonos.dto.EstadisticasTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.dto.ResultadoBulk;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.banco.admintelefonos.model.Telefono;
+import com.banco.admintelefonos.service.TelefonoReactivoService;
+import com.banco.admintelefonos.service.TelefonoService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Endpoints de {@code /telefonos} para el modo WebFlux
+ * ({@code spring.main.web-application-type=reactive}). Responde igual que
+ * {@link TelefonoController}, pero sin bloquear el hilo del event loop.
+ */
+@RestController
+@RequestMapping("/telefonos")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class TelefonoReactivoController {
+
+    private static final MediaType MEDIA_TYPE_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final int TAMANIO_MAXIMO_BUSQUEDA = 100;
+    private static final int TAMANIO_MAXIMO_CURSOR = 1000;
+    private static final int MAXIMO_ITEMS_BULK = 5000;
+    private static final int TAMANIO_LOTE_BULK = 500;
+    private static final int MAXIMO_IMEIS_CONSULTA = 5000;
+
+    private final TelefonoReactivoService telefonoService;
+    private final CatalogoErrores catalogoErrores;
+    private final ValidadorTelefono validadorTelefono;
+    private final ExportadorTelefonos exportadorTelefonos;
+    private final ObjectMapper objectMapper;
+    private final CamposTelefono camposTelefono;
+
+    public TelefonoReactivoController(TelefonoReactivoService telefonoService, CatalogoErrores catalogoErrores,
+            ValidadorTelefono validadorTelefono, ExportadorTelefonos exportadorTelefonos, ObjectMapper objectMapper,
+            CamposTelefono camposTelefono) {
+        this.telefonoService = telefonoService;
+        this.catalogoErrores = catalogoErrores;
+        this.validadorTelefono = validadorTelefono;
+        this.exportadorTelefonos = exportadorTelefonos;
+        this.objectMapper = objectMapper;
+        this.camposTelefono = camposTelefono;
+    }
+
+    /**
+     * Con {@code fields} la proyeccion se aplica en Mongo y solo se serializan esos campos.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<?>> obtenerTelefonos(Pageable pageable, @RequestParam(required = false) String fields,
+            Locale locale) {
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(crearErrorResponse(ErrorCode.CAMPO_INVALIDO, locale));
+        }
+        return respuestaConCampos(telefonoService.obtenerTelefonos(pageable, campos), campos);
+    }
+
+    @GetMapping("/_scroll")
+    public Mono<ResponseEntity<?>> obtenerTelefonosPorCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size, @RequestParam(required = false) String fields,
+            Locale locale) {
+        int tamanio = Math.max(1, Math.min(size, TAMANIO_MAXIMO_CURSOR));
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(crearErrorResponse(ErrorCode.CAMPO_INVALIDO, locale));
+        }
+        return respuestaConCampos(telefonoService.obtenerTelefonosPorCursor(cursor, tamanio, campos), campos)
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(crearErrorResponse(ErrorCode.CURSOR_INVALIDO, locale)));
+    }
+
+    // Sin seleccion responde el codec de Spring; con ella se escribe con el filtro de campos
+    private Mono<ResponseEntity<?>> respuestaConCampos(Mono<?> cuerpo, Set<String> campos) {
+        if (campos == null) {
+            return cuerpo.map(ResponseEntity::ok);
+        }
+        ObjectWriter writer = camposTelefono.writer(campos);
+        return cuerpo.handle((valor, sink) -> {
+            try {
+                sink.next(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                        .body(writer.writeValueAsBytes(valor)));
+            } catch (JsonProcessingException e) {
+                sink.error(e);
+            }
+        });
+    }
+
+    /**
+     * Exporta los telefonos del filtro como un flujo de lineas; Netty solo pide al cursor
+     * de Mongo los documentos que el cliente alcanza a consumir.
+     */
+    @GetMapping("/_export")
+    public ResponseEntity<Flux<String>> exportarTelefonos(
+            @RequestParam(defaultValue = ExportadorTelefonos.FORMATO_NDJSON) String formato,
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String fields,
+            Locale locale) {
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(Flux.just(catalogoErrores.json(ErrorCode.CAMPO_INVALIDO, locale)));
+        }
+        Flux<Telefono> telefonos = telefonoService.exportarTelefonos(marca, desde, hasta, campos);
+        if (ExportadorTelefonos.FORMATO_CSV.equalsIgnoreCase(formato)) {
+            Flux<String> lineas = campos != null
+                    ? telefonos.map(telefono -> exportadorTelefonos.lineaCsv(telefono, campos))
+                            .startWith(exportadorTelefonos.encabezadoCsv(campos))
+                    : telefonos.map(exportadorTelefonos::lineaCsv).startWith(ExportadorTelefonos.ENCABEZADO_CSV);
+            return ResponseEntity.ok().contentType(MEDIA_TYPE_CSV).body(lineas);
+        }
+        if (ExportadorTelefonos.FORMATO_NDJSON.equalsIgnoreCase(formato)) {
+            ObjectWriter writer = campos != null
+                    ? camposTelefono.writer(campos)
+                    : objectMapper.writerFor(Telefono.class);
+            Flux<String> lineas = telefonos.handle((telefono, sink) -> {
+                try {
+                    sink.next(writer.writeValueAsString(telefono) + "\n");
+                } catch (JsonProcessingException e) {
+                    sink.error(e);
+                }
+            });
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(lineas);
+        }
+
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.just(catalogoErrores.json(ErrorCode.FORMATO_EXPORTACION_INVALIDO, locale)));
+    }
+
+    @GetMapping("/_search")
+    public Mono<ResponseEntity<?>> buscarTelefonos(@RequestParam(required = false) String q,
+            @RequestParam(required = false) String nombre,
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) String modelo,
+            @RequestParam(required = false) String nombreCorto,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(required = false) String facets,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Locale locale) {
+        Set<String> facetas;
+        try {
+            facetas = facets != null ? CriteriosBusqueda.parsearFacetas(facets) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(crearErrorResponse(ErrorCode.FACETA_INVALIDA, locale));
+        }
+        CriteriosBusqueda criterios = new CriteriosBusqueda(q, nombre, marca, modelo, nombreCorto, desde, hasta,
+                facetas);
+        if (criterios.sinCriterios()) {
+            return Mono.just(crearErrorResponse(ErrorCode.BUSQUEDA_SIN_CRITERIOS, locale));
+        }
+        int tamanio = Math.max(1, Math.min(size, TAMANIO_MAXIMO_BUSQUEDA));
+        return telefonoService.buscarTelefonos(criterios, Math.max(0, page), tamanio)
+                .<ResponseEntity<?>>map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/_stats")
+    public Mono<ResponseEntity<EstadisticasTelefono>> obtenerEstadisticas() {
+        return telefonoService.obtenerEstadisticas().map(ResponseEntity::ok);
+    }
+
+    /**
+     * Mismo manejo condicional que la variante servlet: 304 desde los metadatos o el
+     * telefono completo con sus validadores. La lectura completa se difiere para que un
+     * 304 no toque la cache.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Telefono>> obtenerTelefonoPorId(@PathVariable String id,
+            @RequestHeader HttpHeaders cabeceras) {
+        Mono<ResponseEntity<Telefono>> completo = Mono.defer(() -> telefonoService.obtenerTelefonoPorId(id))
+                .map(TelefonoReactivoController::conValidadores)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+        if (!MetadatosTelefono.esCondicional(cabeceras)) {
+            return completo;
+        }
+        return noModificado(telefonoService.obtenerMetadatosPorId(id), cabeceras).switchIfEmpty(completo);
+    }
+
+    @GetMapping("/imei/{imei}")
+    public Mono<ResponseEntity<Telefono>> obtenerTelefonoPorImei(@PathVariable String imei,
+            @RequestHeader HttpHeaders cabeceras) {
+        Mono<ResponseEntity<Telefono>> completo = Mono.defer(() -> telefonoService.obtenerTelefonoPorImei(imei))
+                .map(TelefonoReactivoController::conValidadores)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+        if (!MetadatosTelefono.esCondicional(cabeceras)) {
+            return completo;
+        }
+        return noModificado(telefonoService.obtenerMetadatosPorImei(imei), cabeceras).switchIfEmpty(completo);
+    }
+
+    /**
+     * Consulta varios IMEIs en una sola peticion, como en la variante servlet: un MGET en
+     * Redis y una consulta $in en Mongo para los que falten. {@code fields} solo reduce la
+     * serializacion, porque la cache guarda documentos completos.
+     */
+    @PostMapping("/imei/_batch")
+    public Mono<ResponseEntity<?>> obtenerTelefonosPorImeis(@RequestBody List<String> imeis,
+            @RequestParam(required = false) String fields, Locale locale) {
+        if (imeis.size() > MAXIMO_IMEIS_CONSULTA || imeis.stream().anyMatch(imei -> imei == null || imei.isBlank())) {
+            return Mono.just(crearErrorResponse(ErrorCode.LOTE_IMEIS_INVALIDO, locale));
+        }
+        Set<String> campos;
+        try {
+            campos = fields != null ? CamposTelefono.parsear(fields) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(crearErrorResponse(ErrorCode.CAMPO_INVALIDO, locale));
+        }
+        return respuestaConCampos(telefonoService.obtenerTelefonosPorImei(imeis), campos);
+    }
+
+    private static Mono<ResponseEntity<Telefono>> noModificado(Mono<MetadatosTelefono> metadatos,
+            HttpHeaders cabeceras) {
+        return metadatos.filter(m -> m.noModificado(cabeceras))
+                .map(m -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(m.cabeceras()).<Telefono>build());
+    }
+
+    private static ResponseEntity<Telefono> conValidadores(Telefono telefono) {
+        return ResponseEntity.ok().headers(MetadatosTelefono.de(telefono).cabeceras()).body(telefono);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> crearTelefono(@RequestBody Telefono telefono,
+            @RequestParam(defaultValue = "false") boolean todosLosErrores, Locale locale) {
+        ResponseEntity<?> validacion = validarTelefono(telefono, todosLosErrores, locale, true);
+        if (validacion != null) {
+            return Mono.just(validacion);
+        }
+
+        // El indice unico de IMEI resuelve los duplicados en la misma escritura
+        return telefonoService.guardarTelefono(telefono)
+                .<ResponseEntity<?>>map(nuevoTelefono -> ResponseEntity.status(HttpStatus.CREATED).body(nuevoTelefono))
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(
+                        crearErrorResponse(TelefonoService.errorLlaveDuplicada(e.getMessage()), locale)));
+    }
+
+    /**
+     * Mismo contrato que la variante servlet. El arreglo se decodifica elemento por elemento,
+     * asi el cuerpo no queda limitado por el buffer de un solo valor del codec.
+     */
+    @PostMapping(value = "/_bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<?>> crearTelefonosBulk(@RequestBody Flux<JsonNode> elementos,
+            @RequestParam(defaultValue = "false") boolean upsert, Locale locale) {
+        return procesarBulk(elementos, upsert, locale);
+    }
+
+    @PostMapping(value = "/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<?>> crearTelefonosBulkNdjson(@RequestBody Flux<JsonNode> lineas,
+            @RequestParam(defaultValue = "false") boolean upsert, Locale locale) {
+        return procesarBulk(lineas, upsert, locale);
+    }
+
+    // Se lee todo el cuerpo antes de escribir para no dejar lotes aplicados si un elemento es invalido
+    private Mono<ResponseEntity<?>> procesarBulk(Flux<JsonNode> elementos, boolean upsert, Locale locale) {
+        return elementos.take(MAXIMO_ITEMS_BULK + 1)
+                .<Telefono>handle((elemento, sink) -> {
+                    // Un elemento null no es un telefono que validar
+                    if (elemento.isNull()) {
+                        sink.error(new DecodingException("Elemento null en el bulk"));
+                        return;
+                    }
+                    try {
+                        sink.next(objectMapper.treeToValue(elemento, Telefono.class));
+                    } catch (JsonProcessingException e) {
+                        sink.error(new DecodingException("Elemento invalido en el bulk", e));
+                    }
+                })
+                .collectList()
+                .flatMap(telefonos -> telefonos.size() > MAXIMO_ITEMS_BULK
+                        ? Mono.just(crearErrorResponse(ErrorCode.BULK_INVALIDO, locale))
+                        : guardarTelefonosBulk(telefonos, upsert, locale))
+                .onErrorResume(e -> e instanceof DecodingException || e instanceof ServerWebInputException,
+                        e -> Mono.just(crearErrorResponse(ErrorCode.BULK_INVALIDO, locale)));
+    }
+
+    private Mono<ResponseEntity<?>> guardarTelefonosBulk(List<Telefono> telefonos, boolean upsert, Locale locale) {
+        int lotes = (telefonos.size() + TAMANIO_LOTE_BULK - 1) / TAMANIO_LOTE_BULK;
+        return Flux.range(0, lotes)
+                .concatMap(n -> {
+                    int desde = n * TAMANIO_LOTE_BULK;
+                    List<Telefono> lote = telefonos.subList(desde,
+                            Math.min(desde + TAMANIO_LOTE_BULK, telefonos.size()));
+                    return procesarLoteBulk(lote, desde, upsert, locale);
+                })
+                .concatMapIterable(resultados -> resultados)
+                .collectList()
+                .map(ResponseEntity::ok);
+    }
+
+    private Mono<List<ResultadoBulk>> procesarLoteBulk(List<Telefono> lote, int desplazamiento, boolean upsert,
+            Locale locale) {
+        List<Telefono> validos = new ArrayList<>(lote.size());
+        List<Integer> indicesValidos = new ArrayList<>(lote.size());
+        ResultadoBulk[] resultadosLote = new ResultadoBulk[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            Telefono telefono = lote.get(i);
+            ErrorCode error = validadorTelefono.validar(telefono, true);
+            if (error != null) {
+                resultadosLote[i] = ResultadoBulk.error(desplazamiento + i, telefono.getImei(), error);
+            } else {
+                validos.add(telefono);
+                indicesValidos.add(i);
+            }
+        }
+
+        Mono<List<ResultadoBulk>> guardados = validos.isEmpty()
+                ? Mono.just(List.of())
+                : telefonoService.guardarTelefonosBulk(validos, upsert);
+        return guardados.map(resultados -> {
+            for (int j = 0; j < resultados.size(); j++) {
+                ResultadoBulk resultado = resultados.get(j);
+                int i = indicesValidos.get(j);
+                resultado.setIndice(desplazamiento + i);
+                resultadosLote[i] = resultado;
+            }
+            for (ResultadoBulk resultado : resultadosLote) {
+                if (resultado.getError() != null) {
+                    resultado.setMensaje(catalogoErrores.mensaje(resultado.getError(), locale));
+                }
+            }
+            return List.of(resultadosLote);
+        });
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<?>> actualizarTelefono(@PathVariable String id, @RequestBody Telefono telefono,
+            @RequestParam(defaultValue = "false") boolean todosLosErrores, @RequestHeader HttpHeaders cabeceras,
+            Locale locale) {
+        ResponseEntity<?> validacion = validarTelefono(telefono, todosLosErrores, locale, false);
+        if (validacion != null) {
+            return Mono.just(validacion);
+        }
+        return aplicarActualizacion(id, telefono, cabeceras, locale);
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<?>> actualizarTelefonoParcial(@PathVariable String id, @RequestBody Telefono cambios,
+            @RequestHeader HttpHeaders cabeceras, Locale locale) {
+        ErrorCode error = validadorTelefono.validarParcial(cambios);
+        if (error != null) {
+            return Mono.just(crearErrorResponse(error, locale));
+        }
+        return aplicarActualizacion(id, cambios, cabeceras, locale);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> eliminarTelefono(@PathVariable String id) {
+        return telefonoService.eliminarTelefono(id)
+                .map(eliminado -> eliminado
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * Elimina una lista de ids en una sola escritura y responde cuales existian.
+     */
+    @PostMapping("/_bulk-delete")
+    public Mono<ResponseEntity<?>> eliminarTelefonos(@RequestBody List<String> ids, Locale locale) {
+        if (ids.isEmpty() || ids.size() > MAXIMO_ITEMS_BULK || ids.stream().anyMatch(id -> id == null || id.isBlank())) {
+            return Mono.just(crearErrorResponse(ErrorCode.BULK_INVALIDO, locale));
+        }
+        return telefonoService.eliminarTelefonos(ids).map(ResponseEntity::ok);
+    }
+
+    // Misma condicion If-Match que la variante servlet
+    private Mono<ResponseEntity<?>> aplicarActualizacion(String id, Telefono cambios, HttpHeaders cabeceras,
+            Locale locale) {
+        return telefonoService.actualizarTelefono(id, cambios, MetadatosTelefono.versionExigida(id, cabeceras))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .defaultIfEmpty(crearErrorResponse(ErrorCode.TELEFONO_NO_ENCONTRADO, locale))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(
+                        crearErrorResponse(ErrorCode.VERSION_CONFLICTO, locale, HttpStatus.PRECONDITION_FAILED)));
+    }
+
+    private ResponseEntity<?> validarTelefono(Telefono telefono, boolean todosLosErrores, Locale locale,
+            boolean esCreacion) {
+        if (todosLosErrores) {
+            List<ErrorCode> errores = validadorTelefono.validarTodos(telefono, esCreacion);
+            if (errores.isEmpty()) {
+                return null;
+            }
+            List<ErrorResponse> respuestas = new ArrayList<>(errores.size());
+            for (ErrorCode error : errores) {
+                respuestas.add(catalogoErrores.respuesta(error, locale));
+            }
+            return ResponseEntity.badRequest().body(respuestas);
+        }
+
+        ErrorCode error = validadorTelefono.validar(telefono, esCreacion);
+        return error != null ? crearErrorResponse(error, locale) : null;
+    }
+
+    private ResponseEntity<ErrorResponse> crearErrorResponse(ErrorCode codigoError, Locale locale) {
+        return crearErrorResponse(codigoError, locale, HttpStatus.BAD_REQUEST);
+    }
+
+    private ResponseEntity<ErrorResponse> crearErrorResponse(ErrorCode codigoError, Locale locale,
+            HttpStatus estado) {
+        return ResponseEntity.status(estado).body(catalogoErrores.respuesta(codigoError, locale));
+    }
+
+
+}
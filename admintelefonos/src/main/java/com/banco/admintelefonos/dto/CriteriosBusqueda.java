@@ -0,0 +1,64 @@
+package com.banco.admintelefonos.dto;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.util.StringUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Parametros de {@code GET /telefonos/_search}. {@code q} es texto libre sobre el indice de
+ * texto; nombre, marca, modelo y nombreCorto son prefijos que distinguen mayusculas, para
+ * que Mongo los resuelva como un rango del indice.
+ */
+@Data
+@AllArgsConstructor
+public class CriteriosBusqueda {
+
+    public static final List<String> FACETAS = List.of("marca", "modelo", "tieneSistemaIOS");
+
+    private String q;
+    private String nombre;
+    private String marca;
+    private String modelo;
+    private String nombreCorto;
+    private LocalDateTime desde;
+    private LocalDateTime hasta;
+    private Set<String> facetas;
+
+    /**
+     * Sin ningun criterio la busqueda recorreria la coleccion completa.
+     */
+    public boolean sinCriterios() {
+        return !StringUtils.hasText(q) && !StringUtils.hasText(nombre) && !StringUtils.hasText(marca)
+                && !StringUtils.hasText(modelo) && !StringUtils.hasText(nombreCorto) && desde == null
+                && hasta == null;
+    }
+
+    /**
+     * Facetas pedidas, separadas por coma, en el orden de {@link #FACETAS}.
+     *
+     * @throws IllegalArgumentException si alguna no es una faceta disponible
+     */
+    public static Set<String> parsearFacetas(String facetas) {
+        Set<String> pedidas = new LinkedHashSet<>();
+        for (String faceta : facetas.split(",", -1)) {
+            String nombre = faceta.trim();
+            if (!FACETAS.contains(nombre)) {
+                throw new IllegalArgumentException("Faceta desconocida: " + nombre);
+            }
+            pedidas.add(nombre);
+        }
+        Set<String> ordenadas = new LinkedHashSet<>();
+        for (String faceta : FACETAS) {
+            if (pedidas.contains(faceta)) {
+                ordenadas.add(faceta);
+            }
+        }
+        return ordenadas;
+    }
+}
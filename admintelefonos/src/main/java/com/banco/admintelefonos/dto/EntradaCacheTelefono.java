@@ -0,0 +1,24 @@
+package com.banco.admintelefonos.dto;
+
+import com.banco.admintelefonos.model.Telefono;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Telefono guardado en Redis junto con los datos para decidir su refresco: cuando se
+ * escribio, con que TTL y cuanto costo la consulta a Mongo. Las entradas escritas antes
+ * de la envoltura tienen {@code creadoEnMillis} en 0.
+ */
+@Data
+@AllArgsConstructor
+public class EntradaCacheTelefono {
+    private Telefono telefono;
+    private long creadoEnMillis;
+    private long ttlMillis;
+    private long costoMicros;
+
+    public boolean tieneMetadatos() {
+        return creadoEnMillis > 0;
+    }
+}
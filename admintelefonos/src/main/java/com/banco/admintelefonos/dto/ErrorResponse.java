@@ -1,11 +1,16 @@
 package com.banco.admintelefonos.dto;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
-@Data
+// Inmutable: CatalogoErrores comparte la misma instancia entre peticiones
+@Getter
+@ToString
+@EqualsAndHashCode
 @AllArgsConstructor
 public class ErrorResponse {
-    private String codigoError;
-    private String mensaje;
+    private final String codigoError;
+    private final String mensaje;
 }
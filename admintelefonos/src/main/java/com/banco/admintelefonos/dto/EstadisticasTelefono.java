@@ -0,0 +1,25 @@
+package com.banco.admintelefonos.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Respuesta de {@code GET /telefonos/_stats}. Sale del documento de contadores, no de
+ * recorrer la coleccion; {@code reconciliadoEn} es la ultima vez que se comparo contra ella.
+ */
+@Data
+@AllArgsConstructor
+public class EstadisticasTelefono {
+    private long total;
+    private Map<String, Long> porMarca;
+    private long sinMarca;
+    private long conIos;
+    private long sinIos;
+    private long iosSinDato;
+    private double proporcionIos;
+    private Map<String, Long> creacionesPorDia;
+    private Instant reconciliadoEn;
+}
@@ -0,0 +1,102 @@
+package com.banco.admintelefonos.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+
+import com.banco.admintelefonos.model.Telefono;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Validadores HTTP de un telefono: bastan para responder 304 sin leer el documento. El
+ * ETag es fuerte porque la version cambia con cada escritura del documento.
+ */
+@Data
+@AllArgsConstructor
+public class MetadatosTelefono {
+
+    // Version que ningun documento tiene: la escritura condicionada a ella nunca se aplica
+    public static final long VERSION_INEXISTENTE = -1L;
+
+    private String id;
+    private Long version;
+    private Instant fechaModificacion;
+
+    public static MetadatosTelefono de(Telefono telefono) {
+        return new MetadatosTelefono(telefono.getId(), telefono.getVersion(), telefono.getFechaModificacion());
+    }
+
+    public static boolean esCondicional(HttpHeaders cabeceras) {
+        return cabeceras.containsKey(HttpHeaders.IF_NONE_MATCH) || cabeceras.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    /**
+     * Null si el documento todavia no tiene version.
+     */
+    public String etag() {
+        return id != null && version != null ? "\"" + id + "-" + version + "\"" : null;
+    }
+
+    /**
+     * Evalua If-None-Match y, solo si no viene, If-Modified-Since con precision de
+     * segundos, como indica RFC 9110.
+     */
+    public boolean noModificado(HttpHeaders cabeceras) {
+        List<String> etags = cabeceras.getIfNoneMatch();
+        if (!etags.isEmpty()) {
+            String actual = etag();
+            for (String etag : etags) {
+                if ("*".equals(etag) || (actual != null && actual.equals(sinDebil(etag)))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long desde = cabeceras.getIfModifiedSince();
+        return desde >= 0 && fechaModificacion != null && fechaModificacion.getEpochSecond() <= desde / 1000;
+    }
+
+    /**
+     * Version que If-Match exige para escribir sobre el documento {@code id}; null si no
+     * viene o es {@code *}. If-Match usa comparacion fuerte, asi que un ETag debil, de otro
+     * documento o mal formado no coincide con ninguna version y se devuelve
+     * {@link #VERSION_INEXISTENTE}. Con varios ETags se toma el primero de este documento.
+     */
+    public static Long versionExigida(String id, HttpHeaders cabeceras) {
+        List<String> etags = cabeceras.getIfMatch();
+        if (etags.isEmpty() || etags.contains("*")) {
+            return null;
+        }
+        String prefijo = "\"" + id + "-";
+        for (String etag : etags) {
+            if (etag.startsWith(prefijo) && etag.endsWith("\"") && etag.length() > prefijo.length() + 1) {
+                try {
+                    return Long.parseLong(etag.substring(prefijo.length(), etag.length() - 1));
+                } catch (NumberFormatException e) {
+                    // no es un ETag de este servicio
+                }
+            }
+        }
+        return VERSION_INEXISTENTE;
+    }
+
+    public HttpHeaders cabeceras() {
+        HttpHeaders cabeceras = new HttpHeaders();
+        String etag = etag();
+        if (etag != null) {
+            cabeceras.setETag(etag);
+        }
+        if (fechaModificacion != null) {
+            cabeceras.setLastModified(fechaModificacion);
+        }
+        return cabeceras;
+    }
+
+    // If-None-Match usa comparacion debil: W/"x" coincide con "x"
+    private static String sinDebil(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,15 @@
+package com.banco.admintelefonos.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PaginaCursor<T> {
+    private List<T> contenido;
+    private int tamanio;
+    private boolean tieneSiguiente;
+    private String siguienteCursor;
+}
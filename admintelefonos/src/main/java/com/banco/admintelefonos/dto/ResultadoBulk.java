@@ -0,0 +1,45 @@
+package com.banco.admintelefonos.dto;
+
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoBulk {
+
+    public static final String CREADO = "CREADO";
+    public static final String ACTUALIZADO = "ACTUALIZADO";
+    public static final String ERROR = "ERROR";
+
+    private int indice;
+    private String id;
+    private String imei;
+    private String estado;
+    private String codigoError;
+    private String mensaje;
+
+    @JsonIgnore
+    private ErrorCode error;
+
+    public static ResultadoBulk exito(int indice, String id, String imei, String estado) {
+        ResultadoBulk resultado = new ResultadoBulk();
+        resultado.setIndice(indice);
+        resultado.setId(id);
+        resultado.setImei(imei);
+        resultado.setEstado(estado);
+        return resultado;
+    }
+
+    public static ResultadoBulk error(int indice, String imei, ErrorCode error) {
+        ResultadoBulk resultado = new ResultadoBulk();
+        resultado.setIndice(indice);
+        resultado.setImei(imei);
+        resultado.setEstado(ERROR);
+        resultado.setCodigoError(error.getCode());
+        resultado.setError(error);
+        return resultado;
+    }
+}
@@ -0,0 +1,30 @@
+package com.banco.admintelefonos.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.banco.admintelefonos.model.Telefono;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Pagina de resultados, total de coincidencias y conteo por faceta, todo de la misma
+ * agregacion {@code $facet}. Cada faceta trae sus valores mas frecuentes primero.
+ */
+@Data
+@AllArgsConstructor
+public class ResultadoBusqueda {
+    private List<Telefono> contenido;
+    private long total;
+    private int pagina;
+    private int tamanio;
+    private Map<String, List<ConteoFaceta>> facetas;
+
+    @Data
+    @AllArgsConstructor
+    public static class ConteoFaceta {
+        private Object valor;
+        private long cantidad;
+    }
+}
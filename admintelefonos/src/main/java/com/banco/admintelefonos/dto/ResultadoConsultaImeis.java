@@ -0,0 +1,16 @@
+package com.banco.admintelefonos.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.banco.admintelefonos.model.Telefono;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ResultadoConsultaImeis {
+    private Map<String, Telefono> encontrados;
+    private List<String> noEncontrados;
+}
@@ -0,0 +1,13 @@
+package com.banco.admintelefonos.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ResultadoEliminacion {
+    private List<String> eliminados;
+    private List<String> noEncontrados;
+}
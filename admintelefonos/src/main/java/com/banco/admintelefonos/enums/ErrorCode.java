@@ -2,28 +2,44 @@ package com.banco.admintelefonos.enums;
 
 public enum ErrorCode {
 
-    NOMBRE_REQUERIDO("1001"),
-    NOMBRE_CARACTERES_ESPECIALES("1002"),
-    MARCA_REQUERIDO("1003"),
-    MARCA_CARACTERES_ESPECIALES("1004"),
-    MODELO_REQUERIDO("1005"),
-    MODELO_CARACTERES_ESPECIALES("1006"),
-    NOMBRE_CORTO_REQUERIDO("1007"),
-    NOMBRE_CORTO_CARACTERES_ESPECIALES("1008"),
-    FECHA_CREACION_REQUERIDO("1009"),
-    TELEFONO_NO_ENCONTRADO("1010"),
-    FECHA_CREACION_FORMATO_INVALIDO("1011"),
-    IMEI_YA_EXISTE("1012"),
-    IMEI_REQUERIDO("1013"),
-    EMAIL_FORMATO_INVALIDO("1014");
+    NOMBRE_REQUERIDO("1001", "nombre.requerido"),
+    NOMBRE_CARACTERES_ESPECIALES("1002", "nombre.caracteres.especiales"),
+    MARCA_REQUERIDO("1003", "marca.requerido"),
+    MARCA_CARACTERES_ESPECIALES("1004", "marca.caracteres.especiales"),
+    MODELO_REQUERIDO("1005", "modelo.requerido"),
+    MODELO_CARACTERES_ESPECIALES("1006", "modelo.caracteres.especiales"),
+    NOMBRE_CORTO_REQUERIDO("1007", "nombreCorto.requerido"),
+    NOMBRE_CORTO_CARACTERES_ESPECIALES("1008", "nombreCorto.caracteres.especiales"),
+    FECHA_CREACION_REQUERIDO("1009", "fechaCreacion.requerido"),
+    TELEFONO_NO_ENCONTRADO("1010", "telefono.no.encontrado"),
+    FECHA_CREACION_FORMATO_INVALIDO("1011", "fechaCreacion.formato.invalido"),
+    IMEI_YA_EXISTE("1012", "imei.ya.existe"),
+    IMEI_REQUERIDO("1013", "imei.requerido"),
+    EMAIL_FORMATO_INVALIDO("1014", "email.formato.invalido"),
+    CURSOR_INVALIDO("1015", "cursor.invalido"),
+    BULK_INVALIDO("1016", "bulk.invalido"),
+    ERROR_ESCRITURA("1017", "telefono.error.escritura"),
+    FORMATO_EXPORTACION_INVALIDO("1018", "exportacion.formato.invalido"),
+    LOTE_IMEIS_INVALIDO("1019", "imei.lote.invalido"),
+    VERSION_CONFLICTO("1020", "telefono.version.conflicto"),
+    CAMPO_INVALIDO("1021", "campo.invalido"),
+    BUSQUEDA_SIN_CRITERIOS("1022", "busqueda.sin.criterios"),
+    FACETA_INVALIDA("1023", "busqueda.faceta.invalida"),
+    ID_YA_EXISTE("1024", "telefono.id.ya.existe");
 
     private final String code;
+    private final String mensajeKey;
 
-    ErrorCode(String code) {
+    ErrorCode(String code, String mensajeKey) {
         this.code = code;
+        this.mensajeKey = mensajeKey;
     }
 
     public String getCode() {
         return code;
     }
+
+    public String getMensajeKey() {
+        return mensajeKey;
+    }
 }
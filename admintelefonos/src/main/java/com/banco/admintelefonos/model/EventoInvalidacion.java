@@ -0,0 +1,54 @@
+package com.banco.admintelefonos.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Invalidacion pendiente de publicar en el topico de cache (outbox). Se inserta antes
+ * de escribir el telefono, de modo que toda escritura que llega a Mongo tiene su
+ * invalidacion guardada aunque el proceso caiga antes de publicarla; si la escritura
+ * falla, la invalidacion sobrante solo provoca un fallo de cache.
+ * <p>
+ * Se inserta reservada ({@link #reservado}): el relay no la publica hasta que la
+ * escritura termina y la libera. Publicarla antes haria que las demas instancias
+ * recargaran el documento anterior en sus caches. Si el proceso cae sin liberarla,
+ * la reserva vence y el relay la publica igual.
+ */
+@Document(collection = EventoInvalidacion.COLECCION)
+@Data
+public class EventoInvalidacion {
+
+    public static final String COLECCION = "outbox_invalidaciones";
+
+    @Id
+    private String id;
+
+    private List<String> imeis;
+    private Instant creadoEn;
+
+    // Reclamo del relay que lo esta publicando y hasta cuando lo retiene; sin reclamo es la
+    // reserva de la escritura en curso
+    private String reclamo;
+    private Instant bloqueadoHasta;
+
+    public static EventoInvalidacion pendiente(Collection<String> imeis) {
+        EventoInvalidacion evento = new EventoInvalidacion();
+        evento.setImeis(new ArrayList<>(imeis));
+        evento.setCreadoEn(Instant.now());
+        return evento;
+    }
+
+    public static EventoInvalidacion reservado(Collection<String> imeis, Duration reserva) {
+        EventoInvalidacion evento = pendiente(imeis);
+        evento.setBloqueadoHasta(evento.getCreadoEn().plus(reserva));
+        return evento;
+    }
+}
@@ -1,7 +1,9 @@
 package com.banco.admintelefonos.model;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -23,4 +25,12 @@ public class Telefono {
     private String emailSoporte;
     private Boolean tieneSistemaIOS;
 
+    // Control de concurrencia optimista: cada escritura lo incrementa. Lo asigna el servicio;
+    // el cliente exige una version con If-Match, no en el cuerpo
+    @Version
+    private Long version;
+
+    // Ultima escritura, en milisegundos como la guarda Mongo; alimenta Last-Modified
+    private Instant fechaModificacion;
+
 }
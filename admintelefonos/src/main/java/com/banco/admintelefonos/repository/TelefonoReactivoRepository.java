@@ -0,0 +1,21 @@
+package com.banco.admintelefonos.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.banco.admintelefonos.model.Telefono;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface TelefonoReactivoRepository extends ReactiveMongoRepository<Telefono, String> {
+    Mono<Telefono> findByImei(String imei);
+
+    Flux<Telefono> findByImeiIn(Collection<String> imeis);
+
+    Flux<Telefono> findAllBy(Pageable pageable);
+}
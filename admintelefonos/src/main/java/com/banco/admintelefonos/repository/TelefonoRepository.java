@@ -1,5 +1,7 @@
 package com.banco.admintelefonos.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -9,4 +11,6 @@ import com.banco.admintelefonos.model.Telefono;
 @Repository
 public interface TelefonoRepository extends MongoRepository<Telefono, String> {
     Optional<Telefono> findByImei(String imei);
+
+    List<Telefono> findByImeiIn(Collection<String> imeis);
 }
@@ -0,0 +1,718 @@
+package com.banco.admintelefonos.service;
+
+import com.banco.admintelefonos.component.CamposTelefono;
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.component.ContadoresTelefono;
+import com.banco.admintelefonos.component.IndiceImei;
+import com.banco.admintelefonos.component.MetricasTelefono;
+import com.banco.admintelefonos.component.PoliticaCacheTelefono;
+import com.banco.admintelefonos.component.SnapshotImei;
+import com.banco.admintelefonos.component.TelefonoCacheLocal;
+import com.banco.admintelefonos.dto.CriteriosBusqueda;
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.dto.EstadisticasTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.dto.PaginaCursor;
+import com.banco.admintelefonos.dto.ResultadoBulk;
+import com.banco.admintelefonos.dto.ResultadoBusqueda;
+import com.banco.admintelefonos.dto.ResultadoConsultaImeis;
+import com.banco.admintelefonos.dto.ResultadoEliminacion;
+import com.banco.admintelefonos.model.EventoInvalidacion;
+import com.banco.admintelefonos.model.Telefono;
+import com.banco.admintelefonos.repository.TelefonoReactivoRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Variante no bloqueante de {@link TelefonoService} para el modo WebFlux. Usa el
+ * driver reactivo de Mongo y Lettuce reactivo para Redis, por lo que un hilo del
+ * event loop no queda esperando la respuesta de ningun backend. Comparte la cache
+ * local, las llaves de Redis y el topico de invalidacion con la variante servlet.
+ */
+@Service
+public class TelefonoReactivoService {
+
+    @Autowired
+    private TelefonoReactivoRepository telefonoReactivoRepository;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private CodecCacheTelefono codecCacheTelefono;
+
+    @Autowired
+    private TelefonoCacheLocal telefonoCacheLocal;
+
+    @Autowired
+    private MetricasTelefono metricasTelefono;
+
+    @Autowired
+    private PoliticaCacheTelefono politicaCacheTelefono;
+
+    // Solo existe con telefono.snapshot.habilitado=true
+    @Autowired(required = false)
+    private SnapshotImei snapshotImei;
+
+    @Value("${telefono.cache.negativo.ttl:30s}")
+    private Duration ttlNegativo = Duration.ofSeconds(30);
+
+    @Value("${telefono.outbox.reserva:30s}")
+    private Duration reservaInvalidacion = Duration.ofSeconds(30);
+
+    private final Map<String, Mono<Optional<Telefono>>> consultasImeiEnCurso = new ConcurrentHashMap<>();
+
+    private static final Logger log = LoggerFactory.getLogger(TelefonoReactivoService.class);
+
+    public Mono<Page<Telefono>> obtenerTelefonos(Pageable pageable) {
+        return telefonoReactivoRepository.findAllBy(pageable)
+                .collectList()
+                .zipWith(telefonoReactivoRepository.count())
+                .map(pagina -> new PageImpl<>(pagina.getT1(), pageable, pagina.getT2()));
+    }
+
+    /**
+     * Pagina con la proyeccion de {@link CamposTelefono} aplicada en Mongo.
+     */
+    public Mono<Page<Telefono>> obtenerTelefonos(Pageable pageable, Set<String> campos) {
+        if (campos == null) {
+            return obtenerTelefonos(pageable);
+        }
+        Query query = CamposTelefono.proyectar(new Query().with(pageable), campos);
+        return reactiveMongoTemplate.find(query, Telefono.class)
+                .collectList()
+                .zipWith(reactiveMongoTemplate.count(new Query(), Telefono.class))
+                .map(pagina -> new PageImpl<>(pagina.getT1(), pageable, pagina.getT2()));
+    }
+
+    /**
+     * Misma paginacion por cursor que {@link TelefonoService#obtenerTelefonosPorCursor}; un
+     * cursor invalido se emite como {@link IllegalArgumentException}.
+     */
+    public Mono<PaginaCursor<Telefono>> obtenerTelefonosPorCursor(String cursor, int tamanio, Set<String> campos) {
+        return Mono.fromCallable(() -> TelefonoService.consultaCursor(cursor, tamanio, campos))
+                .flatMap(query -> reactiveMongoTemplate.find(query, Telefono.class).collectList())
+                .map(telefonos -> TelefonoService.paginaCursor(telefonos, tamanio));
+    }
+
+    /**
+     * Flujo de los telefonos del filtro; la demanda del cliente HTTP regula el avance del cursor.
+     */
+    public Flux<Telefono> exportarTelefonos(String marca, LocalDateTime desde, LocalDateTime hasta) {
+        return exportarTelefonos(marca, desde, hasta, null);
+    }
+
+    public Flux<Telefono> exportarTelefonos(String marca, LocalDateTime desde, LocalDateTime hasta,
+            Set<String> campos) {
+        return reactiveMongoTemplate.find(
+                CamposTelefono.proyectar(TelefonoService.consultaExportacion(marca, desde, hasta), campos),
+                Telefono.class);
+    }
+
+    public Mono<Telefono> obtenerTelefonoPorId(String id) {
+        return telefonoReactivoRepository.findById(id);
+    }
+
+    public Mono<Telefono> obtenerTelefonoPorImei(String imei) {
+        long clave = snapshotImei != null ? snapshotImei.clave(imei) : IndiceImei.SIN_CLAVE;
+        if (clave != IndiceImei.SIN_CLAVE) {
+            metricasTelefono.aciertoSnapshot();
+            return Mono.justOrEmpty(snapshotImei.obtener(clave));
+        }
+
+        Telefono telefonoLocal = telefonoCacheLocal.obtener(imei);
+        if (telefonoLocal != null) {
+            metricasTelefono.aciertoCacheLocal();
+            return Mono.just(telefonoLocal);
+        }
+        if (telefonoCacheLocal.estaAusente(imei)) {
+            metricasTelefono.aciertoCacheNegativo();
+            return Mono.empty();
+        }
+
+        String cacheKey = TelefonoService.TELEFONO_CACHE_PREFIX + imei;
+        return leerCache(imei, cacheKey)
+                .switchIfEmpty(Mono.defer(() -> {
+                    metricasTelefono.falloCache();
+                    return consultarImeiUnaVez(imei, cacheKey);
+                }))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * Consulta por lote con las mismas fuentes que {@link TelefonoService#obtenerTelefonosPorImei}:
+     * snapshot y cache local, un solo MGET en Redis y una consulta {@code $in} en Mongo para
+     * los que falten, que se escriben en Redis. El resultado conserva el orden de la entrada.
+     */
+    public Mono<ResultadoConsultaImeis> obtenerTelefonosPorImei(Collection<String> imeis) {
+        return Mono.defer(() -> {
+            Map<String, Telefono> encontrados = new HashMap<>();
+            Set<String> ausentes = new HashSet<>();
+            List<String> pendientes = new ArrayList<>();
+            Set<String> solicitados = new LinkedHashSet<>(imeis);
+            for (String imei : solicitados) {
+                long clave = snapshotImei != null ? snapshotImei.clave(imei) : IndiceImei.SIN_CLAVE;
+                if (clave != IndiceImei.SIN_CLAVE) {
+                    metricasTelefono.aciertoSnapshot();
+                    Telefono telefono = snapshotImei.obtener(clave);
+                    if (telefono != null) {
+                        encontrados.put(imei, telefono);
+                    } else {
+                        ausentes.add(imei);
+                    }
+                    continue;
+                }
+                Telefono telefonoLocal = telefonoCacheLocal.obtener(imei);
+                if (telefonoLocal != null) {
+                    metricasTelefono.aciertoCacheLocal();
+                    encontrados.put(imei, telefonoLocal);
+                } else if (telefonoCacheLocal.estaAusente(imei)) {
+                    metricasTelefono.aciertoCacheNegativo();
+                    ausentes.add(imei);
+                } else {
+                    pendientes.add(imei);
+                }
+            }
+
+            return leerCacheLote(pendientes, encontrados, ausentes)
+                    .flatMap(faltantes -> consultarImeisFaltantes(faltantes, encontrados))
+                    .then(Mono.fromSupplier(() -> {
+                        Map<String, Telefono> encontradosOrdenados = new LinkedHashMap<>();
+                        List<String> noEncontrados = new ArrayList<>();
+                        for (String imei : solicitados) {
+                            if (encontrados.containsKey(imei)) {
+                                encontradosOrdenados.put(imei, encontrados.get(imei));
+                            } else {
+                                noEncontrados.add(imei);
+                            }
+                        }
+                        return new ResultadoConsultaImeis(encontradosOrdenados, noEncontrados);
+                    }));
+        });
+    }
+
+    /**
+     * Emite los IMEIs que hay que buscar en Mongo: los que no estan en Redis, los que tocan
+     * refresco anticipado y todos si Redis falla.
+     */
+    private Mono<List<String>> leerCacheLote(List<String> pendientes, Map<String, Telefono> encontrados,
+            Set<String> ausentes) {
+        if (pendientes.isEmpty()) {
+            return Mono.just(pendientes);
+        }
+        List<String> cacheKeys = new ArrayList<>(pendientes.size());
+        for (String imei : pendientes) {
+            cacheKeys.add(TelefonoService.TELEFONO_CACHE_PREFIX + imei);
+        }
+        return metricasTelefono.redisGet(reactiveRedisTemplate.opsForValue().multiGet(cacheKeys))
+                .onErrorResume(e -> {
+                    metricasTelefono.errorCache();
+                    log.warn("No fue posible leer la cache de {} IMEIs", pendientes.size(), e);
+                    return Mono.just(Collections.nCopies(pendientes.size(), null));
+                })
+                .map(valores -> {
+                    List<String> faltantes = new ArrayList<>();
+                    long ahora = System.currentTimeMillis();
+                    for (int i = 0; i < pendientes.size(); i++) {
+                        String imei = pendientes.get(i);
+                        byte[] bytes = valores.get(i);
+                        if (bytes == null) {
+                            metricasTelefono.falloCache();
+                            faltantes.add(imei);
+                            continue;
+                        }
+                        try {
+                            if (codecCacheTelefono.esAusente(bytes)) {
+                                telefonoCacheLocal.registrarAusente(imei);
+                                metricasTelefono.aciertoCacheNegativo();
+                                ausentes.add(imei);
+                                continue;
+                            }
+                            EntradaCacheTelefono entrada = codecCacheTelefono.decodificarEntrada(bytes);
+                            if (entrada.tieneMetadatos()) {
+                                metricasTelefono.edadEntradaCache(ahora - entrada.getCreadoEnMillis());
+                            }
+                            if (politicaCacheTelefono.debeRefrescar(entrada, ahora)) {
+                                metricasTelefono.refrescoAnticipado();
+                                faltantes.add(imei);
+                                continue;
+                            }
+                            telefonoCacheLocal.guardar(imei, entrada.getTelefono());
+                            metricasTelefono.aciertoCacheRedis();
+                            encontrados.put(imei, entrada.getTelefono());
+                        } catch (Exception e) {
+                            metricasTelefono.errorCache();
+                            log.warn("Entrada de cache invalida para el IMEI {}", imei, e);
+                            faltantes.add(imei);
+                        }
+                    }
+                    return faltantes;
+                });
+    }
+
+    private Mono<Void> consultarImeisFaltantes(List<String> faltantes, Map<String, Telefono> encontrados) {
+        if (faltantes.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            long inicio = System.nanoTime();
+            return telefonoReactivoRepository.findByImeiIn(faltantes)
+                    .collectList()
+                    .flatMap(telefonos -> {
+                        long costoMicros = (System.nanoTime() - inicio) / 1000 / faltantes.size();
+                        for (Telefono telefono : telefonos) {
+                            encontrados.put(telefono.getImei(), telefono);
+                            telefonoCacheLocal.guardar(telefono.getImei(), telefono);
+                        }
+                        for (String imei : faltantes) {
+                            if (!encontrados.containsKey(imei)) {
+                                telefonoCacheLocal.registrarAusente(imei);
+                            }
+                        }
+                        return escribirCacheLote(faltantes, encontrados, costoMicros);
+                    });
+        });
+    }
+
+    // Lettuce envia los SET por la misma conexion sin esperar cada respuesta
+    private Mono<Void> escribirCacheLote(List<String> imeis, Map<String, Telefono> encontrados, long costoMicros) {
+        long ahora = System.currentTimeMillis();
+        return Flux.fromIterable(imeis)
+                .flatMap(imei -> {
+                    String cacheKey = TelefonoService.TELEFONO_CACHE_PREFIX + imei;
+                    Telefono telefono = encontrados.get(imei);
+                    if (telefono == null) {
+                        return metricasTelefono.redisSet(reactiveRedisTemplate.opsForValue()
+                                .set(cacheKey, codecCacheTelefono.ausente(), ttlNegativo));
+                    }
+                    Duration ttl = politicaCacheTelefono.ttlConJitter();
+                    return Mono.fromCallable(() -> codecCacheTelefono.codificarEntrada(
+                                    new EntradaCacheTelefono(telefono, ahora, ttl.toMillis(), costoMicros)))
+                            .flatMap(bytes -> metricasTelefono.redisSet(
+                                    reactiveRedisTemplate.opsForValue().set(cacheKey, bytes, ttl)));
+                })
+                .onErrorResume(e -> {
+                    metricasTelefono.errorCache();
+                    log.warn("No fue posible guardar en cache {} IMEIs", imeis.size(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Mismas fuentes que {@link TelefonoService#obtenerMetadatosPorImei}; emite vacio si
+     * los validadores no estan en ninguna.
+     */
+    public Mono<MetadatosTelefono> obtenerMetadatosPorImei(String imei) {
+        long clave = snapshotImei != null ? snapshotImei.clave(imei) : IndiceImei.SIN_CLAVE;
+        if (clave != IndiceImei.SIN_CLAVE) {
+            return Mono.justOrEmpty(snapshotImei.obtener(clave)).map(MetadatosTelefono::de);
+        }
+        Telefono telefonoLocal = telefonoCacheLocal.obtener(imei);
+        if (telefonoLocal != null) {
+            return Mono.just(MetadatosTelefono.de(telefonoLocal));
+        }
+        if (telefonoCacheLocal.estaAusente(imei)) {
+            return Mono.empty();
+        }
+        return metricasTelefono.redisGet(
+                        reactiveRedisTemplate.opsForValue().get(TelefonoService.TELEFONO_CACHE_PREFIX + imei))
+                .mapNotNull(codecCacheTelefono::leerMetadatos)
+                .onErrorResume(e -> {
+                    metricasTelefono.errorCache();
+                    log.warn("No fue posible leer los metadatos en cache del IMEI {}", imei, e);
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<MetadatosTelefono> obtenerMetadatosPorId(String id) {
+        return reactiveMongoTemplate.findOne(TelefonoService.consultaMetadatos(id), Telefono.class)
+                .map(MetadatosTelefono::de);
+    }
+
+    /**
+     * Misma agregacion que {@link TelefonoService#buscarTelefonos}.
+     */
+    public Mono<ResultadoBusqueda> buscarTelefonos(CriteriosBusqueda criterios, int pagina, int tamanio) {
+        return reactiveMongoTemplate.aggregate(TelefonoService.agregacionBusqueda(criterios, pagina, tamanio),
+                        Document.class)
+                .next()
+                .map(resultado -> TelefonoService.resultadoBusqueda(resultado, reactiveMongoTemplate.getConverter(),
+                        criterios, pagina, tamanio))
+                .switchIfEmpty(Mono.fromSupplier(() -> TelefonoService.resultadoBusqueda(null,
+                        reactiveMongoTemplate.getConverter(), criterios, pagina, tamanio)));
+    }
+
+    public Mono<EstadisticasTelefono> obtenerEstadisticas() {
+        return reactiveMongoTemplate.findOne(ContadoresTelefono.consulta(), Document.class, ContadoresTelefono.COLECCION)
+                .map(ContadoresTelefono::estadisticas)
+                .defaultIfEmpty(ContadoresTelefono.estadisticas(null));
+    }
+
+    /**
+     * Alta con las mismas reglas que {@link TelefonoService#guardarTelefono}: la version
+     * y la fecha de modificacion del cuerpo se descartan.
+     */
+    public Mono<Telefono> guardarTelefono(Telefono telefono) {
+        telefono.setVersion(null);
+        telefono.setFechaModificacion(TelefonoService.fechaModificacion());
+        Mono<Telefono> save = Mono.defer(() -> telefonoReactivoRepository.save(telefono));
+        Mono<Telefono> escritura = telefono.getImei() != null
+                ? conInvalidacionReservada(List.of(telefono.getImei()), save)
+                : save;
+        return escritura
+                .flatMap(guardado -> aplicarContadores(new ContadoresTelefono.Delta().sumar(guardado))
+                        .thenReturn(guardado))
+                .flatMap(guardado -> guardado.getImei() != null
+                        ? invalidarCache(guardado.getImei()).thenReturn(guardado)
+                        : Mono.just(guardado));
+    }
+
+    /**
+     * Actualizacion parcial con un solo {@code findAndModify}; mismas reglas que
+     * {@link TelefonoService#actualizarTelefono}: la version exigida es la de If-Match y la
+     * invalidacion se guarda antes de escribir con el IMEI leido por id. Emite vacio si el
+     * id no existe y {@link OptimisticLockingFailureException} si existe con otra version.
+     */
+    public Mono<Telefono> actualizarTelefono(String id, Telefono cambios, Long version) {
+        Instant fecha = TelefonoService.fechaModificacion();
+        return imeisPorId(List.of(id)).flatMap(imeis -> conInvalidacionReservada(imeis,
+                        Mono.defer(() -> reactiveMongoTemplate.findAndModify(
+                                TelefonoService.consultaActualizacion(id, version),
+                                TelefonoService.actualizacionParcial(cambios, fecha),
+                                FindAndModifyOptions.options().returnNew(false), Telefono.class)))
+                        .flatMap(anterior -> {
+                            ContadoresTelefono.Delta delta = new ContadoresTelefono.Delta().restar(anterior);
+                            Telefono actualizado = TelefonoService.aplicarCambios(anterior, cambios, fecha);
+                            return aplicarContadores(delta.sumar(actualizado)).thenReturn(actualizado);
+                        })
+                        .flatMap(actualizado -> actualizado.getImei() != null
+                                ? registrarInvalidacionNoReservada(imeis, List.of(actualizado.getImei()))
+                                        .then(invalidarCache(actualizado.getImei()))
+                                        .thenReturn(actualizado)
+                                : Mono.just(actualizado)))
+                .switchIfEmpty(Mono.defer(() -> version == null
+                        ? Mono.empty()
+                        : telefonoReactivoRepository.existsById(id)
+                                .flatMap(existe -> existe
+                                        ? Mono.error(new OptimisticLockingFailureException("El telefono " + id
+                                                + " ya no esta en la version " + version))
+                                        : Mono.empty())));
+    }
+
+    /**
+     * Elimina con un solo {@code findAndRemove}; la invalidacion se guarda antes con el
+     * IMEI leido por id. Emite {@code false} si el id no existe.
+     */
+    public Mono<Boolean> eliminarTelefono(String id) {
+        return imeisPorId(List.of(id)).flatMap(imeis -> conInvalidacionReservada(imeis,
+                        Mono.defer(() -> reactiveMongoTemplate.findAndRemove(new Query(Criteria.where("id").is(id)),
+                                Telefono.class)))
+                        .flatMap(eliminado -> aplicarContadores(new ContadoresTelefono.Delta().restar(eliminado))
+                                .thenReturn(eliminado))
+                        .flatMap(eliminado -> eliminado.getImei() != null
+                                ? registrarInvalidacionNoReservada(imeis, List.of(eliminado.getImei()))
+                                        .then(invalidarCache(eliminado.getImei()))
+                                        .thenReturn(true)
+                                : Mono.just(true)))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Misma eliminacion por lote que {@link TelefonoService#eliminarTelefonos}: los IMEIs
+     * leidos antes de borrar, un {@code findAllAndRemove}, un solo evento y un solo DEL.
+     */
+    public Mono<ResultadoEliminacion> eliminarTelefonos(Collection<String> ids) {
+        Set<String> solicitados = new LinkedHashSet<>(ids);
+        return imeisPorId(solicitados).flatMap(imeisLeidos -> conInvalidacionReservada(imeisLeidos,
+                        Mono.defer(() -> reactiveMongoTemplate.findAllAndRemove(
+                                new Query(Criteria.where("id").in(solicitados)), Telefono.class).collectList()))
+                .flatMap(eliminados -> {
+                    Set<String> idsEliminados = new HashSet<>();
+                    Set<String> imeis = new LinkedHashSet<>();
+                    ContadoresTelefono.Delta delta = new ContadoresTelefono.Delta();
+                    for (Telefono telefono : eliminados) {
+                        idsEliminados.add(telefono.getId());
+                        delta.restar(telefono);
+                        if (telefono.getImei() != null) {
+                            imeis.add(telefono.getImei());
+                        }
+                    }
+                    List<String> eliminadosOrdenados = new ArrayList<>();
+                    List<String> noEncontrados = new ArrayList<>();
+                    for (String id : solicitados) {
+                        (idsEliminados.contains(id) ? eliminadosOrdenados : noEncontrados).add(id);
+                    }
+                    Mono<Void> invalidacion = imeis.isEmpty()
+                            ? Mono.empty()
+                            : registrarInvalidacionNoReservada(imeisLeidos, imeis)
+                                    .then(Mono.defer(() -> invalidarCache(imeis)));
+                    return aplicarContadores(delta)
+                            .then(invalidacion)
+                            .thenReturn(new ResultadoEliminacion(eliminadosOrdenados, noEncontrados));
+                }));
+    }
+
+    /**
+     * Misma escritura que {@link TelefonoService#guardarTelefonosBulk}: una consulta
+     * {@code $in} por lote, una escritura bulk desordenada y los IMEIs escritos
+     * invalidados juntos. El resultado conserva el orden de la entrada.
+     */
+    public Mono<List<ResultadoBulk>> guardarTelefonosBulk(List<Telefono> telefonos, boolean upsert) {
+        return reactiveMongoTemplate.find(TelefonoService.LoteBulk.consultaExistentes(telefonos), Telefono.class)
+                .collectList()
+                .map(existentes -> new TelefonoService.LoteBulk(telefonos, existentes, upsert,
+                        TelefonoService.fechaModificacion()))
+                .flatMap(lote -> escribirLoteBulk(lote)
+                        .then(Mono.defer(() -> aplicarContadores(lote.delta())))
+                        .then(Mono.defer(() -> invalidarCache(lote.imeisEscritos())))
+                        .then(Mono.fromSupplier(lote::resultados)));
+    }
+
+    private Mono<Void> escribirLoteBulk(TelefonoService.LoteBulk lote) {
+        if (!lote.tieneOperaciones()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations operaciones = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                Telefono.class);
+        lote.agregarOperaciones(operaciones::insert, operaciones::replaceOne);
+        return conInvalidacionReservada(lote.imeisOperacion(), Mono.defer(operaciones::execute))
+                .then()
+                .onErrorResume(e -> erroresBulk(e) != null, e -> {
+                    lote.registrarErrores(erroresBulk(e));
+                    return Mono.empty();
+                });
+    }
+
+    // El driver reactivo no envuelve el error en BulkOperationException; la traduccion puede anidarlo
+    private static List<BulkWriteError> erroresBulk(Throwable error) {
+        for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+            if (causa instanceof BulkOperationException bulk) {
+                return bulk.getErrors();
+            }
+            if (causa instanceof MongoBulkWriteException bulk) {
+                return bulk.getWriteErrors();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Emite vacio si la llave no esta en Redis o si esta lectura debe refrescarla, y
+     * {@code Optional.empty()} si esta la entrada negativa del IMEI.
+     */
+    private Mono<Optional<Telefono>> leerCache(String imei, String cacheKey) {
+        return metricasTelefono.redisGet(reactiveRedisTemplate.opsForValue().get(cacheKey))
+                .<Optional<Telefono>>handle((bytes, sink) -> {
+                    if (codecCacheTelefono.esAusente(bytes)) {
+                        telefonoCacheLocal.registrarAusente(imei);
+                        metricasTelefono.aciertoCacheNegativo();
+                        sink.next(Optional.empty());
+                        return;
+                    }
+                    EntradaCacheTelefono entrada = codecCacheTelefono.decodificarEntrada(bytes);
+                    long ahora = System.currentTimeMillis();
+                    if (entrada.tieneMetadatos()) {
+                        metricasTelefono.edadEntradaCache(ahora - entrada.getCreadoEnMillis());
+                    }
+                    if (politicaCacheTelefono.debeRefrescar(entrada, ahora)) {
+                        // Esta peticion refresca la entrada antes de que expire para todas
+                        metricasTelefono.refrescoAnticipado();
+                        return;
+                    }
+                    telefonoCacheLocal.guardar(imei, entrada.getTelefono());
+                    metricasTelefono.aciertoCacheRedis();
+                    sink.next(Optional.of(entrada.getTelefono()));
+                })
+                .onErrorResume(e -> {
+                    // Si Redis falla o la entrada es invalida se responde desde Mongo
+                    metricasTelefono.errorCache();
+                    log.warn("No fue posible leer la cache del IMEI {}", imei, e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Los fallos simultaneos del mismo IMEI se suscriben a la misma consulta a Mongo,
+     * que se comparte con {@code cache()} hasta que termina.
+     */
+    private Mono<Optional<Telefono>> consultarImeiUnaVez(String imei, String cacheKey) {
+        Mono<Optional<Telefono>> consulta = consultarImei(imei, cacheKey).cache();
+        Mono<Optional<Telefono>> enCurso = consultasImeiEnCurso.putIfAbsent(imei, consulta);
+        if (enCurso != null) {
+            metricasTelefono.consultaCompartida();
+            return enCurso;
+        }
+        return consulta.doFinally(senal -> consultasImeiEnCurso.remove(imei, consulta));
+    }
+
+    private Mono<Optional<Telefono>> consultarImei(String imei, String cacheKey) {
+        return Mono.defer(() -> {
+            long inicio = System.nanoTime();
+            return telefonoReactivoRepository.findByImei(imei)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(telefono -> escribirCache(imei, cacheKey, telefono,
+                            (System.nanoTime() - inicio) / 1000));
+        });
+    }
+
+    private Mono<Optional<Telefono>> escribirCache(String imei, String cacheKey, Optional<Telefono> telefono,
+            long costoMicros) {
+        Mono<Boolean> escritura;
+        if (telefono.isPresent()) {
+            telefonoCacheLocal.guardar(imei, telefono.get());
+            Duration ttl = politicaCacheTelefono.ttlConJitter();
+            escritura = Mono.fromCallable(() -> codecCacheTelefono.codificarEntrada(new EntradaCacheTelefono(
+                            telefono.get(), System.currentTimeMillis(), ttl.toMillis(), costoMicros)))
+                    .flatMap(bytes -> metricasTelefono.redisSet(
+                            reactiveRedisTemplate.opsForValue().set(cacheKey, bytes, ttl)));
+        } else {
+            // La entrada negativa se borra con invalidarCache al crear el IMEI
+            telefonoCacheLocal.registrarAusente(imei);
+            escritura = metricasTelefono.redisSet(Mono.defer(() -> reactiveRedisTemplate.opsForValue()
+                    .set(cacheKey, codecCacheTelefono.ausente(), ttlNegativo)));
+        }
+        return escritura
+                .onErrorResume(e -> {
+                    metricasTelefono.errorCache();
+                    log.warn("No fue posible guardar en cache el IMEI {}", imei, e);
+                    return Mono.empty();
+                })
+                .thenReturn(telefono);
+    }
+
+    // Como ContadoresTelefono.aplicar: un fallo no falla la escritura del telefono
+    private Mono<Void> aplicarContadores(ContadoresTelefono.Delta delta) {
+        if (delta.vacio()) {
+            return Mono.empty();
+        }
+        return reactiveMongoTemplate.upsert(ContadoresTelefono.consulta(), delta.update(), ContadoresTelefono.COLECCION)
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("No fue posible actualizar los contadores de telefonos; los corregira la reconciliacion", e);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Outbox de la invalidacion, escrito reservado antes que el telefono y liberado al
+     * terminar la escritura, con exito o con error; lo publica {@code RelayInvalidaciones}
+     * igual que en la variante servlet.
+     */
+    private <T> Mono<T> conInvalidacionReservada(Collection<String> imeis, Mono<T> escritura) {
+        if (imeis.isEmpty()) {
+            return escritura;
+        }
+        return Mono.usingWhen(
+                Mono.defer(() -> reactiveMongoTemplate.insert(
+                        EventoInvalidacion.reservado(imeis, reservaInvalidacion))),
+                evento -> escritura,
+                this::liberarInvalidacion,
+                (evento, error) -> liberarInvalidacion(evento),
+                this::liberarInvalidacion);
+    }
+
+    // Si no se logra liberar, el relay publica el evento al vencer la reserva
+    private Mono<Void> liberarInvalidacion(EventoInvalidacion evento) {
+        Query query = new Query(Criteria.where("id").is(evento.getId()).and("reclamo").is(null));
+        return Mono.defer(() -> reactiveMongoTemplate.updateFirst(query, new Update().unset("bloqueadoHasta"),
+                        EventoInvalidacion.class))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("No fue posible liberar la invalidacion de {}; se publicara al vencer su reserva",
+                            evento.getImeis(), e);
+                    return Mono.empty();
+                });
+    }
+
+    // Mismos IMEIs por id que en TelefonoService, con una consulta que solo trae ese campo
+    private Mono<Set<String>> imeisPorId(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("imei");
+        return reactiveMongoTemplate.find(query, Telefono.class)
+                .mapNotNull(Telefono::getImei)
+                .collect(LinkedHashSet::new, Set::add);
+    }
+
+    // Solo los IMEIs escritos que no se leyeron antes; la escritura ya se hizo, sin reserva
+    private Mono<Void> registrarInvalidacionNoReservada(Set<String> reservados, Collection<String> escritos) {
+        List<String> faltantes = escritos.stream().filter(imei -> !reservados.contains(imei)).toList();
+        return faltantes.isEmpty()
+                ? Mono.empty()
+                : Mono.defer(() -> reactiveMongoTemplate.insert(EventoInvalidacion.pendiente(faltantes))).then();
+    }
+
+    private Mono<Void> invalidarCache(String imei) {
+        telefonoCacheLocal.invalidar(imei);
+        // Si Redis falla, el relay del outbox vuelve a borrar la llave al publicar el evento
+        return metricasTelefono.redisDelete(reactiveRedisTemplate.delete(TelefonoService.TELEFONO_CACHE_PREFIX + imei))
+                .onErrorResume(e -> {
+                    metricasTelefono.errorCache();
+                    log.warn("No fue posible borrar de Redis el IMEI {}; lo borrara el relay", imei, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Un solo DEL para todos los IMEIs, como en la variante servlet
+    private Mono<Void> invalidarCache(Collection<String> imeis) {
+        if (imeis.isEmpty()) {
+            return Mono.empty();
+        }
+        List<String> cacheKeys = new ArrayList<>(imeis.size());
+        for (String imei : imeis) {
+            telefonoCacheLocal.invalidar(imei);
+            cacheKeys.add(TelefonoService.TELEFONO_CACHE_PREFIX + imei);
+        }
+        return metricasTelefono.redisDelete(reactiveRedisTemplate.delete(cacheKeys.toArray(String[]::new)))
+                .onErrorResume(e -> {
+                    metricasTelefono.errorCache();
+                    log.warn("No fue posible borrar de Redis {} IMEIs; los borrara el relay", cacheKeys.size(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
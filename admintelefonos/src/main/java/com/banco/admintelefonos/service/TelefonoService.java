@@ -1,16 +1,85 @@
 package com.banco.admintelefonos.service;
 
+import com.banco.admintelefonos.component.CamposTelefono;
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.component.ContadoresTelefono;
+import com.banco.admintelefonos.component.DatabaseInitializer;
+import com.banco.admintelefonos.component.IndiceImei;
+import com.banco.admintelefonos.component.LimitadorConcurrencia;
+import com.banco.admintelefonos.component.MetricasTelefono;
+import com.banco.admintelefonos.component.PoliticaCacheTelefono;
+import com.banco.admintelefonos.component.SnapshotImei;
+import com.banco.admintelefonos.component.TelefonoCacheLocal;
+import com.banco.admintelefonos.dto.CriteriosBusqueda;
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.dto.EstadisticasTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.dto.PaginaCursor;
+import com.banco.admintelefonos.dto.ResultadoBulk;
+import com.banco.admintelefonos.dto.ResultadoBusqueda;
+import com.banco.admintelefonos.dto.ResultadoConsultaImeis;
+import com.banco.admintelefonos.dto.ResultadoEliminacion;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.banco.admintelefonos.model.EventoInvalidacion;
 import com.banco.admintelefonos.model.Telefono;
 import com.banco.admintelefonos.repository.TelefonoRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import com.mongodb.bulk.BulkWriteError;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TelefonoService {
@@ -19,74 +88,1069 @@ public class TelefonoService {
     private TelefonoRepository telefonoRepository;
 
     @Autowired
-    private RedisTemplate<String, String> redisTemplate;
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    @Autowired
+    private CodecCacheTelefono codecCacheTelefono;
+
+    @Autowired
+    private TelefonoCacheLocal telefonoCacheLocal;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private MetricasTelefono metricasTelefono;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private LimitadorConcurrencia limitadorConcurrencia;
+
+    @Autowired
+    private PoliticaCacheTelefono politicaCacheTelefono;
+
+    // Solo existe con telefono.snapshot.habilitado=true
+    @Autowired(required = false)
+    private SnapshotImei snapshotImei;
+
+    @Autowired
+    private ContadoresTelefono contadoresTelefono;
+
+    @Value("${telefono.cache.negativo.ttl:30s}")
+    private Duration ttlNegativo = Duration.ofSeconds(30);
+
+    // Cota de la escritura que sigue al evento del outbox; si el proceso cae sin liberarlo,
+    // el relay lo publica al vencer
+    @Value("${telefono.outbox.reserva:30s}")
+    private Duration reservaInvalidacion = Duration.ofSeconds(30);
+
+    private final Map<String, CompletableFuture<Optional<Telefono>>> consultasImeiEnCurso =
+            new ConcurrentHashMap<>();
 
-    private static final String TELEFONO_CACHE_PREFIX = "telefono:imei:";
-    private static final String TELEFONO_CACHE_INVALIDATION_TOPIC = "telefono-cache-invalidation";
+    private static final Logger log = LoggerFactory.getLogger(TelefonoService.class);
+
+    public static final String TELEFONO_CACHE_PREFIX = "telefono:imei:";
+
+    // Tipo del ultimo id entregado, al inicio del cursor
+    private static final String CURSOR_OBJECT_ID = "o:";
+    private static final String CURSOR_TEXTO = "s:";
+    public static final String TELEFONO_CACHE_INVALIDATION_TOPIC = "telefono-cache-invalidation";
+    public static final String SEPARADOR_IMEIS = ",";
+    private static final int CODIGO_LLAVE_DUPLICADA = 11000;
+    private static final int TAMANIO_LOTE_EXPORTACION = 1000;
+    private static final int MAXIMO_VALORES_FACETA = 20;
 
     public Page<Telefono> obtenerTelefonos(Pageable pageable) {
-        return telefonoRepository.findAll(pageable);
+        return limitadorConcurrencia.mongo(() -> telefonoRepository.findAll(pageable));
+    }
+
+    /**
+     * Pagina con solo los campos seleccionados; la proyeccion se aplica en Mongo.
+     */
+    public Page<Telefono> obtenerTelefonos(Pageable pageable, Set<String> campos) {
+        if (campos == null) {
+            return obtenerTelefonos(pageable);
+        }
+        Query query = CamposTelefono.proyectar(new Query().with(pageable), campos);
+        List<Telefono> telefonos = limitadorConcurrencia.mongo(() -> mongoTemplate.find(query, Telefono.class));
+        return PageableExecutionUtils.getPage(telefonos, pageable,
+                () -> limitadorConcurrencia.mongo(() -> mongoTemplate.count(new Query(), Telefono.class)));
+    }
+
+    /**
+     * Paginacion por cursor sobre {@code _id}: cada pagina es un rango del indice
+     * a partir del ultimo id entregado, sin skip ni count, por lo que la latencia no
+     * depende de la profundidad. Se pide un elemento extra para saber si hay siguiente.
+     * Los ids enviados por el cliente que no son ObjectId se guardan como texto y Mongo
+     * los ordena antes que los ObjectId; el cursor guarda el tipo para continuar con
+     * ambos.
+     */
+    public PaginaCursor<Telefono> obtenerTelefonosPorCursor(String cursor, int tamanio) {
+        return obtenerTelefonosPorCursor(cursor, tamanio, null);
+    }
+
+    public PaginaCursor<Telefono> obtenerTelefonosPorCursor(String cursor, int tamanio, Set<String> campos) {
+        Query query = consultaCursor(cursor, tamanio, campos);
+        return paginaCursor(limitadorConcurrencia.mongo(() -> mongoTemplate.find(query, Telefono.class)), tamanio);
+    }
+
+    /**
+     * @throws IllegalArgumentException si el cursor no es uno emitido por {@link #paginaCursor}
+     */
+    static Query consultaCursor(String cursor, int tamanio, Set<String> campos) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).limit(tamanio + 1);
+        CamposTelefono.proyectar(query, campos);
+        if (cursor != null && !cursor.isEmpty()) {
+            query.addCriteria(criterioCursor(cursor));
+        }
+        return query;
+    }
+
+    static PaginaCursor<Telefono> paginaCursor(List<Telefono> telefonos, int tamanio) {
+        boolean tieneSiguiente = telefonos.size() > tamanio;
+        if (tieneSiguiente) {
+            telefonos = telefonos.subList(0, tamanio);
+        }
+        String siguienteCursor = tieneSiguiente ? codificarCursor(telefonos.get(tamanio - 1).getId()) : null;
+        return new PaginaCursor<>(telefonos, telefonos.size(), tieneSiguiente, siguienteCursor);
+    }
+
+    /**
+     * Abre un cursor de Mongo con los telefonos del filtro. Los documentos se traen en
+     * lotes a medida que se consume el {@link Stream}, que debe cerrarse al terminar.
+     */
+    public Stream<Telefono> exportarTelefonos(String marca, LocalDateTime desde, LocalDateTime hasta) {
+        return exportarTelefonos(marca, desde, hasta, null);
+    }
+
+    public Stream<Telefono> exportarTelefonos(String marca, LocalDateTime desde, LocalDateTime hasta,
+            Set<String> campos) {
+        Query query = CamposTelefono.proyectar(consultaExportacion(marca, desde, hasta), campos);
+        return limitadorConcurrencia.mongo(() -> mongoTemplate.stream(query, Telefono.class));
+    }
+
+    /**
+     * Filtro de exportacion: marca exacta y rango semiabierto {@code [desde, hasta)} sobre
+     * fechaCreacion; lo atienden los indices {@code marca_fechaCreacion} y {@code fechaCreacion}.
+     */
+    static Query consultaExportacion(String marca, LocalDateTime desde, LocalDateTime hasta) {
+        Query query = new Query().cursorBatchSize(TAMANIO_LOTE_EXPORTACION);
+        if (marca != null && !marca.isEmpty()) {
+            query.addCriteria(Criteria.where("marca").is(marca));
+        }
+        if (desde != null || hasta != null) {
+            Criteria fecha = Criteria.where("fechaCreacion");
+            if (desde != null) {
+                fecha.gte(desde);
+            }
+            if (hasta != null) {
+                fecha.lt(hasta);
+            }
+            query.addCriteria(fecha);
+        }
+        return query;
+    }
+
+    /**
+     * Busqueda con una sola agregacion: el {@code $match} inicial usa el indice de texto o
+     * un indice compuesto y el {@code $facet} saca de las mismas coincidencias la pagina,
+     * el total y los conteos por faceta.
+     */
+    public ResultadoBusqueda buscarTelefonos(CriteriosBusqueda criterios, int pagina, int tamanio) {
+        TypedAggregation<Telefono> agregacion = agregacionBusqueda(criterios, pagina, tamanio);
+        Document resultado = limitadorConcurrencia.mongo(
+                () -> mongoTemplate.aggregate(agregacion, Document.class).getUniqueMappedResult());
+        return resultadoBusqueda(resultado, mongoTemplate.getConverter(), criterios, pagina, tamanio);
+    }
+
+    /**
+     * Los prefijos y el rango de fechaCreacion van en un solo {@code $match}; con {@code q}
+     * el {@code $text} va antes, como exige Mongo, y las dos etapas se fusionan. Los
+     * prefijos sin metacaracteres de regex son los que Mongo convierte en limites del indice
+     * ({@code marca_modelo_fechaCreacion}, {@code modelo_fechaCreacion}, etc.).
+     * <p>
+     * El orden se aplica dentro de la rama de resultados, junto al skip y el limit, para
+     * que Mongo solo conserve los primeros {@code (pagina + 1) * tamanio} documentos.
+     */
+    public static TypedAggregation<Telefono> agregacionBusqueda(CriteriosBusqueda criterios, int pagina,
+            int tamanio) {
+        List<AggregationOperation> etapas = new ArrayList<>();
+        boolean conTexto = StringUtils.hasText(criterios.getQ());
+        if (conTexto) {
+            etapas.add(Aggregation.match(TextCriteria.forDefaultLanguage().matching(criterios.getQ().trim())));
+        }
+        List<Criteria> filtros = new ArrayList<>();
+        agregarPrefijo(filtros, "nombre", criterios.getNombre());
+        agregarPrefijo(filtros, "marca", criterios.getMarca());
+        agregarPrefijo(filtros, "modelo", criterios.getModelo());
+        agregarPrefijo(filtros, "nombreCorto", criterios.getNombreCorto());
+        if (criterios.getDesde() != null || criterios.getHasta() != null) {
+            Criteria fecha = Criteria.where("fechaCreacion");
+            if (criterios.getDesde() != null) {
+                fecha.gte(criterios.getDesde());
+            }
+            if (criterios.getHasta() != null) {
+                fecha.lt(criterios.getHasta());
+            }
+            filtros.add(fecha);
+        }
+        if (filtros.size() == 1) {
+            etapas.add(Aggregation.match(filtros.get(0)));
+        } else if (!filtros.isEmpty()) {
+            etapas.add(Aggregation.match(new Criteria().andOperator(filtros)));
+        }
+        if (conTexto) {
+            // El puntaje se fija antes del $facet para ordenar por el dentro de la rama
+            etapas.add(contexto -> new Document("$addFields",
+                    new Document("puntaje", new Document("$meta", "textScore"))));
+        }
+
+        Document orden = conTexto ? new Document("puntaje", -1) : new Document();
+        orden.append("fechaCreacion", -1).append("_id", -1);
+        FacetOperation facetas = Aggregation.facet(contexto -> new Document("$sort", orden),
+                        Aggregation.skip((long) pagina * tamanio), Aggregation.limit(tamanio))
+                .as("resultados")
+                .and(Aggregation.count().as("n")).as("total");
+        if (criterios.getFacetas() != null) {
+            for (String faceta : criterios.getFacetas()) {
+                facetas = facetas.and(Aggregation.sortByCount(faceta), Aggregation.limit(MAXIMO_VALORES_FACETA))
+                        .as(faceta);
+            }
+        }
+        etapas.add(facetas);
+        return Aggregation.newAggregation(Telefono.class, etapas);
+    }
+
+    // Prefijo anclado con los metacaracteres escapados: sigue siendo un prefijo simple para Mongo
+    private static void agregarPrefijo(List<Criteria> filtros, String campo, String prefijo) {
+        if (!StringUtils.hasText(prefijo)) {
+            return;
+        }
+        StringBuilder regex = new StringBuilder("^");
+        for (char caracter : prefijo.trim().toCharArray()) {
+            if (!Character.isLetterOrDigit(caracter) && caracter != ' ') {
+                regex.append('\\');
+            }
+            regex.append(caracter);
+        }
+        filtros.add(Criteria.where(campo).regex(regex.toString()));
+    }
+
+    static ResultadoBusqueda resultadoBusqueda(Document resultado, MongoConverter converter,
+            CriteriosBusqueda criterios, int pagina, int tamanio) {
+        List<Telefono> contenido = new ArrayList<>();
+        long total = 0;
+        Map<String, List<ResultadoBusqueda.ConteoFaceta>> facetas = new LinkedHashMap<>();
+        if (resultado != null) {
+            for (Document documento : resultado.getList("resultados", Document.class)) {
+                contenido.add(converter.read(Telefono.class, documento));
+            }
+            List<Document> conteo = resultado.getList("total", Document.class);
+            total = conteo.isEmpty() ? 0 : ((Number) conteo.get(0).get("n")).longValue();
+        }
+        if (criterios.getFacetas() != null) {
+            for (String faceta : criterios.getFacetas()) {
+                List<ResultadoBusqueda.ConteoFaceta> valores = new ArrayList<>();
+                if (resultado != null) {
+                    for (Document valor : resultado.getList(faceta, Document.class)) {
+                        valores.add(new ResultadoBusqueda.ConteoFaceta(valor.get("_id"),
+                                ((Number) valor.get("count")).longValue()));
+                    }
+                }
+                facetas.put(faceta, valores);
+            }
+        }
+        return new ResultadoBusqueda(contenido, total, pagina, tamanio, facetas);
     }
 
     public Optional<Telefono> obtenerTelefonoPorId(String id) {
-        return telefonoRepository.findById(id);
+        return limitadorConcurrencia.mongo(() -> telefonoRepository.findById(id));
     }
 
     public Optional<Telefono> obtenerTelefonoPorImei(String imei) {
+        long clave = claveSnapshot(imei);
+        if (clave != IndiceImei.SIN_CLAVE) {
+            metricasTelefono.aciertoSnapshot();
+            return Optional.ofNullable(snapshotImei.obtener(clave));
+        }
+
+        Telefono telefonoLocal = telefonoCacheLocal.obtener(imei);
+        if (telefonoLocal != null) {
+            metricasTelefono.aciertoCacheLocal();
+            return Optional.of(telefonoLocal);
+        }
+        if (telefonoCacheLocal.estaAusente(imei)) {
+            metricasTelefono.aciertoCacheNegativo();
+            return Optional.empty();
+        }
+
         String cacheKey = TELEFONO_CACHE_PREFIX + imei;
-        String cachedTelefonoJson = redisTemplate.opsForValue().get(cacheKey);
+        try {
+            byte[] cachedTelefonoBytes = metricasTelefono.redisGet(
+                    () -> limitadorConcurrencia.redis(() -> redisTemplate.opsForValue().get(cacheKey)));
+            if (cachedTelefonoBytes != null) {
+                if (codecCacheTelefono.esAusente(cachedTelefonoBytes)) {
+                    telefonoCacheLocal.registrarAusente(imei);
+                    metricasTelefono.aciertoCacheNegativo();
+                    return Optional.empty();
+                }
+                EntradaCacheTelefono entrada = codecCacheTelefono.decodificarEntrada(cachedTelefonoBytes);
+                long ahora = System.currentTimeMillis();
+                if (entrada.tieneMetadatos()) {
+                    metricasTelefono.edadEntradaCache(ahora - entrada.getCreadoEnMillis());
+                }
+                if (!politicaCacheTelefono.debeRefrescar(entrada, ahora)) {
+                    telefonoCacheLocal.guardar(imei, entrada.getTelefono());
+                    metricasTelefono.aciertoCacheRedis();
+                    return Optional.of(entrada.getTelefono());
+                }
+                // Esta peticion refresca la entrada antes de que expire para todas
+                metricasTelefono.refrescoAnticipado();
+            }
+        } catch (Exception e) {
+            // Si Redis falla o la entrada es invalida se responde desde Mongo
+            metricasTelefono.errorCache();
+            log.warn("No fue posible leer la cache del IMEI {}", imei, e);
+        }
+
+        metricasTelefono.falloCache();
+        return consultarImeiUnaVez(imei, cacheKey);
+    }
+
+    /**
+     * Validadores del telefono sin leer el documento: del snapshot, de la cache local o
+     * de la entrada binaria de Redis sin decodificarla. Null si no estan en ninguno; la
+     * peticion condicional sigue entonces por {@link #obtenerTelefonoPorImei}.
+     */
+    public MetadatosTelefono obtenerMetadatosPorImei(String imei) {
+        long clave = claveSnapshot(imei);
+        if (clave != IndiceImei.SIN_CLAVE) {
+            Telefono telefono = snapshotImei.obtener(clave);
+            return telefono != null ? MetadatosTelefono.de(telefono) : null;
+        }
+        Telefono telefonoLocal = telefonoCacheLocal.obtener(imei);
+        if (telefonoLocal != null) {
+            return MetadatosTelefono.de(telefonoLocal);
+        }
+        if (telefonoCacheLocal.estaAusente(imei)) {
+            return null;
+        }
+        try {
+            byte[] cachedTelefonoBytes = metricasTelefono.redisGet(() -> limitadorConcurrencia
+                    .redis(() -> redisTemplate.opsForValue().get(TELEFONO_CACHE_PREFIX + imei)));
+            return cachedTelefonoBytes != null ? codecCacheTelefono.leerMetadatos(cachedTelefonoBytes) : null;
+        } catch (Exception e) {
+            metricasTelefono.errorCache();
+            log.warn("No fue posible leer los metadatos en cache del IMEI {}", imei, e);
+            return null;
+        }
+    }
+
+    /**
+     * Validadores por id con una consulta que solo trae {@code _id}, version y fecha de
+     * modificacion. Null si el id no existe.
+     */
+    public MetadatosTelefono obtenerMetadatosPorId(String id) {
+        Telefono telefono = limitadorConcurrencia.mongo(
+                () -> mongoTemplate.findOne(consultaMetadatos(id), Telefono.class));
+        return telefono != null ? MetadatosTelefono.de(telefono) : null;
+    }
+
+    static Query consultaMetadatos(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include("version").include("fechaModificacion");
+        return query;
+    }
+
+    // Con el snapshot cargado los IMEIs de 15 digitos se responden sin salir del proceso
+    private long claveSnapshot(String imei) {
+        return snapshotImei != null ? snapshotImei.clave(imei) : IndiceImei.SIN_CLAVE;
+    }
 
-        if (cachedTelefonoJson != null) {
+    /**
+     * Las peticiones simultaneas que fallan la cache para el mismo IMEI esperan la
+     * consulta de la primera en lugar de lanzar la suya, asi N fallos cuestan una
+     * sola consulta a Mongo.
+     */
+    private Optional<Telefono> consultarImeiUnaVez(String imei, String cacheKey) {
+        CompletableFuture<Optional<Telefono>> consulta = new CompletableFuture<>();
+        CompletableFuture<Optional<Telefono>> enCurso = consultasImeiEnCurso.putIfAbsent(imei, consulta);
+        if (enCurso != null) {
+            metricasTelefono.consultaCompartida();
             try {
-                Telefono cachedTelefono = objectMapper.readValue(cachedTelefonoJson, Telefono.class);
-                return Optional.of(cachedTelefono);
-            } catch (Exception e) {
-                // Manejar la excepción si falla la deserialización
-                e.printStackTrace();
+                return enCurso.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException causa ? causa : e;
+            }
+        }
+
+        try {
+            Optional<Telefono> telefono = consultarImei(imei, cacheKey);
+            consulta.complete(telefono);
+            return telefono;
+        } catch (RuntimeException e) {
+            consulta.completeExceptionally(e);
+            throw e;
+        } finally {
+            consultasImeiEnCurso.remove(imei, consulta);
+        }
+    }
+
+    private Optional<Telefono> consultarImei(String imei, String cacheKey) {
+        long inicio = System.nanoTime();
+        Optional<Telefono> telefono = limitadorConcurrencia.mongo(() -> telefonoRepository.findByImei(imei));
+        long costoMicros = (System.nanoTime() - inicio) / 1000;
+        try {
+            if (telefono.isPresent()) {
+                Duration ttl = politicaCacheTelefono.ttlConJitter();
+                byte[] telefonoBytes = codecCacheTelefono.codificarEntrada(new EntradaCacheTelefono(
+                        telefono.get(), System.currentTimeMillis(), ttl.toMillis(), costoMicros));
+                metricasTelefono.redisSet(() -> limitadorConcurrencia
+                        .redis(() -> redisTemplate.opsForValue().set(cacheKey, telefonoBytes, ttl)));
+            } else {
+                // La entrada negativa se borra con invalidarCache al crear el IMEI
+                metricasTelefono.redisSet(() -> limitadorConcurrencia.redis(
+                        () -> redisTemplate.opsForValue().set(cacheKey, codecCacheTelefono.ausente(), ttlNegativo)));
+            }
+        } catch (Exception e) {
+            metricasTelefono.errorCache();
+            log.warn("No fue posible guardar en cache el IMEI {}", imei, e);
+        }
+
+        if (telefono.isPresent()) {
+            telefonoCacheLocal.guardar(imei, telefono.get());
+        } else {
+            telefonoCacheLocal.registrarAusente(imei);
+        }
+        return telefono;
+    }
+
+    /**
+     * Resuelve una lista de IMEIs con un solo viaje por nivel: la cache local, un
+     * {@code MGET} en Redis, una consulta {@code $in} en Mongo para los que faltan y un
+     * pipeline que escribe en Redis lo que se leyo de Mongo, incluidas las entradas
+     * negativas. Los IMEIs repetidos se consultan una vez y el resultado conserva el
+     * orden de la entrada.
+     */
+    public ResultadoConsultaImeis obtenerTelefonosPorImei(Collection<String> imeis) {
+        Map<String, Telefono> encontrados = new HashMap<>();
+        Set<String> ausentes = new HashSet<>();
+        List<String> pendientes = new ArrayList<>();
+        Set<String> solicitados = new LinkedHashSet<>(imeis);
+        for (String imei : solicitados) {
+            long clave = claveSnapshot(imei);
+            if (clave != IndiceImei.SIN_CLAVE) {
+                metricasTelefono.aciertoSnapshot();
+                Telefono telefono = snapshotImei.obtener(clave);
+                if (telefono != null) {
+                    encontrados.put(imei, telefono);
+                } else {
+                    ausentes.add(imei);
+                }
+                continue;
+            }
+            Telefono telefonoLocal = telefonoCacheLocal.obtener(imei);
+            if (telefonoLocal != null) {
+                metricasTelefono.aciertoCacheLocal();
+                encontrados.put(imei, telefonoLocal);
+            } else if (telefonoCacheLocal.estaAusente(imei)) {
+                metricasTelefono.aciertoCacheNegativo();
+                ausentes.add(imei);
+            } else {
+                pendientes.add(imei);
+            }
+        }
+
+        List<String> faltantes = leerCacheLote(pendientes, encontrados, ausentes);
+        if (!faltantes.isEmpty()) {
+            long inicio = System.nanoTime();
+            List<Telefono> telefonos = limitadorConcurrencia.mongo(() -> telefonoRepository.findByImeiIn(faltantes));
+            long costoMicros = (System.nanoTime() - inicio) / 1000 / faltantes.size();
+            for (Telefono telefono : telefonos) {
+                encontrados.put(telefono.getImei(), telefono);
+                telefonoCacheLocal.guardar(telefono.getImei(), telefono);
+            }
+            for (String imei : faltantes) {
+                if (!encontrados.containsKey(imei)) {
+                    ausentes.add(imei);
+                    telefonoCacheLocal.registrarAusente(imei);
+                }
+            }
+            escribirCacheLote(faltantes, encontrados, costoMicros);
+        }
+
+        Map<String, Telefono> encontradosOrdenados = new LinkedHashMap<>();
+        List<String> noEncontrados = new ArrayList<>();
+        for (String imei : solicitados) {
+            if (encontrados.containsKey(imei)) {
+                encontradosOrdenados.put(imei, encontrados.get(imei));
+            } else {
+                noEncontrados.add(imei);
             }
         }
+        return new ResultadoConsultaImeis(encontradosOrdenados, noEncontrados);
+    }
 
-        Optional<Telefono> telefono = telefonoRepository.findByImei(imei);
-        telefono.ifPresent(t -> {
+    /**
+     * Lee los IMEIs pendientes con un solo {@code MGET} y devuelve los que hay que buscar
+     * en Mongo: los que no estan en Redis, los que tocan refresco anticipado y todos si
+     * Redis falla.
+     */
+    private List<String> leerCacheLote(List<String> pendientes, Map<String, Telefono> encontrados,
+            Set<String> ausentes) {
+        if (pendientes.isEmpty()) {
+            return pendientes;
+        }
+        List<String> cacheKeys = new ArrayList<>(pendientes.size());
+        for (String imei : pendientes) {
+            cacheKeys.add(TELEFONO_CACHE_PREFIX + imei);
+        }
+        List<byte[]> valores;
+        try {
+            valores = metricasTelefono.redisGet(
+                    () -> limitadorConcurrencia.redis(() -> redisTemplate.opsForValue().multiGet(cacheKeys)));
+        } catch (Exception e) {
+            metricasTelefono.errorCache();
+            log.warn("No fue posible leer la cache de {} IMEIs", pendientes.size(), e);
+            valores = null;
+        }
+
+        List<String> faltantes = new ArrayList<>();
+        long ahora = System.currentTimeMillis();
+        for (int i = 0; i < pendientes.size(); i++) {
+            String imei = pendientes.get(i);
+            byte[] bytes = valores != null ? valores.get(i) : null;
+            if (bytes == null) {
+                metricasTelefono.falloCache();
+                faltantes.add(imei);
+                continue;
+            }
             try {
-                String telefonoJson = objectMapper.writeValueAsString(t);
-                redisTemplate.opsForValue().set(cacheKey, telefonoJson);
+                if (codecCacheTelefono.esAusente(bytes)) {
+                    telefonoCacheLocal.registrarAusente(imei);
+                    metricasTelefono.aciertoCacheNegativo();
+                    ausentes.add(imei);
+                    continue;
+                }
+                EntradaCacheTelefono entrada = codecCacheTelefono.decodificarEntrada(bytes);
+                if (entrada.tieneMetadatos()) {
+                    metricasTelefono.edadEntradaCache(ahora - entrada.getCreadoEnMillis());
+                }
+                if (politicaCacheTelefono.debeRefrescar(entrada, ahora)) {
+                    metricasTelefono.refrescoAnticipado();
+                    faltantes.add(imei);
+                    continue;
+                }
+                telefonoCacheLocal.guardar(imei, entrada.getTelefono());
+                metricasTelefono.aciertoCacheRedis();
+                encontrados.put(imei, entrada.getTelefono());
             } catch (Exception e) {
-                e.printStackTrace();
+                metricasTelefono.errorCache();
+                log.warn("Entrada de cache invalida para el IMEI {}", imei, e);
+                faltantes.add(imei);
             }
-        });
+        }
+        return faltantes;
+    }
 
-        return telefono;
+    private void escribirCacheLote(List<String> imeis, Map<String, Telefono> encontrados, long costoMicros) {
+        long ahora = System.currentTimeMillis();
+        try {
+            metricasTelefono.redisSet(() -> limitadorConcurrencia.redis(() -> {
+                redisTemplate.executePipelined((RedisCallback<Object>) conexion -> {
+                    for (String imei : imeis) {
+                        byte[] cacheKey = (TELEFONO_CACHE_PREFIX + imei).getBytes(StandardCharsets.UTF_8);
+                        Telefono telefono = encontrados.get(imei);
+                        if (telefono != null) {
+                            Duration ttl = politicaCacheTelefono.ttlConJitter();
+                            byte[] telefonoBytes = codecCacheTelefono.codificarEntrada(
+                                    new EntradaCacheTelefono(telefono, ahora, ttl.toMillis(), costoMicros));
+                            conexion.stringCommands().set(cacheKey, telefonoBytes, Expiration.from(ttl),
+                                    SetOption.UPSERT);
+                        } else {
+                            conexion.stringCommands().set(cacheKey, codecCacheTelefono.ausente(),
+                                    Expiration.from(ttlNegativo), SetOption.UPSERT);
+                        }
+                    }
+                    return null;
+                });
+            }));
+        } catch (Exception e) {
+            metricasTelefono.errorCache();
+            log.warn("No fue posible guardar en cache {} IMEIs", imeis.size(), e);
+        }
     }
 
+    /**
+     * Estadisticas del inventario leidas del documento de contadores, sin recorrer la coleccion.
+     */
+    public EstadisticasTelefono obtenerEstadisticas() {
+        return limitadorConcurrencia.mongo(contadoresTelefono::obtener);
+    }
+
+    /**
+     * Alta de un telefono. La version y la fecha de modificacion las asigna el servicio:
+     * sin version el save es siempre una insercion, aunque el cuerpo trajera una.
+     */
     public Telefono guardarTelefono(Telefono telefono) {
-        Telefono telefonoGuardado = telefonoRepository.save(telefono);
+        EventoInvalidacion evento = telefono.getImei() != null
+                ? reservarInvalidacion(List.of(telefono.getImei()))
+                : null;
+        telefono.setVersion(null);
+        telefono.setFechaModificacion(fechaModificacion());
+        Telefono telefonoGuardado;
+        try {
+            telefonoGuardado = limitadorConcurrencia.mongo(() -> telefonoRepository.save(telefono));
+        } finally {
+            liberarInvalidacion(evento);
+        }
+        if (telefonoGuardado != null) {
+            contadoresTelefono.aplicar(new ContadoresTelefono.Delta().sumar(telefonoGuardado));
+        }
         if (telefonoGuardado != null && telefonoGuardado.getImei() != null) {
             invalidarCache(telefonoGuardado.getImei());
-            System.out.println("Se debe de probar la conexion a redis");
         }
         return telefonoGuardado;
     }
 
-    public void eliminarTelefono(String id) {
-        Optional<Telefono> telefono = telefonoRepository.findById(id);
-        telefono.ifPresent(t -> {
-            if (t.getImei() != null) {
-                invalidarCache(t.getImei());
+    /**
+     * Actualizacion parcial en una sola llamada: {@code findAndModify} con {@code $set} de
+     * los campos no nulos de {@code cambios} e incremento de la version. Devuelve el documento
+     * anterior, del que salen el delta de los contadores y, aplicando los mismos cambios, el
+     * documento actualizado. Con {@code version} (la de If-Match) solo se aplica sobre esa
+     * version; si el documento existe con otra se lanza
+     * {@link OptimisticLockingFailureException}. La version de {@code cambios} se ignora.
+     * Vacio si el id no existe.
+     */
+    public Optional<Telefono> actualizarTelefono(String id, Telefono cambios, Long version) {
+        Query query = consultaActualizacion(id, version);
+        Instant fecha = fechaModificacion();
+        Update update = actualizacionParcial(cambios, fecha);
+        // El IMEI no cambia con la actualizacion: se lee antes para guardar la invalidacion
+        // antes de escribir, como en el alta
+        Set<String> imeis = imeisPorId(List.of(id));
+        EventoInvalidacion evento = imeis.isEmpty() ? null : reservarInvalidacion(imeis);
+        Telefono anterior;
+        try {
+            anterior = limitadorConcurrencia.mongo(() -> mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(false), Telefono.class));
+        } finally {
+            liberarInvalidacion(evento);
+        }
+        if (anterior == null) {
+            if (version != null && limitadorConcurrencia.mongo(() -> telefonoRepository.existsById(id))) {
+                throw new OptimisticLockingFailureException("El telefono " + id + " ya no esta en la version "
+                        + version);
+            }
+            return Optional.empty();
+        }
+        ContadoresTelefono.Delta delta = new ContadoresTelefono.Delta().restar(anterior);
+        Telefono actualizado = aplicarCambios(anterior, cambios, fecha);
+        contadoresTelefono.aplicar(delta.sumar(actualizado));
+        if (actualizado.getImei() != null) {
+            registrarInvalidacionNoReservada(imeis, List.of(actualizado.getImei()));
+            invalidarCache(actualizado.getImei());
+        }
+        return Optional.of(actualizado);
+    }
+
+    static Query consultaActualizacion(String id, Long version) {
+        Query query = new Query(Criteria.where("id").is(id));
+        if (version != null) {
+            query.addCriteria(Criteria.where("version").is(version));
+        }
+        return query;
+    }
+
+    /**
+     * {@code $set} de los campos editables presentes; el IMEI y el id no se modifican.
+     */
+    static Update actualizacionParcial(Telefono cambios, Instant fechaModificacion) {
+        Update update = new Update();
+        establecerSiPresente(update, "nombre", cambios.getNombre());
+        establecerSiPresente(update, "marca", cambios.getMarca());
+        establecerSiPresente(update, "modelo", cambios.getModelo());
+        establecerSiPresente(update, "nombreCorto", cambios.getNombreCorto());
+        establecerSiPresente(update, "fechaCreacion", cambios.getFechaCreacion());
+        establecerSiPresente(update, "numeroCelular", cambios.getNumeroCelular());
+        establecerSiPresente(update, "emailSoporte", cambios.getEmailSoporte());
+        establecerSiPresente(update, "tieneSistemaIOS", cambios.getTieneSistemaIOS());
+        return update.set("fechaModificacion", fechaModificacion).inc("version", 1);
+    }
+
+    /**
+     * Lo mismo que {@link #actualizacionParcial} sobre el documento anterior devuelto por
+     * {@code findAndModify}; modifica y devuelve {@code anterior}.
+     */
+    static Telefono aplicarCambios(Telefono anterior, Telefono cambios, Instant fechaModificacion) {
+        if (cambios.getNombre() != null) {
+            anterior.setNombre(cambios.getNombre());
+        }
+        if (cambios.getMarca() != null) {
+            anterior.setMarca(cambios.getMarca());
+        }
+        if (cambios.getModelo() != null) {
+            anterior.setModelo(cambios.getModelo());
+        }
+        if (cambios.getNombreCorto() != null) {
+            anterior.setNombreCorto(cambios.getNombreCorto());
+        }
+        if (cambios.getFechaCreacion() != null) {
+            anterior.setFechaCreacion(cambios.getFechaCreacion());
+        }
+        if (cambios.getNumeroCelular() != null) {
+            anterior.setNumeroCelular(cambios.getNumeroCelular());
+        }
+        if (cambios.getEmailSoporte() != null) {
+            anterior.setEmailSoporte(cambios.getEmailSoporte());
+        }
+        if (cambios.getTieneSistemaIOS() != null) {
+            anterior.setTieneSistemaIOS(cambios.getTieneSistemaIOS());
+        }
+        anterior.setFechaModificacion(fechaModificacion);
+        anterior.setVersion(anterior.getVersion() != null ? anterior.getVersion() + 1 : 1L);
+        return anterior;
+    }
+
+    // Mongo guarda milisegundos: truncar aqui hace que el documento devuelto y el leido coincidan
+    static Instant fechaModificacion() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static void establecerSiPresente(Update update, String campo, Object valor) {
+        if (valor != null) {
+            update.set(campo, valor);
+        }
+    }
+
+    /**
+     * Guarda un lote de telefonos ya validados con una sola escritura bulk desordenada.
+     * La unicidad del IMEI se revisa con una consulta {@code $in} por lote y los IMEIs
+     * escritos se invalidan juntos. Con {@code upsert} los IMEIs existentes se reemplazan
+     * en lugar de rechazarse. El resultado conserva el orden de la entrada.
+     */
+    public List<ResultadoBulk> guardarTelefonosBulk(List<Telefono> telefonos, boolean upsert) {
+        Query consultaExistentes = LoteBulk.consultaExistentes(telefonos);
+        List<Telefono> existentes = limitadorConcurrencia.mongo(
+                () -> mongoTemplate.find(consultaExistentes, Telefono.class));
+        LoteBulk lote = new LoteBulk(telefonos, existentes, upsert, fechaModificacion());
+
+        BulkOperations operaciones = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Telefono.class);
+        if (lote.tieneOperaciones()) {
+            lote.agregarOperaciones(operaciones::insert, operaciones::replaceOne);
+            EventoInvalidacion evento = reservarInvalidacion(lote.imeisOperacion());
+            try {
+                limitadorConcurrencia.mongo(operaciones::execute);
+            } catch (BulkOperationException e) {
+                lote.registrarErrores(e.getErrors());
+            } finally {
+                liberarInvalidacion(evento);
+            }
+        }
+
+        contadoresTelefono.aplicar(lote.delta());
+        invalidarCache(lote.imeisEscritos());
+        return lote.resultados();
+    }
+
+    /**
+     * Error de una llave duplicada segun el indice que la rechazo: el unico de IMEI o, con
+     * un id enviado por el cliente, el de {@code _id}.
+     */
+    public static ErrorCode errorLlaveDuplicada(String mensaje) {
+        return mensaje != null && mensaje.contains(DatabaseInitializer.INDICE_IMEI) ? ErrorCode.IMEI_YA_EXISTE
+                : ErrorCode.ID_YA_EXISTE;
+    }
+
+    /**
+     * Elimina con un solo {@code findAndRemove}, que devuelve el documento borrado: su
+     * presencia indica si el id existia. La invalidacion se guarda antes con el IMEI leido
+     * por id.
+     */
+    public Optional<Telefono> eliminarTelefono(String id) {
+        Set<String> imeis = imeisPorId(List.of(id));
+        EventoInvalidacion evento = imeis.isEmpty() ? null : reservarInvalidacion(imeis);
+        Telefono eliminado;
+        try {
+            eliminado = limitadorConcurrencia.mongo(
+                    () -> mongoTemplate.findAndRemove(new Query(Criteria.where("id").is(id)), Telefono.class));
+        } finally {
+            liberarInvalidacion(evento);
+        }
+        if (eliminado != null) {
+            contadoresTelefono.aplicar(new ContadoresTelefono.Delta().restar(eliminado));
+        }
+        if (eliminado != null && eliminado.getImei() != null) {
+            registrarInvalidacionNoReservada(imeis, List.of(eliminado.getImei()));
+            invalidarCache(eliminado.getImei());
+        }
+        return Optional.ofNullable(eliminado);
+    }
+
+    /**
+     * Elimina varios ids con {@code findAllAndRemove} y devuelve los documentos borrados.
+     * Sus IMEIs, leidos antes de borrar, se invalidan juntos con un solo evento y un solo DEL.
+     */
+    public ResultadoEliminacion eliminarTelefonos(Collection<String> ids) {
+        Set<String> solicitados = new LinkedHashSet<>(ids);
+        Set<String> imeisLeidos = imeisPorId(solicitados);
+        EventoInvalidacion evento = imeisLeidos.isEmpty() ? null : reservarInvalidacion(imeisLeidos);
+        List<Telefono> eliminados;
+        try {
+            eliminados = limitadorConcurrencia.mongo(() -> mongoTemplate.findAllAndRemove(
+                    new Query(Criteria.where("id").in(solicitados)), Telefono.class));
+        } finally {
+            liberarInvalidacion(evento);
+        }
+
+        Set<String> idsEliminados = new HashSet<>();
+        Set<String> imeis = new LinkedHashSet<>();
+        ContadoresTelefono.Delta delta = new ContadoresTelefono.Delta();
+        for (Telefono telefono : eliminados) {
+            idsEliminados.add(telefono.getId());
+            delta.restar(telefono);
+            if (telefono.getImei() != null) {
+                imeis.add(telefono.getImei());
+            }
+        }
+        contadoresTelefono.aplicar(delta);
+        if (!imeis.isEmpty()) {
+            registrarInvalidacionNoReservada(imeisLeidos, imeis);
+            invalidarCache(imeis);
+        }
+
+        List<String> eliminadosOrdenados = new ArrayList<>();
+        List<String> noEncontrados = new ArrayList<>();
+        for (String id : solicitados) {
+            (idsEliminados.contains(id) ? eliminadosOrdenados : noEncontrados).add(id);
+        }
+        return new ResultadoEliminacion(eliminadosOrdenados, noEncontrados);
+    }
+
+    /**
+     * Guarda en el outbox la invalidacion de los IMEIs antes de escribirlos.
+     * {@code RelayInvalidaciones} la publica en el topico para las demas instancias, asi
+     * la escritura no espera a Kafka y la invalidacion no se pierde si el proceso cae.
+     * El evento queda reservado hasta {@link #liberarInvalidacion}: publicado antes de
+     * que la escritura termine, las demas instancias recargarian el documento anterior.
+     */
+    private EventoInvalidacion reservarInvalidacion(Collection<String> imeis) {
+        EventoInvalidacion evento = EventoInvalidacion.reservado(imeis, reservaInvalidacion);
+        limitadorConcurrencia.mongo(() -> mongoTemplate.insert(evento));
+        return evento;
+    }
+
+    /**
+     * Quita la reserva para que el relay publique el evento en su siguiente ciclo, haya
+     * fallado o no la escritura. Si no se logra, el relay lo publica al vencer la reserva.
+     */
+    private void liberarInvalidacion(EventoInvalidacion evento) {
+        if (evento == null) {
+            return;
+        }
+        Query query = new Query(Criteria.where("id").is(evento.getId()).and("reclamo").is(null));
+        try {
+            limitadorConcurrencia.mongo(() -> mongoTemplate.updateFirst(query, new Update().unset("bloqueadoHasta"),
+                    EventoInvalidacion.class));
+        } catch (RuntimeException e) {
+            log.warn("No fue posible liberar la invalidacion de {}; se publicara al vencer su reserva",
+                    evento.getImeis(), e);
+        }
+    }
+
+    /**
+     * IMEIs de los ids que existen, con una consulta que solo trae ese campo. Sirven para
+     * guardar la invalidacion antes de modificar o borrar por id, ya que el IMEI no cambia.
+     */
+    private Set<String> imeisPorId(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("imei");
+        Set<String> imeis = new LinkedHashSet<>();
+        for (Telefono telefono : limitadorConcurrencia.mongo(() -> mongoTemplate.find(query, Telefono.class))) {
+            if (telefono.getImei() != null) {
+                imeis.add(telefono.getImei());
             }
-        });
-        telefonoRepository.deleteById(id);
+        }
+        return imeis;
+    }
+
+    /**
+     * Invalidacion de los IMEIs escritos que no se leyeron antes, porque el documento se
+     * creo o reemplazo entre la lectura y la escritura. Sin reserva: la escritura ya se hizo.
+     */
+    private void registrarInvalidacionNoReservada(Set<String> reservados, Collection<String> escritos) {
+        List<String> faltantes = new ArrayList<>();
+        for (String imei : escritos) {
+            if (!reservados.contains(imei)) {
+                faltantes.add(imei);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            EventoInvalidacion evento = EventoInvalidacion.pendiente(faltantes);
+            limitadorConcurrencia.mongo(() -> mongoTemplate.insert(evento));
+        }
     }
 
     private void invalidarCache(String imei) {
-        String cacheKey = TELEFONO_CACHE_PREFIX + imei;
-        redisTemplate.delete(cacheKey);
-        kafkaTemplate.send(TELEFONO_CACHE_INVALIDATION_TOPIC, imei);
+        invalidarCache(List.of(imei));
+    }
+
+    /**
+     * Invalida la cache local y Redis de esta instancia. Si Redis falla no se propaga el
+     * error: el relay del outbox vuelve a borrar las llaves al publicar el evento.
+     */
+    private void invalidarCache(Collection<String> imeis) {
+        if (imeis.isEmpty()) {
+            return;
+        }
+        List<String> cacheKeys = new ArrayList<>(imeis.size());
+        for (String imei : imeis) {
+            telefonoCacheLocal.invalidar(imei);
+            cacheKeys.add(TELEFONO_CACHE_PREFIX + imei);
+        }
+        try {
+            metricasTelefono.redisDelete(() -> limitadorConcurrencia.redis(() -> redisTemplate.delete(cacheKeys)));
+        } catch (Exception e) {
+            metricasTelefono.errorCache();
+            log.warn("No fue posible borrar de Redis {} IMEIs; los borrara el relay", cacheKeys.size(), e);
+        }
+    }
+
+    /**
+     * Plan de un lote de {@code _bulk}, comun a las dos variantes del servicio: decide con
+     * los existentes de la consulta {@code $in} que telefonos se insertan, cuales se
+     * reemplazan y cuales se rechazan, y despues de la escritura da los resultados en el
+     * orden de la entrada, el delta de los contadores y los IMEIs a invalidar.
+     */
+    static final class LoteBulk {
+
+        private final List<Telefono> telefonos;
+        private final Map<String, Telefono> existentes = new HashMap<>();
+        private final ResultadoBulk[] resultados;
+        private final List<Integer> indicesOperacion = new ArrayList<>();
+
+        LoteBulk(List<Telefono> telefonos, List<Telefono> existentes, boolean upsert, Instant fechaModificacion) {
+            this.telefonos = telefonos;
+            this.resultados = new ResultadoBulk[telefonos.size()];
+            for (Telefono existente : existentes) {
+                this.existentes.put(existente.getImei(), existente);
+            }
+
+            Set<String> imeisDelLote = new HashSet<>();
+            for (int i = 0; i < telefonos.size(); i++) {
+                Telefono telefono = telefonos.get(i);
+                String imei = telefono.getImei();
+                Telefono existente = this.existentes.get(imei);
+                if (!imeisDelLote.add(imei) || (existente != null && !upsert)) {
+                    resultados[i] = ResultadoBulk.error(i, imei, ErrorCode.IMEI_YA_EXISTE);
+                    continue;
+                }
+                if (existente != null) {
+                    String idExistente = existente.getId();
+                    telefono.setId(idExistente);
+                    // El reemplazo completo no pasa por @Version: se continua la version leida
+                    telefono.setVersion(existente.getVersion() != null ? existente.getVersion() + 1 : 0L);
+                    telefono.setFechaModificacion(fechaModificacion);
+                    resultados[i] = ResultadoBulk.exito(i, idExistente, imei, ResultadoBulk.ACTUALIZADO);
+                } else {
+                    // El id se asigna aqui porque la escritura bulk no lo devuelve al objeto
+                    if (telefono.getId() == null) {
+                        telefono.setId(new ObjectId().toHexString());
+                    }
+                    telefono.setVersion(0L);
+                    telefono.setFechaModificacion(fechaModificacion);
+                    resultados[i] = ResultadoBulk.exito(i, telefono.getId(), imei, ResultadoBulk.CREADO);
+                }
+                indicesOperacion.add(i);
+            }
+        }
+
+        static Query consultaExistentes(List<Telefono> telefonos) {
+            Set<String> imeis = new HashSet<>();
+            for (Telefono telefono : telefonos) {
+                imeis.add(telefono.getImei());
+            }
+            Query consulta = new Query(Criteria.where("imei").in(imeis));
+            // marca, iOS y fecha de creacion son lo que el reemplazo resta de los contadores
+            consulta.fields().include("id").include("imei").include("version").include("marca")
+                    .include("tieneSistemaIOS").include("fechaCreacion");
+            return consulta;
+        }
+
+        boolean tieneOperaciones() {
+            return !indicesOperacion.isEmpty();
+        }
+
+        /**
+         * Agrega las escrituras en el orden de {@code indicesOperacion}, que es el que usan
+         * los indices de los {@link BulkWriteError}.
+         */
+        void agregarOperaciones(Consumer<Telefono> insertar, BiConsumer<Query, Telefono> reemplazar) {
+            for (int i : indicesOperacion) {
+                Telefono telefono = telefonos.get(i);
+                if (ResultadoBulk.ACTUALIZADO.equals(resultados[i].getEstado())) {
+                    reemplazar.accept(new Query(Criteria.where("id").is(telefono.getId())), telefono);
+                } else {
+                    insertar.accept(telefono);
+                }
+            }
+        }
+
+        Set<String> imeisOperacion() {
+            Set<String> imeis = new LinkedHashSet<>();
+            for (int i : indicesOperacion) {
+                imeis.add(telefonos.get(i).getImei());
+            }
+            return imeis;
+        }
+
+        void registrarErrores(List<BulkWriteError> errores) {
+            for (BulkWriteError error : errores) {
+                int i = indicesOperacion.get(error.getIndex());
+                // Otro proceso pudo crear el mismo IMEI despues de la consulta $in
+                ErrorCode codigo = error.getCode() == CODIGO_LLAVE_DUPLICADA
+                        ? errorLlaveDuplicada(error.getMessage())
+                        : ErrorCode.ERROR_ESCRITURA;
+                resultados[i] = ResultadoBulk.error(i, telefonos.get(i).getImei(), codigo);
+            }
+        }
+
+        ContadoresTelefono.Delta delta() {
+            ContadoresTelefono.Delta delta = new ContadoresTelefono.Delta();
+            for (int i : indicesOperacion) {
+                ResultadoBulk resultado = resultados[i];
+                if (resultado.getError() == null) {
+                    Telefono telefono = telefonos.get(i);
+                    if (ResultadoBulk.ACTUALIZADO.equals(resultado.getEstado())) {
+                        delta.restar(existentes.get(telefono.getImei()));
+                    }
+                    delta.sumar(telefono);
+                }
+            }
+            return delta;
+        }
+
+        Set<String> imeisEscritos() {
+            Set<String> imeis = new LinkedHashSet<>();
+            for (int i : indicesOperacion) {
+                if (resultados[i].getError() == null) {
+                    imeis.add(resultados[i].getImei());
+                }
+            }
+            return imeis;
+        }
+
+        List<ResultadoBulk> resultados() {
+            return Arrays.asList(resultados);
+        }
+    }
+
+    // Un id con forma de ObjectId se guarda como ObjectId; cualquier otro, como texto
+    private static String codificarCursor(String id) {
+        String tipo = ObjectId.isValid(id) ? CURSOR_OBJECT_ID : CURSOR_TEXTO;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((tipo + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Mongo compara {@code $gt} solo contra valores del mismo tipo. Despues de un
+     * ObjectId solo quedan ObjectId mayores; despues de un texto quedan los textos
+     * mayores y todos los ObjectId, que se ordenan despues.
+     */
+    private static Criteria criterioCursor(String cursor) {
+        String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (valor.startsWith(CURSOR_TEXTO)) {
+            String id = valor.substring(CURSOR_TEXTO.length());
+            if (id.isEmpty() || ObjectId.isValid(id)) {
+                throw new IllegalArgumentException("Cursor invalido: " + cursor);
+            }
+            return new Criteria().orOperator(Criteria.where("id").gt(id),
+                    Criteria.where("id").type(JsonSchemaObject.Type.objectIdType()));
+        }
+        // Sin tipo es un cursor emitido antes de que los ids de texto se paginaran
+        String id = valor.startsWith(CURSOR_OBJECT_ID) ? valor.substring(CURSOR_OBJECT_ID.length()) : valor;
+        if (!ObjectId.isValid(id)) {
+            throw new IllegalArgumentException("Cursor invalido: " + cursor);
+        }
+        return Criteria.where("id").gt(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.banco.admintelefonos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import com.banco.admintelefonos.component.DatabaseInitializer;
+import com.banco.admintelefonos.dto.CriteriosBusqueda;
+import com.banco.admintelefonos.model.Telefono;
+import com.banco.admintelefonos.service.TelefonoService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+/**
+ * Revisa con {@code explain()} que cada forma de consulta de {@code /_search} se resuelva con
+ * los indices de DatabaseInitializer y no con un COLLSCAN. Requiere Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class BusquedaTelefonosExplainTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer(DockerImageName.parse("mongo:latest"));
+
+    private static MongoClient cliente;
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        cliente = MongoClients.create(MONGO.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(cliente, "admintelefonos");
+        new DatabaseInitializer(mongoTemplate).run();
+
+        List<Telefono> telefonos = new ArrayList<>();
+        String[][] catalogo = { { "Samsung", "A54", "Galaxy A54" }, { "Samsung", "S23", "Galaxy S23" },
+                { "Apple", "iPhone 15", "iPhone 15" }, { "Xiaomi", "Redmi 12", "Redmi Note" } };
+        for (int i = 0; i < 200; i++) {
+            String[] modelo = catalogo[i % catalogo.length];
+            Telefono telefono = new Telefono();
+            telefono.setMarca(modelo[0]);
+            telefono.setModelo(modelo[1]);
+            telefono.setNombre(modelo[2]);
+            telefono.setNombreCorto(modelo[1].replace(" ", ""));
+            telefono.setImei(String.format("%015d", 350_000_000_000_000L + i));
+            telefono.setTieneSistemaIOS("Apple".equals(modelo[0]));
+            telefono.setFechaCreacion(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(i));
+            telefonos.add(telefono);
+        }
+        mongoTemplate.insertAll(telefonos);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (cliente != null) {
+            cliente.close();
+        }
+    }
+
+    @Test
+    void cadaFormaDeBusqueda_deberiaUsarUnIndice() {
+        LocalDateTime desde = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime hasta = LocalDateTime.of(2024, 5, 1, 0, 0);
+        Map<String, CriteriosBusqueda> formas = new LinkedHashMap<>();
+        formas.put("texto", criterios("galaxy", null, null, null, null, null, null));
+        formas.put("texto y marca", criterios("galaxy", null, "Sam", null, null, null, null));
+        formas.put("nombre", criterios(null, "Gal", null, null, null, null, null));
+        formas.put("marca", criterios(null, null, "Sam", null, null, null, null));
+        formas.put("modelo", criterios(null, null, null, "A5", null, null, null));
+        formas.put("nombreCorto", criterios(null, null, null, null, "iPhone", null, null));
+        formas.put("marca y modelo", criterios(null, null, "Samsung", "A", null, null, null));
+        formas.put("marca y fechas", criterios(null, null, "Sam", null, null, desde, hasta));
+        formas.put("fechas", criterios(null, null, null, null, null, desde, hasta));
+
+        for (Map.Entry<String, CriteriosBusqueda> forma : formas.entrySet()) {
+            String plan = explicar(TelefonoService.agregacionBusqueda(forma.getValue(), 0, 20)).toJson();
+
+            assertFalse(plan.contains("COLLSCAN"), forma.getKey() + ": " + plan);
+            assertTrue(plan.contains("IXSCAN"), forma.getKey() + ": " + plan);
+        }
+    }
+
+    @Test
+    void busqueda_deberiaDevolverPaginaTotalYFacetasEnUnaAgregacion() {
+        CriteriosBusqueda criterios = criterios("galaxy", null, null, null, null, null, null);
+
+        Document resultado = mongoTemplate.aggregate(TelefonoService.agregacionBusqueda(criterios, 1, 20),
+                Document.class).getUniqueMappedResult();
+
+        assertEquals(20, resultado.getList("resultados", Document.class).size());
+        assertEquals(100, resultado.getList("total", Document.class).get(0).getInteger("n"));
+        List<Document> marcas = resultado.getList("marca", Document.class);
+        assertEquals(List.of(new Document("_id", "Samsung").append("count", 100)), marcas);
+    }
+
+    private static Document explicar(TypedAggregation<Telefono> agregacion) {
+        return mongoTemplate.aggregate(agregacion.withOptions(AggregationOptions.builder().explain(true).build()),
+                Document.class).getRawResults();
+    }
+
+    private static CriteriosBusqueda criterios(String q, String nombre, String marca, String modelo,
+            String nombreCorto, LocalDateTime desde, LocalDateTime hasta) {
+        return new CriteriosBusqueda(q, nombre, marca, modelo, nombreCorto, desde, hasta, Set.of("marca"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.banco.admintelefonos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.banco.admintelefonos.component.CamposTelefono;
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+class CamposTelefonoTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void parsear_deberiaOrdenarQuitarRepetidosEIncluirElId() {
+        assertEquals(List.of("id", "nombreCorto", "imei"),
+                List.copyOf(CamposTelefono.parsear("imei, nombreCorto,imei")));
+    }
+
+    @Test
+    void parsear_deberiaRechazarCamposDesconocidosOVacios() {
+        assertThrows(IllegalArgumentException.class, () -> CamposTelefono.parsear("imei,precio"));
+        assertThrows(IllegalArgumentException.class, () -> CamposTelefono.parsear(""));
+        assertThrows(IllegalArgumentException.class, () -> CamposTelefono.parsear("imei,"));
+    }
+
+    @Test
+    void proyectar_deberiaIncluirSoloLosCamposSeleccionados() {
+        Query query = CamposTelefono.proyectar(new Query(), CamposTelefono.parsear("imei"));
+
+        assertEquals(new Document("id", 1).append("imei", 1), query.getFieldsObject());
+        assertTrue(CamposTelefono.proyectar(new Query(), null).getFieldsObject().isEmpty());
+    }
+
+    @Test
+    void writer_deberiaFiltrarSinAfectarAlObjectMapperOriginal() throws Exception {
+        CamposTelefono camposTelefono = new CamposTelefono(objectMapper);
+        Telefono telefono = new Telefono();
+        telefono.setId("1");
+        telefono.setImei("123456789012345");
+        telefono.setMarca("Samsung");
+
+        byte[] filtrado = camposTelefono.escribir(telefono, Set.of("id", "marca"));
+
+        assertEquals(Map.of("id", "1", "marca", "Samsung"), objectMapper.readValue(filtrado, Map.class));
+        assertTrue(objectMapper.readValue(objectMapper.writeValueAsBytes(telefono), Map.class).containsKey("imei"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.banco.admintelefonos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.banco.admintelefonos.component.CatalogoErrores;
+import com.banco.admintelefonos.dto.ErrorResponse;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CatalogoErroresTest {
+
+    private ObjectMapper objectMapper;
+    private CatalogoErrores catalogoErrores;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        catalogoErrores = new CatalogoErrores(TelefonoControllerTest.mensajes(), objectMapper, List.of("es", "en"));
+    }
+
+    @Test
+    void respuesta_deberiaResolverTodosLosCodigosEnCadaIdioma() {
+        for (ErrorCode codigoError : ErrorCode.values()) {
+            ErrorResponse espanol = catalogoErrores.respuesta(codigoError, Locale.forLanguageTag("es-MX"));
+            ErrorResponse ingles = catalogoErrores.respuesta(codigoError, Locale.US);
+
+            assertEquals(codigoError.getCode(), espanol.getCodigoError());
+            assertEquals(codigoError.getCode(), ingles.getCodigoError());
+            assertNotNull(espanol.getMensaje());
+            assertNotNull(ingles.getMensaje());
+        }
+        assertEquals("El nombre es requerido.", catalogoErrores.mensaje(ErrorCode.NOMBRE_REQUERIDO, Locale.forLanguageTag("es")));
+        assertEquals("Name is required.", catalogoErrores.mensaje(ErrorCode.NOMBRE_REQUERIDO, Locale.ENGLISH));
+    }
+
+    @Test
+    void respuesta_deberiaReutilizarLaInstanciaYUsarElIdiomaPorDefecto() {
+        ErrorResponse primera = catalogoErrores.respuesta(ErrorCode.IMEI_YA_EXISTE, Locale.ENGLISH);
+
+        assertSame(primera, catalogoErrores.respuesta(ErrorCode.IMEI_YA_EXISTE, Locale.UK));
+        assertSame(catalogoErrores.respuesta(ErrorCode.IMEI_YA_EXISTE, Locale.forLanguageTag("es")),
+                catalogoErrores.respuesta(ErrorCode.IMEI_YA_EXISTE, Locale.FRENCH));
+        assertSame(catalogoErrores.respuesta(ErrorCode.IMEI_YA_EXISTE, Locale.forLanguageTag("es")),
+                catalogoErrores.respuesta(ErrorCode.IMEI_YA_EXISTE, null));
+    }
+
+    @Test
+    void serializar_deberiaEscribirElMismoJsonQueLaRespuestaSinCatalogo() throws Exception {
+        ErrorResponse plano = new ErrorResponse(ErrorCode.NOMBRE_REQUERIDO.getCode(), "El nombre es requerido.");
+        ErrorResponse prerenderizado = catalogoErrores.respuesta(ErrorCode.NOMBRE_REQUERIDO, Locale.forLanguageTag("es"));
+
+        assertEquals(objectMapper.writeValueAsString(plano), objectMapper.writeValueAsString(prerenderizado));
+        assertEquals(objectMapper.writeValueAsString(plano),
+                catalogoErrores.json(ErrorCode.NOMBRE_REQUERIDO, Locale.forLanguageTag("es")));
+        assertEquals(objectMapper.writeValueAsString(List.of(plano, plano)),
+                new String(objectMapper.writeValueAsBytes(List.of(prerenderizado, prerenderizado)), "UTF-8"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.component.CodecTelefonoBinario;
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecCacheTelefonoTest {
+
+    private ObjectMapper objectMapper;
+    private CodecCacheTelefono codecBinario;
+    private CodecCacheTelefono codecJson;
+    private Telefono telefono;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        codecBinario = new CodecCacheTelefono(objectMapper, CodecCacheTelefono.CODEC_BINARIO);
+        codecJson = new CodecCacheTelefono(objectMapper, CodecCacheTelefono.CODEC_JSON);
+
+        telefono = new Telefono();
+        telefono.setId("65f1a2b3c4d5e6f708192a3b");
+        telefono.setNombre("Galaxy Ñandú");
+        telefono.setMarca("Samsung");
+        telefono.setModelo("A54");
+        telefono.setNombreCorto("A54");
+        telefono.setFechaCreacion(LocalDateTime.of(2024, 3, 15, 10, 30, 45, 123456789));
+        telefono.setImei("356938035643809");
+        telefono.setNumeroCelular("5512345678");
+        telefono.setEmailSoporte("soporte@samsung.com");
+        telefono.setTieneSistemaIOS(false);
+        telefono.setVersion(7L);
+        telefono.setFechaModificacion(Instant.ofEpochMilli(1_718_000_123_456L));
+    }
+
+    @Test
+    void codificar_deberiaConservarTodosLosCamposEnBinario() {
+        byte[] datos = codecBinario.codificar(telefono);
+
+        assertEquals(CodecTelefonoBinario.VERSION, datos[0]);
+        assertEquals(telefono, codecBinario.decodificar(datos));
+    }
+
+    @Test
+    void codificar_deberiaOcuparMenosQueJson() {
+        assertTrue(codecBinario.codificar(telefono).length * 2 < codecJson.codificar(telefono).length);
+    }
+
+    @Test
+    void codificar_deberiaConservarCamposNulosYValoresNoCompactables() {
+        Telefono parcial = new Telefono();
+        parcial.setId("id-externo");
+        parcial.setImei("000123");
+        parcial.setFechaCreacion(LocalDateTime.of(1950, 1, 1, 0, 0));
+        parcial.setTieneSistemaIOS(true);
+
+        assertEquals(parcial, codecBinario.decodificar(codecBinario.codificar(parcial)));
+
+        parcial.setImei("35-693803-564380-9");
+        parcial.setId("65F1A2B3C4D5E6F708192A3B");
+        assertEquals(parcial, codecBinario.decodificar(codecBinario.codificar(parcial)));
+    }
+
+    @Test
+    void codificarEntrada_deberiaConservarMetadatosYLeerEntradasSinEnvoltura() {
+        EntradaCacheTelefono entrada = new EntradaCacheTelefono(telefono, 1_718_000_000_000L, 3_600_000L, 2_500L);
+
+        assertEquals(entrada, codecBinario.decodificarEntrada(codecBinario.codificarEntrada(entrada)));
+        // json escribe el JSON sin envoltura para que lo lean las versiones anteriores
+        byte[] json = codecJson.codificarEntrada(entrada);
+        assertArrayEquals(codecJson.codificar(telefono), json);
+        assertEquals(new EntradaCacheTelefono(telefono, 0, 0, 0), codecJson.decodificarEntrada(json));
+
+        EntradaCacheTelefono anterior = codecBinario.decodificarEntrada(codecBinario.codificar(telefono));
+        assertEquals(telefono, anterior.getTelefono());
+        assertFalse(anterior.tieneMetadatos());
+    }
+
+    @Test
+    void leerMetadatos_deberiaLeerLosValidadoresSinDecodificarElTelefono() {
+        EntradaCacheTelefono entrada = new EntradaCacheTelefono(telefono, 1_718_000_000_000L, 3_600_000L, 2_500L);
+        MetadatosTelefono esperados = MetadatosTelefono.de(telefono);
+
+        assertEquals(esperados, codecBinario.leerMetadatos(codecBinario.codificarEntrada(entrada)));
+        assertEquals(esperados, codecBinario.leerMetadatos(codecBinario.codificar(telefono)));
+
+        Telefono sinVersion = new Telefono();
+        sinVersion.setId("legado");
+        sinVersion.setImei("ABC");
+        assertEquals(new MetadatosTelefono("legado", null, null),
+                codecBinario.leerMetadatos(codecBinario.codificar(sinVersion)));
+        // JSON y entradas negativas se resuelven por el camino normal
+        assertNull(codecBinario.leerMetadatos(codecJson.codificarEntrada(entrada)));
+        assertNull(codecBinario.leerMetadatos(codecBinario.ausente()));
+    }
+
+    @Test
+    void decodificar_deberiaLeerEntradasJsonAnteriores() throws Exception {
+        byte[] legado = objectMapper.writeValueAsString(telefono).getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(telefono, codecBinario.decodificar(legado));
+        assertEquals(telefono, codecJson.decodificar(codecJson.codificar(telefono)));
+    }
+
+    @Test
+    void decodificar_deberiaRechazarEntradasDesconocidasOTruncadas() {
+        byte[] datos = codecBinario.codificar(telefono);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> codecBinario.decodificar(Arrays.copyOf(datos, datos.length - 3)));
+        assertThrows(IllegalArgumentException.class, () -> codecBinario.decodificar(new byte[] { 0x7F, 0 }));
+        assertThrows(IllegalArgumentException.class, () -> codecBinario.decodificar(new byte[0]));
+    }
+
+    @Test
+    void constructor_deberiaRechazarCodecDesconocido() {
+        assertThrows(IllegalArgumentException.class, () -> new CodecCacheTelefono(objectMapper, "smile"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.banco.admintelefonos;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.banco.admintelefonos.component.ContadoresTelefono;
+import com.banco.admintelefonos.dto.EstadisticasTelefono;
+import com.banco.admintelefonos.model.Telefono;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ContadoresTelefonoTest {
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ContadoresTelefono contadoresTelefono;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        contadoresTelefono = new ContadoresTelefono(mongoTemplate, meterRegistry);
+    }
+
+    @Test
+    void delta_deberiaEscaparLasMarcasYCancelarLoQueNoCambia() {
+        Telefono anterior = telefono("Sony.Ericsson", true);
+        Telefono nuevo = telefono("Sony.Ericsson", false);
+
+        Document inc = new ContadoresTelefono.Delta().restar(anterior).sumar(nuevo).update().getUpdateObject()
+                .get("$inc", Document.class);
+
+        assertEquals(new Document("ios.si", -1L).append("ios.no", 1L), inc);
+        assertEquals(1L, new ContadoresTelefono.Delta().sumar(anterior).update().getUpdateObject()
+                .get("$inc", Document.class).get("porMarca.Sony%2EEricsson"));
+        assertTrue(new ContadoresTelefono.Delta().sumar(anterior).restar(anterior).vacio());
+    }
+
+    @Test
+    void aplicar_noDeberiaEscribirUnDeltaVacioNiPropagarErrores() {
+        contadoresTelefono.aplicar(new ContadoresTelefono.Delta());
+        verifyNoInteractions(mongoTemplate);
+
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ContadoresTelefono.COLECCION)))
+                .thenThrow(new IllegalStateException("sin mongo"));
+        assertDoesNotThrow(() -> contadoresTelefono.aplicar(new ContadoresTelefono.Delta().sumar(telefono("LG", null))));
+    }
+
+    @Test
+    void estadisticas_deberiaDecodificarLasClavesYOmitirLosCeros() {
+        Document contadores = new Document("_id", "inventario").append("total", 4L)
+                .append("porMarca", new Document("Sony%2EEricsson", 2L).append("LG", 0L).append("%00", 2L))
+                .append("ios", new Document("si", 1L).append("no", 3L))
+                .append("creacionesPorDia", new Document("2024-06-10", 4L))
+                .append("reconciliadoEn", new Date(0));
+
+        EstadisticasTelefono estadisticas = ContadoresTelefono.estadisticas(contadores);
+
+        assertEquals(4, estadisticas.getTotal());
+        assertEquals(Map.of("Sony.Ericsson", 2L), estadisticas.getPorMarca());
+        assertEquals(2, estadisticas.getSinMarca());
+        assertEquals(0.25, estadisticas.getProporcionIos());
+        assertEquals(Map.of("2024-06-10", 4L), estadisticas.getCreacionesPorDia());
+        assertEquals(0, ContadoresTelefono.estadisticas(null).getTotal());
+    }
+
+    @Test
+    void reconciliar_deberiaIncrementarLaDiferenciaYPublicarLaDesviacion() {
+        Document resultado = new Document("total", List.of(new Document("n", 3)))
+                .append("porMarca", List.of(new Document("_id", "Apple").append("n", 2),
+                        new Document("_id", null).append("n", 1)))
+                .append("ios", List.of(new Document("_id", true).append("n", 3)))
+                .append("creacionesPorDia", List.of(new Document("_id", "2024-06-10").append("n", 3)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Telefono.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(resultado), new Document()));
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq(ContadoresTelefono.COLECCION)))
+                .thenReturn(new Document("total", 2L).append("porMarca", new Document("Apple", 2L).append("LG", 1L))
+                        .append("ios", new Document("si", 2L))
+                        .append("creacionesPorDia", new Document("2024-06-10", 3L)));
+
+        contadoresTelefono.reconciliar();
+
+        // Solo se corrige la diferencia; los $inc que lleguen despues de la lectura se conservan
+        ArgumentCaptor<Update> correccion = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), correccion.capture(), eq(ContadoresTelefono.COLECCION));
+        verify(mongoTemplate, never()).save(any(), anyString());
+        Document update = correccion.getValue().getUpdateObject();
+        assertEquals(new Document("total", 1L).append("porMarca.%00", 1L).append("porMarca.LG", -1L)
+                .append("ios.si", 1L), update.get("$inc", Document.class));
+        assertNotNull(update.get("$set", Document.class).get("reconciliadoEn"));
+        // total +1, sin marca +1, LG -1, iOS +1
+        assertEquals(4, meterRegistry.get("telefono.estadisticas.desviacion").gauge().value());
+    }
+
+    private static Telefono telefono(String marca, Boolean tieneSistemaIOS) {
+        Telefono telefono = new Telefono();
+        telefono.setMarca(marca);
+        telefono.setTieneSistemaIOS(tieneSistemaIOS);
+        telefono.setFechaCreacion(LocalDateTime.of(2024, 6, 10, 8, 0));
+        return telefono;
+    }
+}
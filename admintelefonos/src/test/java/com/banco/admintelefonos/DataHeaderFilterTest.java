@@ -1,5 +1,6 @@
 package com.banco.admintelefonos;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,11 +9,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import com.banco.admintelefonos.config.DataHeaderFilter;
+import com.banco.admintelefonos.config.SecretosDataHeader;
 
 import java.io.IOException;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,10 +33,13 @@ public class DataHeaderFilterTest {
 
     private HttpServletResponse response;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        filter = new DataHeaderFilter("MIEXAMENPRUEBA");
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new DataHeaderFilter(new SecretosDataHeader(List.of("MIEXAMENPRUEBA"), ""), meterRegistry);
         response = new MockHttpServletResponse();
     }
 
@@ -45,6 +52,7 @@ public class DataHeaderFilterTest {
 
         verify(filterChain, times(1)).doFilter(request, response);
         assertEquals(200, response.getStatus()); // Expect 200 OK after passing the filter
+        assertEquals(0, meterRegistry.get("telefono.data.header.rechazos").counter().count());
     }
 
     @Test
@@ -54,6 +62,7 @@ public class DataHeaderFilterTest {
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain, never()).doFilter(request, response);
+        assertEquals(1, meterRegistry.get("telefono.data.header.rechazos").counter().count());
         assertEquals(401, response.getStatus());
         assertEquals("Unauthorized: Invalid DATA header", ((MockHttpServletResponse) response).getContentAsString());
     }
@@ -68,4 +77,24 @@ public class DataHeaderFilterTest {
         assertEquals(401, response.getStatus());
         assertEquals("Unauthorized: Invalid DATA header", ((MockHttpServletResponse) response).getContentAsString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDoFilter_ActuatorSinHeader() throws ServletException, IOException {
+        MockHttpServletRequest actuator = new MockHttpServletRequest("GET", "/actuator/health/readiness");
+
+        filter.doFilter(actuator, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(actuator, response);
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void testDoFilter_RutaParecidaAActuatorSinHeader() throws ServletException, IOException {
+        MockHttpServletRequest otra = new MockHttpServletRequest("GET", "/actuatorx");
+
+        filter.doFilter(otra, response, filterChain);
+
+        verify(filterChain, never()).doFilter(otra, response);
+        assertEquals(401, response.getStatus());
+    }
+}
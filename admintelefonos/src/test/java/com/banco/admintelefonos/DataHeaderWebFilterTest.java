@@ -0,0 +1,83 @@
+package com.banco.admintelefonos;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import com.banco.admintelefonos.config.DataHeaderWebFilter;
+import com.banco.admintelefonos.config.SecretosDataHeader;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataHeaderWebFilterTest {
+
+    private DataHeaderWebFilter filter;
+
+    private WebFilterChain chain;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new DataHeaderWebFilter(new SecretosDataHeader(List.of("MIEXAMENPRUEBA"), ""), meterRegistry);
+        chain = mock(WebFilterChain.class);
+        when(chain.filter(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    public void testFilter_ValidHeader() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/telefonos")
+                .header("DATA", "bXIHHGDUTBaGk7VX3Uj+7dfHY5N6nwK684IKIYvucD8="));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        verify(chain, times(1)).filter(exchange);
+        assertNull(exchange.getResponse().getStatusCode());
+        assertEquals(0, meterRegistry.get("telefono.data.header.rechazos").counter().count());
+    }
+
+    @Test
+    public void testFilter_InvalidHeader() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/telefonos")
+                .header("DATA", "invalidHash"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        verify(chain, never()).filter(any());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertEquals(1, meterRegistry.get("telefono.data.header.rechazos").counter().count());
+        StepVerifier.create(exchange.getResponse().getBodyAsString())
+                .expectNext("Unauthorized: Invalid DATA header")
+                .verifyComplete();
+    }
+
+    @Test
+    public void testFilter_MissingHeader() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/telefonos"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        verify(chain, never()).filter(any());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    public void testFilter_ActuatorSinHeader() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/actuator/prometheus"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        verify(chain, times(1)).filter(exchange);
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+}
@@ -2,13 +2,27 @@ package com.banco.admintelefonos;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.bson.Document;
 
 import com.banco.admintelefonos.component.DatabaseInitializer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class DatabaseInitializerTest {
@@ -16,12 +30,24 @@ class DatabaseInitializerTest {
     @Mock
     private MongoTemplate mongoTemplate;
 
+    @Mock
+    private IndexOperations indexOperations;
+
     @InjectMocks
     private DatabaseInitializer databaseInitializer;
 
+    private List<IndexDefinition> indicesCreados;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        indicesCreados = new ArrayList<>();
+        when(mongoTemplate.indexOps(anyString())).thenReturn(indexOperations);
+        when(indexOperations.ensureIndex(any(IndexDefinition.class))).thenAnswer(invocation -> {
+            IndexDefinition indice = invocation.getArgument(0);
+            indicesCreados.add(indice);
+            return indice.getIndexOptions().getString("name");
+        });
     }
 
     @Test
@@ -41,4 +67,78 @@ class DatabaseInitializerTest {
 
         verify(mongoTemplate, never()).createCollection("telefonos");
     }
+
+    @Test
+    void run_deberiaCrearIndiceUnicoDeImei() throws Exception {
+        when(mongoTemplate.collectionExists("telefonos")).thenReturn(true);
+
+        databaseInitializer.run();
+
+        IndexDefinition indiceImei = indicesCreados.stream()
+                .filter(indice -> indice.getIndexKeys().containsKey("imei"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(indiceImei.getIndexOptions().getBoolean("unique"));
+        assertTrue(indiceImei.getIndexOptions().getBoolean("sparse"));
+    }
+
+    @Test
+    void run_deberiaCrearIndicesDeExportacion() throws Exception {
+        when(mongoTemplate.collectionExists("telefonos")).thenReturn(true);
+
+        databaseInitializer.run();
+
+        List<String> nombres = indicesCreados.stream()
+                .map(indice -> indice.getIndexOptions().getString("name"))
+                .toList();
+        assertTrue(nombres.contains("fechaCreacion"));
+        assertTrue(nombres.contains("marca_fechaCreacion"));
+        IndexDefinition compuesto = indicesCreados.get(nombres.indexOf("marca_fechaCreacion"));
+        assertEquals(List.of("marca", "fechaCreacion"), List.copyOf(compuesto.getIndexKeys().keySet()));
+    }
+
+    @Test
+    void run_deberiaCrearIndicesDeBusqueda() throws Exception {
+        when(mongoTemplate.collectionExists("telefonos")).thenReturn(true);
+
+        databaseInitializer.run();
+
+        List<String> nombres = indicesCreados.stream()
+                .map(indice -> indice.getIndexOptions().getString("name"))
+                .toList();
+        IndexDefinition texto = indicesCreados.get(nombres.indexOf("busqueda_texto"));
+        assertEquals("none", texto.getIndexOptions().getString("default_language"));
+        assertEquals(Set.of("nombre", "marca", "modelo", "nombreCorto"), texto.getIndexKeys().keySet());
+        IndexDefinition compuesto = indicesCreados.get(nombres.indexOf("marca_modelo_fechaCreacion"));
+        assertEquals(List.of("marca", "modelo", "fechaCreacion"), List.copyOf(compuesto.getIndexKeys().keySet()));
+        assertTrue(nombres.containsAll(List.of("modelo_fechaCreacion", "nombre_fechaCreacion",
+                "nombreCorto_fechaCreacion")));
+    }
+
+    @Test
+    void run_deberiaCrearIndicesDelOutbox() throws Exception {
+        when(mongoTemplate.collectionExists("telefonos")).thenReturn(true);
+
+        databaseInitializer.run();
+
+        verify(mongoTemplate).indexOps("outbox_invalidaciones");
+        List<String> nombres = indicesCreados.stream()
+                .map(indice -> indice.getIndexOptions().getString("name"))
+                .toList();
+        assertTrue(nombres.contains("bloqueadoHasta_creadoEn"));
+        assertTrue(nombres.contains("reclamo"));
+    }
+
+    @Test
+    void run_deberiaAsignarVersionCeroALosDocumentosSinVersion() throws Exception {
+        when(mongoTemplate.collectionExists("telefonos")).thenReturn(true);
+
+        databaseInitializer.run();
+
+        ArgumentCaptor<Query> consulta = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> actualizacion = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(consulta.capture(), actualizacion.capture(), eq("telefonos"));
+        assertEquals(new Document("$exists", false), consulta.getValue().getQueryObject().get("version"));
+        assertEquals(0L, actualizacion.getValue().getUpdateObject().get("$set", Document.class).get("version"));
+    }
 }
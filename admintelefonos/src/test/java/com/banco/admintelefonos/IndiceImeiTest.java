@@ -0,0 +1,98 @@
+package com.banco.admintelefonos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.banco.admintelefonos.component.IndiceImei;
+import com.banco.admintelefonos.model.Telefono;
+
+class IndiceImeiTest {
+
+    @Test
+    void clave_deberiaAceptarSoloQuinceDigitos() {
+        assertEquals(123456789012345L, IndiceImei.clave("123456789012345"));
+        assertEquals(12345678901234L, IndiceImei.clave("012345678901234"));
+        assertEquals(IndiceImei.SIN_CLAVE, IndiceImei.clave("12345678901234"));
+        assertEquals(IndiceImei.SIN_CLAVE, IndiceImei.clave("12345678901234A"));
+        assertEquals(IndiceImei.SIN_CLAVE, IndiceImei.clave(null));
+    }
+
+    @Test
+    void guardar_deberiaReemplazarYMoverElImeiCuandoCambia() {
+        IndiceImei indice = new IndiceImei();
+        indice.guardar(telefono("1", "123456789012345"));
+        Telefono actualizado = telefono("1", "999999999999999");
+
+        indice.guardar(actualizado);
+
+        assertNull(indice.obtener(IndiceImei.clave("123456789012345")));
+        assertSame(actualizado, indice.obtener(IndiceImei.clave("999999999999999")));
+        assertEquals(1, indice.tamanio());
+    }
+
+    @Test
+    void guardar_deberiaQuitarAlTelefonoSiElNuevoImeiNoEsIndexable() {
+        IndiceImei indice = new IndiceImei();
+        indice.guardar(telefono("1", "123456789012345"));
+
+        indice.guardar(telefono("1", "ABC"));
+
+        assertNull(indice.obtener(IndiceImei.clave("123456789012345")));
+        assertEquals(0, indice.tamanio());
+    }
+
+    @Test
+    void eliminar_deberiaQuitarPorIdYConservarLasDemasClaves() {
+        IndiceImei indice = new IndiceImei();
+        indice.guardar(telefono("1", "123456789012345"));
+        indice.guardar(telefono("2", "123456789012346"));
+
+        indice.eliminar("1");
+        indice.eliminar("no-existe");
+        indice.eliminar(null);
+
+        assertNull(indice.obtener(IndiceImei.clave("123456789012345")));
+        assertEquals("2", indice.obtener(IndiceImei.clave("123456789012346")).getId());
+        assertEquals(1, indice.tamanio());
+    }
+
+    @Test
+    void indice_deberiaCoincidirConUnMapaTrasMuchasAltasYBajas() {
+        IndiceImei indice = new IndiceImei();
+        Map<String, String> esperado = new HashMap<>();
+        Random aleatorio = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            String id = "id-" + aleatorio.nextInt(2_000);
+            if (aleatorio.nextInt(4) == 0) {
+                indice.eliminar(id);
+                esperado.remove(id);
+            } else {
+                String imei = String.format("%015d", 350_000_000_000_000L + aleatorio.nextInt(8_000));
+                // Un IMEI que ya tiene otro id pasa al nuevo, como tras un borrado aplicado tarde
+                esperado.values().remove(imei);
+                indice.guardar(telefono(id, imei));
+                esperado.put(id, imei);
+            }
+        }
+
+        assertEquals(esperado.size(), indice.tamanio());
+        for (Map.Entry<String, String> entrada : esperado.entrySet()) {
+            assertEquals(entrada.getKey(), indice.obtener(IndiceImei.clave(entrada.getValue())).getId());
+        }
+        assertTrue(indice.bytesEstimados() > 0);
+    }
+
+    private static Telefono telefono(String id, String imei) {
+        Telefono telefono = new Telefono();
+        telefono.setId(id);
+        telefono.setImei(imei);
+        telefono.setNombre("Galaxy");
+        return telefono;
+    }
+}
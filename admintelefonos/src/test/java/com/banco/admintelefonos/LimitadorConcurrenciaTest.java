@@ -0,0 +1,54 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.LimitadorConcurrencia;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitadorConcurrenciaTest {
+
+    @Test
+    void mongo_deberiaRetornarResultadoDeLaOperacion() {
+        LimitadorConcurrencia limitador = new LimitadorConcurrencia(1, 1, Duration.ofMillis(100));
+
+        assertEquals("ok", limitador.mongo(() -> "ok"));
+        assertEquals("ok", limitador.mongo(() -> "ok"));
+    }
+
+    @Test
+    void mongo_deberiaRechazarConServicioNoDisponibleSiSeAgotanLosPermisos() throws Exception {
+        LimitadorConcurrencia limitador = new LimitadorConcurrencia(1, 1, Duration.ofMillis(50));
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> ocupado = executor.submit(() -> limitador.mongo(() -> {
+                dentro.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "primero";
+            }));
+            dentro.await();
+
+            ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                    () -> limitador.mongo(() -> "segundo"));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatusCode());
+            // Redis tiene su propio semaforo
+            assertEquals("redis", limitador.redis(() -> "redis"));
+
+            liberar.countDown();
+            assertEquals("primero", ocupado.get());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.PoliticaCacheTelefono;
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.model.Telefono;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoliticaCacheTelefonoTest {
+
+    private static final long CREADO = 1_000_000L;
+    private static final long TTL = 60_000L;
+
+    @Test
+    void ttlConJitter_deberiaQuedarDentroDelRango() {
+        assertEquals(Duration.ofMillis(54_000), politica(0.0, 1.0).ttlConJitter());
+        assertEquals(Duration.ofMillis(60_000), politica(0.5, 1.0).ttlConJitter());
+        assertEquals(Duration.ofMillis(63_000), politica(0.75, 1.0).ttlConJitter());
+    }
+
+    @Test
+    void debeRefrescar_deberiaRefrescarAntesDeExpirarSegunElCosto() {
+        // 50 ms de consulta: con aleatorio 0.9 el adelanto es -50 * ln(0.1) = 115 ms
+        EntradaCacheTelefono entrada = new EntradaCacheTelefono(new Telefono(), CREADO, TTL, 50_000);
+        PoliticaCacheTelefono politica = politica(0.9, 1.0);
+
+        assertFalse(politica.debeRefrescar(entrada, CREADO + TTL - 200));
+        assertTrue(politica.debeRefrescar(entrada, CREADO + TTL - 100));
+        assertTrue(politica.debeRefrescar(entrada, CREADO + TTL));
+    }
+
+    @Test
+    void debeRefrescar_noDeberiaRefrescarEntradasSinMetadatosNiConBetaCero() {
+        EntradaCacheTelefono sinMetadatos = new EntradaCacheTelefono(new Telefono(), 0, 0, 0);
+        EntradaCacheTelefono vencida = new EntradaCacheTelefono(new Telefono(), CREADO, TTL, 50_000);
+
+        assertFalse(politica(0.9, 1.0).debeRefrescar(sinMetadatos, CREADO + TTL));
+        assertFalse(politica(0.9, 0.0).debeRefrescar(vencida, CREADO + TTL - 1));
+    }
+
+    @Test
+    void constructor_deberiaRechazarConfiguracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new PoliticaCacheTelefono(Duration.ZERO, 0.1, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new PoliticaCacheTelefono(Duration.ofHours(1), 1.0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new PoliticaCacheTelefono(Duration.ofHours(1), 0.1, -1));
+    }
+
+    private static PoliticaCacheTelefono politica(double aleatorio, double beta) {
+        return new PoliticaCacheTelefono(Duration.ofMillis(TTL), 0.1, beta) {
+            @Override
+            protected double aleatorio() {
+                return aleatorio;
+            }
+        };
+    }
+}
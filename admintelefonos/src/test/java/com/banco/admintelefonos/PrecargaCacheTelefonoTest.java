@@ -0,0 +1,143 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.component.MetricasTelefono;
+import com.banco.admintelefonos.component.PoliticaCacheTelefono;
+import com.banco.admintelefonos.component.PrecargaCacheTelefono;
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.model.Telefono;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PrecargaCacheTelefonoTest {
+
+    private MongoTemplate mongoTemplate;
+    private RedisTemplate<String, byte[]> redisTemplate;
+    private RedisStringCommands comandos;
+    private CodecCacheTelefono codecCacheTelefono;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        redisTemplate = mock(RedisTemplate.class);
+        comandos = mock(RedisStringCommands.class);
+        RedisConnection conexion = mock(RedisConnection.class);
+        when(conexion.stringCommands()).thenReturn(comandos);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(conexion);
+            return List.of();
+        });
+        codecCacheTelefono = new CodecCacheTelefono(new ObjectMapper().registerModule(new JavaTimeModule()),
+                CodecCacheTelefono.CODEC_BINARIO);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void run_deberiaEscribirLosTelefonosRecientesPorLotesEnPipeline() {
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class)))
+                .thenReturn(Stream.of(telefono("111"), telefono("222"), telefono(null), telefono("333")));
+
+        precarga(2, Duration.ofSeconds(20)).run();
+
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+        ArgumentCaptor<byte[]> valor = ArgumentCaptor.forClass(byte[].class);
+        verify(comandos, times(3)).set(any(byte[].class), valor.capture(), any(Expiration.class),
+                eq(SetOption.SET_IF_ABSENT));
+        verify(comandos).set(eq("telefono:imei:111".getBytes(StandardCharsets.UTF_8)), any(byte[].class),
+                any(Expiration.class), eq(SetOption.SET_IF_ABSENT));
+        EntradaCacheTelefono entrada = codecCacheTelefono.decodificarEntrada(valor.getValue());
+        assertEquals("333", entrada.getTelefono().getImei());
+        assertTrue(entrada.tieneMetadatos());
+        assertEquals(3, meterRegistry.get("telefono.cache.precargados").counter().count());
+
+        ArgumentCaptor<Query> consulta = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(consulta.capture(), eq(Telefono.class));
+        assertEquals(-1, consulta.getValue().getSortObject().getInteger("fechaCreacion"));
+        assertEquals(100, consulta.getValue().getLimit());
+    }
+
+    @Test
+    void run_deberiaDetenerseAlAlcanzarElTiempoMaximo() {
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class)))
+                .thenReturn(Stream.of(telefono("111"), telefono("222")));
+
+        precarga(2, Duration.ZERO).run();
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        assertEquals(0, meterRegistry.get("telefono.cache.precargados").counter().count());
+    }
+
+    @Test
+    void run_deberiaEscribirElLoteIncompletoAlAlcanzarElTiempoMaximo() {
+        // Leer cada telefono tarda mas que el limite: el ciclo se detiene con un lote a medias
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class)))
+                .thenReturn(Stream.of(telefono("111"), telefono("222"), telefono("333")).peek(t -> esperar(300)));
+
+        precarga(10, Duration.ofMillis(200)).run();
+
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(comandos).set(eq("telefono:imei:111".getBytes(StandardCharsets.UTF_8)), any(byte[].class),
+                any(Expiration.class), eq(SetOption.SET_IF_ABSENT));
+        assertEquals(1, meterRegistry.get("telefono.cache.precargados").counter().count());
+    }
+
+    @Test
+    void run_noDeberiaFallarSiMongoNoResponde() {
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class)))
+                .thenThrow(new RuntimeException("Mongo no disponible"));
+
+        assertDoesNotThrow(() -> precarga(2, Duration.ofSeconds(20)).run());
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "error").counter().count());
+    }
+
+    private PrecargaCacheTelefono precarga(int tamanioLote, Duration tiempoMaximo) {
+        return new PrecargaCacheTelefono(mongoTemplate, redisTemplate, codecCacheTelefono,
+                new PoliticaCacheTelefono(Duration.ofHours(1), 0.1, 1.0), new MetricasTelefono(meterRegistry),
+                100, tamanioLote, tiempoMaximo);
+    }
+
+    private static void esperar(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Telefono telefono(String imei) {
+        Telefono telefono = new Telefono();
+        telefono.setId("id-" + imei);
+        telefono.setImei(imei);
+        telefono.setMarca("Samsung");
+        telefono.setFechaCreacion(LocalDateTime.of(2024, 1, 1, 10, 0));
+        return telefono;
+    }
+}
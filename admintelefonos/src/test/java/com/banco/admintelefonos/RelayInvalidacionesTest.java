@@ -0,0 +1,98 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.MetricasTelefono;
+import com.banco.admintelefonos.component.RelayInvalidaciones;
+import com.banco.admintelefonos.model.EventoInvalidacion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RelayInvalidacionesTest {
+
+    private MongoTemplate mongoTemplate;
+    private RedisTemplate<String, byte[]> redisTemplate;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private RelayInvalidaciones relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        redisTemplate = mock(RedisTemplate.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new RelayInvalidaciones(mongoTemplate, redisTemplate, kafkaTemplate,
+                new MetricasTelefono(meterRegistry), 200, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void publicarPendientes_deberiaPublicarElLoteReclamadoYBorrarlo() {
+        when(mongoTemplate.find(any(Query.class), eq(EventoInvalidacion.class)))
+                .thenReturn(List.of(evento("e1"), evento("e2")))
+                .thenReturn(List.of(evento("e1", "111", "222"), evento("e2", "222", "333")));
+        when(kafkaTemplate.send(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        relay.publicarPendientes();
+
+        ArgumentCaptor<Update> reclamo = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(any(Query.class), reclamo.capture(), eq(EventoInvalidacion.class));
+        assertNotNull(reclamo.getValue().getUpdateObject().get("$set", Document.class).get("reclamo"));
+        verify(redisTemplate).delete(List.of("telefono:imei:111", "telefono:imei:222", "telefono:imei:333"));
+        verify(kafkaTemplate, times(1)).send("telefono-cache-invalidation", "111,222,333");
+        ArgumentCaptor<Query> borrado = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(borrado.capture(), eq(EventoInvalidacion.class));
+        assertEquals(List.of("e1", "e2"),
+                borrado.getValue().getQueryObject().get("id", Document.class).get("$in"));
+        assertEquals(2, meterRegistry.get("telefono.outbox.publicados").counter().count());
+    }
+
+    @Test
+    void publicarPendientes_noDeberiaBorrarEventosSiKafkaFalla() {
+        when(mongoTemplate.find(any(Query.class), eq(EventoInvalidacion.class)))
+                .thenReturn(List.of(evento("e1")))
+                .thenReturn(List.of(evento("e1", "111")));
+        when(kafkaTemplate.send(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker caido")));
+
+        assertDoesNotThrow(() -> relay.publicarPendientes());
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(EventoInvalidacion.class));
+        assertEquals(0, meterRegistry.get("telefono.outbox.publicados").counter().count());
+    }
+
+    @Test
+    void publicarPendientes_noDeberiaReclamarSiNoHayPendientes() {
+        when(mongoTemplate.find(any(Query.class), eq(EventoInvalidacion.class))).thenReturn(List.of());
+
+        relay.publicarPendientes();
+
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(EventoInvalidacion.class));
+        verifyNoInteractions(kafkaTemplate, redisTemplate);
+    }
+
+    private static EventoInvalidacion evento(String id, String... imeis) {
+        EventoInvalidacion evento = EventoInvalidacion.pendiente(List.of(imeis));
+        evento.setId(id);
+        return evento;
+    }
+}
@@ -0,0 +1,73 @@
+package com.banco.admintelefonos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.banco.admintelefonos.config.SecretosDataHeader;
+
+public class SecretosDataHeaderTest {
+
+    // Base64 del SHA-256 de MIEXAMENPRUEBA
+    private static final String HASH_ACTUAL = "bXIHHGDUTBaGk7VX3Uj+7dfHY5N6nwK684IKIYvucD8=";
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void esValido_deberiaAceptarCualquierSecretoVigenteYRechazarElResto() {
+        SecretosDataHeader secretos = new SecretosDataHeader(List.of("OTROSECRETO", "MIEXAMENPRUEBA"), "");
+
+        assertTrue(secretos.esValido(HASH_ACTUAL));
+        assertFalse(secretos.esValido("bXIHHGDUTBaGk7VX3Uj+7dfHY5N6nwK684IKIYvucD9="));
+        assertFalse(secretos.esValido("corto"));
+        assertFalse(secretos.esValido(null));
+    }
+
+    @Test
+    void actualizar_deberiaRotarSecretosEIgnorarListasVacias() {
+        SecretosDataHeader secretos = new SecretosDataHeader(List.of("MIEXAMENPRUEBA"), "");
+
+        secretos.actualizar(List.of("NUEVO"));
+        assertFalse(secretos.esValido(HASH_ACTUAL));
+
+        secretos.actualizar(List.of(" ", ""));
+        assertFalse(secretos.esValido(HASH_ACTUAL));
+        secretos.actualizar(List.of("MIEXAMENPRUEBA"));
+        assertTrue(secretos.esValido(HASH_ACTUAL));
+    }
+
+    @Test
+    void constructor_deberiaFallarSinSecretos() {
+        assertThrows(IllegalArgumentException.class, () -> new SecretosDataHeader(List.of(""), ""));
+    }
+
+    @Test
+    void recargar_deberiaLeerElArchivoCuandoCambia() throws IOException {
+        Path archivo = directorio.resolve("secretos.txt");
+        Files.writeString(archivo, "# rotacion en curso\nNUEVO\nMIEXAMENPRUEBA\n");
+        SecretosDataHeader secretos = new SecretosDataHeader(List.of("DEPROPIEDAD"), archivo.toString());
+
+        assertTrue(secretos.esValido(HASH_ACTUAL));
+
+        Files.writeString(archivo, "NUEVO\n");
+        Files.setLastModifiedTime(archivo, FileTime.from(Instant.now().plusSeconds(5)));
+        secretos.recargar();
+        assertFalse(secretos.esValido(HASH_ACTUAL));
+
+        // Un archivo vaciado por error conserva los secretos anteriores
+        Files.writeString(archivo, "");
+        Files.setLastModifiedTime(archivo, FileTime.from(Instant.now().plusSeconds(10)));
+        secretos.actualizar(List.of("MIEXAMENPRUEBA"));
+        secretos.recargar();
+        assertTrue(secretos.esValido(HASH_ACTUAL));
+    }
+}
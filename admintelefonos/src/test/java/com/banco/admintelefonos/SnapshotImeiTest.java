@@ -0,0 +1,149 @@
+package com.banco.admintelefonos;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.stream.Stream;
+
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.ErrorHandler;
+
+import com.banco.admintelefonos.component.IndiceImei;
+import com.banco.admintelefonos.component.SnapshotImei;
+import com.banco.admintelefonos.model.Telefono;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SnapshotImeiTest {
+
+    private MongoTemplate mongoTemplate;
+    private MessageListenerContainer contenedorCambios;
+    private Subscription suscripcion;
+    private SimpleMeterRegistry meterRegistry;
+    private SnapshotImei snapshotImei;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        mongoTemplate = mock(MongoTemplate.class);
+        contenedorCambios = mock(MessageListenerContainer.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(mongoTemplate.getCollectionName(Telefono.class)).thenReturn("telefonos");
+        when(mongoTemplate.estimatedCount(Telefono.class)).thenReturn(2L);
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class)))
+                .thenReturn(Stream.of(telefono("1", "123456789012345"), telefono("2", "ABC")));
+        suscripcion = mock(Subscription.class);
+        when(suscripcion.await(any())).thenReturn(true);
+        when(contenedorCambios.register(any(ChangeStreamRequest.class), eq(Telefono.class), any(ErrorHandler.class)))
+                .thenReturn(suscripcion);
+        snapshotImei = new SnapshotImei(mongoTemplate, contenedorCambios, meterRegistry, 1000);
+    }
+
+    @Test
+    void run_deberiaCargarLaColeccionYSuscribirseAlChangeStream() {
+        assertEquals(IndiceImei.SIN_CLAVE, snapshotImei.clave("123456789012345"));
+
+        snapshotImei.run();
+
+        long clave = snapshotImei.clave("123456789012345");
+        assertEquals("1", snapshotImei.obtener(clave).getId());
+        // Los IMEIs no indexables siguen el camino normal
+        assertEquals(IndiceImei.SIN_CLAVE, snapshotImei.clave("ABC"));
+        verify(contenedorCambios).register(any(ChangeStreamRequest.class), eq(Telefono.class), any(ErrorHandler.class));
+        assertEquals(1, meterRegistry.get("telefono.snapshot.dispositivos").gauge().value());
+        assertTrue(meterRegistry.get("telefono.snapshot.bytes.dispositivo").gauge().value() > 0);
+    }
+
+    @Test
+    void onMessage_deberiaAplicarAltasCambiosYBajas() {
+        snapshotImei.run();
+
+        snapshotImei.onMessage(mensaje("insert", "3", telefono("3", "111111111111111")));
+        snapshotImei.onMessage(mensaje("update", "1", telefono("1", "222222222222222")));
+        snapshotImei.onMessage(mensaje("delete", "3", null));
+
+        assertNull(snapshotImei.obtener(IndiceImei.clave("111111111111111")));
+        assertNull(snapshotImei.obtener(IndiceImei.clave("123456789012345")));
+        assertEquals("1", snapshotImei.obtener(IndiceImei.clave("222222222222222")).getId());
+        assertEquals(3, meterRegistry.get("telefono.snapshot.retraso").timer().count());
+    }
+
+    @Test
+    void onMessage_deberiaDejarDeResponderSiLaColeccionSeInvalida() {
+        snapshotImei.run();
+
+        snapshotImei.onMessage(mensaje("drop", null, null));
+
+        assertFalse(snapshotImei.estaDisponible());
+        assertEquals(IndiceImei.SIN_CLAVE, snapshotImei.clave("123456789012345"));
+    }
+
+    @Test
+    void run_deberiaQuedarNoDisponibleSiLaCargaFalla() {
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class))).thenThrow(new RuntimeException("sin mongo"));
+
+        snapshotImei.run();
+
+        assertFalse(snapshotImei.estaDisponible());
+        verify(contenedorCambios, never()).register(any(), any(), any(ErrorHandler.class));
+    }
+
+    @Test
+    void run_noDeberiaResponderHastaQueLaSuscripcionEsteActiva() throws InterruptedException {
+        when(suscripcion.await(any())).thenReturn(false);
+
+        snapshotImei.run();
+
+        assertFalse(snapshotImei.estaDisponible());
+        verify(contenedorCambios).remove(suscripcion);
+    }
+
+    @Test
+    void reintentar_deberiaRecargarFueraDelHiloDelPlanificador() throws InterruptedException {
+        Thread planificador = Thread.currentThread();
+        Thread[] hiloCarga = new Thread[1];
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class))).thenAnswer(invocacion -> {
+            hiloCarga[0] = Thread.currentThread();
+            return Stream.of(telefono("1", "123456789012345"));
+        });
+
+        snapshotImei.reintentar();
+
+        for (int i = 0; i < 100 && !snapshotImei.estaDisponible(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(snapshotImei.estaDisponible());
+        assertNotSame(planificador, hiloCarga[0]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Message<ChangeStreamDocument<Document>, Telefono> mensaje(String operacion, String id,
+            Telefono telefono) {
+        BsonDocument llave = id != null ? new BsonDocument("_id", new BsonString(id)) : null;
+        ChangeStreamDocument<Document> cambio = new ChangeStreamDocument<>(operacion, null, null, null, null, null,
+                llave, null, null, null, null, new BsonDateTime(System.currentTimeMillis()), null, null);
+        Message<ChangeStreamDocument<Document>, Telefono> mensaje = mock(Message.class);
+        when(mensaje.getRaw()).thenReturn(cambio);
+        when(mensaje.getBody()).thenReturn(telefono);
+        return mensaje;
+    }
+
+    private static Telefono telefono(String id, String imei) {
+        Telefono telefono = new Telefono();
+        telefono.setId(id);
+        telefono.setImei(imei);
+        return telefono;
+    }
+}
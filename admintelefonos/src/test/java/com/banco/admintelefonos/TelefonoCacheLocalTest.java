@@ -0,0 +1,65 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.TelefonoCacheInvalidationListener;
+import com.banco.admintelefonos.component.TelefonoCacheLocal;
+import com.banco.admintelefonos.model.Telefono;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelefonoCacheLocalTest {
+
+    private TelefonoCacheLocal telefonoCacheLocal;
+    private TelefonoCacheInvalidationListener listener;
+    private Telefono telefono;
+
+    @BeforeEach
+    void setUp() {
+        telefonoCacheLocal = new TelefonoCacheLocal(100, Duration.ofMinutes(5), Duration.ofSeconds(30));
+        listener = new TelefonoCacheInvalidationListener(telefonoCacheLocal);
+        telefono = new Telefono();
+        telefono.setId("1");
+        telefono.setImei("123456789012345");
+    }
+
+    @Test
+    void obtener_deberiaRetornarTelefonoGuardado() {
+        telefonoCacheLocal.guardar("123456789012345", telefono);
+
+        assertSame(telefono, telefonoCacheLocal.obtener("123456789012345"));
+        assertNull(telefonoCacheLocal.obtener("999999999999999"));
+    }
+
+    @Test
+    void onInvalidacion_deberiaEliminarEntradaLocal() {
+        telefonoCacheLocal.guardar("123456789012345", telefono);
+
+        listener.onInvalidacion("123456789012345");
+
+        assertNull(telefonoCacheLocal.obtener("123456789012345"));
+    }
+
+    @Test
+    void registrarAusente_deberiaRecordarImeiHastaQueSeInvalide() {
+        telefonoCacheLocal.registrarAusente("123456789012345");
+
+        assertTrue(telefonoCacheLocal.estaAusente("123456789012345"));
+
+        listener.onInvalidacion("123456789012345");
+
+        assertFalse(telefonoCacheLocal.estaAusente("123456789012345"));
+    }
+
+    @Test
+    void guardar_deberiaEliminarEntradaAusente() {
+        telefonoCacheLocal.registrarAusente("123456789012345");
+
+        telefonoCacheLocal.guardar("123456789012345", telefono);
+
+        assertFalse(telefonoCacheLocal.estaAusente("123456789012345"));
+        assertSame(telefono, telefonoCacheLocal.obtener("123456789012345"));
+    }
+}
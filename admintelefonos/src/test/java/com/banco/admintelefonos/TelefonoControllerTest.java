@@ -1,27 +1,56 @@
 package com.banco.admintelefonos;
 
+import com.banco.admintelefonos.component.CamposTelefono;
+import com.banco.admintelefonos.component.CatalogoErrores;
+import com.banco.admintelefonos.component.ExportadorTelefonos;
+import com.banco.admintelefonos.component.ValidadorTelefono;
 import com.banco.admintelefonos.controller.TelefonoController;
 import com.banco.admintelefonos.dto.ErrorResponse;
+import com.banco.admintelefonos.dto.EstadisticasTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.dto.PaginaCursor;
+import com.banco.admintelefonos.dto.ResultadoBulk;
+import com.banco.admintelefonos.dto.ResultadoBusqueda;
+import com.banco.admintelefonos.dto.ResultadoConsultaImeis;
+import com.banco.admintelefonos.dto.ResultadoEliminacion;
 import com.banco.admintelefonos.enums.ErrorCode;
 import com.banco.admintelefonos.model.Telefono;
 import com.banco.admintelefonos.service.TelefonoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.context.MessageSource;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,8 +60,21 @@ class TelefonoControllerTest {
     @Mock
     private TelefonoService telefonoService;
 
-    @Mock
-    private MessageSource messageSource;
+    @Spy
+    private ValidadorTelefono validadorTelefono = new ValidadorTelefono();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Spy
+    private ExportadorTelefonos exportadorTelefonos = new ExportadorTelefonos(objectMapper);
+
+    @Spy
+    private CamposTelefono camposTelefono = new CamposTelefono(objectMapper);
+
+    @Spy
+    private CatalogoErrores catalogoErrores = new CatalogoErrores(mensajes(), objectMapper, List.of("es", "en"));
 
     @InjectMocks
     private TelefonoController telefonoController;
@@ -52,58 +94,341 @@ class TelefonoControllerTest {
         telefono.setFechaCreacion(LocalDateTime.now());
         telefono.setImei("123456789012345");
         telefono.setEmailSoporte("test@example.com");
-        locale = Locale.getDefault();
+        locale = Locale.forLanguageTag("es-MX");
     }
 
     @Test
-    void obtenerTelefonos_deberiaRetornarPaginaDeTelefonos() {
+    void obtenerTelefonos_deberiaRetornarPaginaDeTelefonos() throws Exception {
         Pageable pageable = Pageable.unpaged();
         List<Telefono> telefonos = Arrays.asList(telefono);
         Page<Telefono> page = new PageImpl<>(telefonos, pageable, telefonos.size());
 
-        when(telefonoService.obtenerTelefonos(pageable)).thenReturn(page);
+        when(telefonoService.obtenerTelefonos(pageable, null)).thenReturn(page);
 
-        ResponseEntity<Page<Telefono>> response = telefonoController.obtenerTelefonos(pageable);
+        ResponseEntity<?> response = telefonoController.obtenerTelefonos(pageable, null, locale);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
     }
 
+    @Test
+    void obtenerTelefonos_deberiaProyectarYSerializarSoloLosCamposPedidos() throws Exception {
+        Pageable pageable = Pageable.ofSize(20);
+        Telefono proyectado = new Telefono();
+        proyectado.setId("1");
+        proyectado.setImei("123456789012345");
+        proyectado.setNombreCorto("A54");
+        Set<String> campos = Set.of("id", "imei", "nombreCorto");
+        when(telefonoService.obtenerTelefonos(pageable, campos))
+                .thenReturn(new PageImpl<>(List.of(proyectado), pageable, 1));
+
+        ResponseEntity<?> response = telefonoController.obtenerTelefonos(pageable, "imei, nombreCorto", locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        Map<?, ?> cuerpo = objectMapper.readValue((byte[]) response.getBody(), Map.class);
+        // Los campos no pedidos no aparecen, ni siquiera como null
+        assertEquals(List.of(Map.of("id", "1", "imei", "123456789012345", "nombreCorto", "A54")),
+                cuerpo.get("content"));
+    }
+
+    @Test
+    void obtenerTelefonos_deberiaRechazarCamposDesconocidos() throws Exception {
+        ResponseEntity<?> response = telefonoController.obtenerTelefonos(Pageable.ofSize(20), "imei,precio", locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.CAMPO_INVALIDO.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).obtenerTelefonos(any(), any());
+    }
+
+    @Test
+    void obtenerTelefonosPorCursor_deberiaLimitarTamanioDePagina() throws Exception {
+        PaginaCursor<Telefono> pagina = new PaginaCursor<>(Arrays.asList(telefono), 1, false, null);
+        when(telefonoService.obtenerTelefonosPorCursor(null, 1000, null)).thenReturn(pagina);
+
+        ResponseEntity<?> response = telefonoController.obtenerTelefonosPorCursor(null, 50000, null, locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(pagina, response.getBody());
+    }
+
+    @Test
+    void obtenerTelefonosPorCursor_deberiaRetornarErrorSiCursorEsInvalido() throws Exception {
+        when(telefonoService.obtenerTelefonosPorCursor("x", 20, null)).thenThrow(new IllegalArgumentException());
+
+        ResponseEntity<?> response = telefonoController.obtenerTelefonosPorCursor("x", 20, null, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.CURSOR_INVALIDO.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+    }
+
+    @Test
+    void exportarTelefonos_deberiaEscribirUnaLineaNdjsonPorTelefono() throws Exception {
+        Telefono otro = new Telefono();
+        otro.setId("2");
+        otro.setImei("987654321098765");
+        Stream<Telefono> telefonos = Stream.of(telefono, otro);
+        when(telefonoService.exportarTelefonos("Test Marca", null, null, null)).thenReturn(telefonos);
+
+        ResponseEntity<?> response = telefonoController.exportarTelefonos("ndjson", "Test Marca", null, null, null, locale);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(salida);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.parseMediaType("application/x-ndjson"), response.getHeaders().getContentType());
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lineas.length);
+        assertEquals("123456789012345", objectMapper.readValue(lineas[0], Telefono.class).getImei());
+        assertEquals("987654321098765", objectMapper.readValue(lineas[1], Telefono.class).getImei());
+    }
+
+    @Test
+    void exportarTelefonos_deberiaEscribirCsvConCamposEscapados() throws Exception {
+        telefono.setNombre("Nombre, con \"comillas\"");
+        telefono.setFechaCreacion(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        telefono.setTieneSistemaIOS(true);
+        when(telefonoService.exportarTelefonos(null, null, null, null)).thenReturn(Stream.of(telefono));
+
+        ResponseEntity<?> response = telefonoController.exportarTelefonos("csv", null, null, null, null, locale);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(salida);
+
+        assertEquals("text/csv;charset=UTF-8", response.getHeaders().getContentType().toString());
+        assertEquals(ExportadorTelefonos.ENCABEZADO_CSV
+                + "1,\"Nombre, con \"\"comillas\"\"\",Test Marca,Test Modelo,Test Corto,2024-01-02T03:04:05,"
+                + "123456789012345,,test@example.com,true\n", salida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportarTelefonos_deberiaEscribirSoloLasColumnasPedidas() throws Exception {
+        Set<String> campos = Set.of("id", "imei");
+        when(telefonoService.exportarTelefonos(null, null, null, campos)).thenReturn(Stream.of(telefono));
+
+        ResponseEntity<?> response = telefonoController.exportarTelefonos("csv", null, null, null, "imei", locale);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(salida);
+
+        assertEquals("id,imei\n1,123456789012345\n", salida.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportarTelefonos_deberiaRetornarErrorSiFormatoEsInvalido() {
+
+        ResponseEntity<?> response = telefonoController.exportarTelefonos("xml", null, null, null, null, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.FORMATO_EXPORTACION_INVALIDO.getCode(),
+                ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).exportarTelefonos(any(), any(), any(), any());
+    }
+
+    @Test
+    void buscarTelefonos_deberiaRechazarBusquedaSinCriterios() {
+        ResponseEntity<?> response = telefonoController.buscarTelefonos(" ", null, null, null, null, null, null,
+                "marca", 0, 20, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.BUSQUEDA_SIN_CRITERIOS.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).buscarTelefonos(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void buscarTelefonos_deberiaRechazarFacetaDesconocida() {
+        ResponseEntity<?> response = telefonoController.buscarTelefonos(null, null, "Sam", null, null, null, null,
+                "marca,imei", 0, 20, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.FACETA_INVALIDA.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+    }
+
+    @Test
+    void buscarTelefonos_deberiaAcotarElTamanioYPasarLasFacetasEnOrden() {
+        ResultadoBusqueda resultado = new ResultadoBusqueda(List.of(telefono), 1, 0, 100, Map.of());
+        when(telefonoService.buscarTelefonos(any(), anyInt(), anyInt())).thenReturn(resultado);
+
+        ResponseEntity<?> response = telefonoController.buscarTelefonos("galaxy", null, null, null, null, null, null,
+                "tieneSistemaIOS,marca", -3, 5000, locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(resultado, response.getBody());
+        verify(telefonoService).buscarTelefonos(argThat(criterios -> "galaxy".equals(criterios.getQ())
+                && List.copyOf(criterios.getFacetas()).equals(List.of("marca", "tieneSistemaIOS"))), eq(0), eq(100));
+    }
+
+    @Test
+    void obtenerEstadisticas_deberiaDevolverLosContadoresDelServicio() {
+        EstadisticasTelefono estadisticas = new EstadisticasTelefono(2, Map.of("Apple", 2L), 0, 2, 0, 0, 1.0,
+                Map.of("2024-06-10", 2L), null);
+        when(telefonoService.obtenerEstadisticas()).thenReturn(estadisticas);
+
+        ResponseEntity<EstadisticasTelefono> response = telefonoController.obtenerEstadisticas();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(estadisticas, response.getBody());
+    }
+
     @Test
     void obtenerTelefonoPorId_deberiaRetornarTelefonoExistente() {
         when(telefonoService.obtenerTelefonoPorId("1")).thenReturn(Optional.of(telefono));
 
-        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorId("1");
+        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorId("1", new HttpHeaders());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(telefono, response.getBody());
+        verify(telefonoService, never()).obtenerMetadatosPorId(anyString());
+    }
+
+    @Test
+    void obtenerTelefonoPorId_deberiaIncluirETagYLastModified() {
+        telefono.setVersion(3L);
+        telefono.setFechaModificacion(Instant.parse("2024-06-10T06:13:20.123Z"));
+        when(telefonoService.obtenerTelefonoPorId("1")).thenReturn(Optional.of(telefono));
+
+        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorId("1", new HttpHeaders());
+
+        assertEquals("\"1-3\"", response.getHeaders().getETag());
+        assertEquals(Instant.parse("2024-06-10T06:13:20Z").toEpochMilli(), response.getHeaders().getLastModified());
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaResponderNotModifiedSinLeerElTelefono() {
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setIfNoneMatch(List.of("\"9-1\"", "W/\"1-3\""));
+        when(telefonoService.obtenerMetadatosPorImei("123456789012345"))
+                .thenReturn(new MetadatosTelefono("1", 3L, Instant.parse("2024-06-10T06:13:20Z")));
+
+        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorImei("123456789012345", cabeceras);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"1-3\"", response.getHeaders().getETag());
+        verify(telefonoService, never()).obtenerTelefonoPorImei(anyString());
+    }
+
+    @Test
+    void obtenerTelefonoPorId_deberiaResponderNotModifiedConIfModifiedSince() {
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setIfModifiedSince(Instant.parse("2024-06-10T06:13:20Z"));
+        when(telefonoService.obtenerMetadatosPorId("1"))
+                .thenReturn(new MetadatosTelefono("1", 3L, Instant.parse("2024-06-10T06:13:20.900Z")));
+
+        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorId("1", cabeceras);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(telefonoService, never()).obtenerTelefonoPorId(anyString());
+    }
+
+    @Test
+    void obtenerTelefonoPorId_deberiaDevolverElTelefonoSiLaVersionCambio() {
+        telefono.setVersion(4L);
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setIfNoneMatch("\"1-3\"");
+        // If-None-Match tiene precedencia sobre If-Modified-Since
+        cabeceras.setIfModifiedSince(Instant.now());
+        when(telefonoService.obtenerMetadatosPorId("1")).thenReturn(new MetadatosTelefono("1", 4L, Instant.EPOCH));
+        when(telefonoService.obtenerTelefonoPorId("1")).thenReturn(Optional.of(telefono));
+
+        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorId("1", cabeceras);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(telefono, response.getBody());
+        assertEquals("\"1-4\"", response.getHeaders().getETag());
     }
 
     @Test
     void obtenerTelefonoPorId_deberiaRetornarNotFoundSiNoExiste() {
         when(telefonoService.obtenerTelefonoPorId("2")).thenReturn(Optional.empty());
 
-        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorId("2");
+        ResponseEntity<Telefono> response = telefonoController.obtenerTelefonoPorId("2", new HttpHeaders());
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void obtenerTelefonosPorImeis_deberiaRetornarEncontradosYNoEncontrados() throws Exception {
+        ResultadoConsultaImeis resultado = new ResultadoConsultaImeis(Map.of("123456789012345", telefono),
+                List.of("999"));
+        when(telefonoService.obtenerTelefonosPorImei(List.of("123456789012345", "999"))).thenReturn(resultado);
+
+        ResponseEntity<?> response = telefonoController.obtenerTelefonosPorImeis(
+                List.of("123456789012345", "999"), null, locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resultado, response.getBody());
+    }
+
+    @Test
+    void obtenerTelefonosPorImeis_deberiaSerializarSoloLosCamposPedidos() throws Exception {
+        ResultadoConsultaImeis resultado = new ResultadoConsultaImeis(Map.of("123456789012345", telefono),
+                List.of("999"));
+        when(telefonoService.obtenerTelefonosPorImei(List.of("123456789012345", "999"))).thenReturn(resultado);
+
+        ResponseEntity<?> response = telefonoController.obtenerTelefonosPorImeis(
+                List.of("123456789012345", "999"), "nombre", locale);
+
+        Map<?, ?> cuerpo = objectMapper.readValue((byte[]) response.getBody(), Map.class);
+        assertEquals(Map.of("123456789012345", Map.of("id", "1", "nombre", "Test Nombre")), cuerpo.get("encontrados"));
+        assertEquals(List.of("999"), cuerpo.get("noEncontrados"));
+    }
+
+    @Test
+    void obtenerTelefonosPorImeis_deberiaRechazarListaQueExcedeElMaximo() throws Exception {
+
+        ResponseEntity<?> response = telefonoController.obtenerTelefonosPorImeis(
+                Collections.nCopies(5001, "123456789012345"), null, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.LOTE_IMEIS_INVALIDO.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).obtenerTelefonosPorImei(any());
+    }
+
+    @Test
+    void obtenerTelefonosPorImeis_deberiaRechazarImeiVacio() throws Exception {
+        ResponseEntity<?> response = telefonoController.obtenerTelefonosPorImeis(Arrays.asList("123", " "), null,
+                locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(telefonoService, never()).obtenerTelefonosPorImei(any());
+    }
+
     @Test
     void crearTelefono_deberiaCrearTelefonoConExito() {
         when(telefonoService.guardarTelefono(telefono)).thenReturn(telefono);
 
-        ResponseEntity<?> response = telefonoController.crearTelefono(telefono, locale);
+        ResponseEntity<?> response = telefonoController.crearTelefono(telefono, false, locale);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(telefono, response.getBody());
+        verify(telefonoService, never()).obtenerTelefonoPorImei(anyString());
+    }
+
+    @Test
+    void crearTelefono_deberiaRetornarErrorSiImeiYaExiste() {
+        when(telefonoService.guardarTelefono(telefono)).thenThrow(new DuplicateKeyException(
+                "E11000 duplicate key error collection: admin.telefonos index: imei_unico dup key"));
+
+        ResponseEntity<?> response = telefonoController.crearTelefono(telefono, false, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.IMEI_YA_EXISTE.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+    }
+
+    @Test
+    void crearTelefono_deberiaDistinguirUnIdDuplicadoDeUnImeiDuplicado() {
+        when(telefonoService.guardarTelefono(telefono)).thenThrow(new DuplicateKeyException(
+                "E11000 duplicate key error collection: admin.telefonos index: _id_ dup key"));
+
+        ResponseEntity<?> response = telefonoController.crearTelefono(telefono, false, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.ID_YA_EXISTE.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
     }
 
     @Test
     void crearTelefono_deberiaRetornarErrorSiNombreEsNulo() {
         telefono.setNombre(null);
-        when(messageSource.getMessage("nombre.requerido", null, locale)).thenReturn("El nombre es requerido.");
 
-        ResponseEntity<?> response = telefonoController.crearTelefono(telefono, locale);
+        ResponseEntity<?> response = telefonoController.crearTelefono(telefono, false, locale);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         Object body = response.getBody(); // Obtener el body como Object para evitar el casting prematuro
@@ -117,23 +442,42 @@ class TelefonoControllerTest {
         }
     }
 
+    @Test
+    void crearTelefono_deberiaRetornarTodosLosErroresSiSeSolicita() {
+        telefono.setNombre(null);
+        telefono.setMarca("Marca #1");
+        telefono.setEmailSoporte("sin-arroba");
+
+        ResponseEntity<?> response = telefonoController.crearTelefono(telefono, true, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        @SuppressWarnings("unchecked")
+        List<ErrorResponse> errores = (List<ErrorResponse>) response.getBody();
+        assertEquals(Arrays.asList(ErrorCode.NOMBRE_REQUERIDO.getCode(), ErrorCode.MARCA_CARACTERES_ESPECIALES.getCode(),
+                ErrorCode.EMAIL_FORMATO_INVALIDO.getCode()),
+                errores.stream().map(ErrorResponse::getCodigoError).toList());
+        verify(telefonoService, never()).guardarTelefono(any());
+    }
+
     @Test
     void actualizarTelefono_deberiaActualizarTelefonoConExito() {
-        when(telefonoService.obtenerTelefonoPorId("1")).thenReturn(Optional.of(telefono));
-        when(telefonoService.guardarTelefono(telefono)).thenReturn(telefono);
+        when(telefonoService.actualizarTelefono("1", telefono, null)).thenReturn(Optional.of(telefono));
 
-        ResponseEntity<?> response = telefonoController.actualizarTelefono("1", telefono, locale);
+        ResponseEntity<?> response = telefonoController.actualizarTelefono("1", telefono, false, new HttpHeaders(),
+                locale);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(telefono, response.getBody());
+        verify(telefonoService, never()).obtenerTelefonoPorId(anyString());
+        verify(telefonoService, never()).guardarTelefono(any());
     }
 
     @Test
     void actualizarTelefono_deberiaRetornarNotFoundSiNoExiste() {
-        when(telefonoService.obtenerTelefonoPorId("2")).thenReturn(Optional.empty());
-        when(messageSource.getMessage("telefono.no.encontrado", null, locale)).thenReturn("Telefono no encontrado");
+        when(telefonoService.actualizarTelefono("2", telefono, null)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = telefonoController.actualizarTelefono("2", telefono, locale);
+        ResponseEntity<?> response = telefonoController.actualizarTelefono("2", telefono, false, new HttpHeaders(),
+                locale);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         Object body = response.getBody(); // Obtener el body como Object
@@ -148,22 +492,183 @@ class TelefonoControllerTest {
         }
     }
 
+    @Test
+    void actualizarTelefonoParcial_deberiaAplicarSoloLosCamposEnviados() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        when(telefonoService.actualizarTelefono("1", cambios, null)).thenReturn(Optional.of(telefono));
+
+        ResponseEntity<?> response = telefonoController.actualizarTelefonoParcial("1", cambios, new HttpHeaders(),
+                locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(telefono, response.getBody());
+    }
+
+    @Test
+    void actualizarTelefonoParcial_deberiaExigirLaVersionDeIfMatch() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        cambios.setVersion(7L);
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setIfMatch("\"1-3\"");
+        when(telefonoService.actualizarTelefono("1", cambios, 3L))
+                .thenThrow(new OptimisticLockingFailureException("version"));
+
+        ResponseEntity<?> response = telefonoController.actualizarTelefonoParcial("1", cambios, cabeceras, locale);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals(ErrorCode.VERSION_CONFLICTO.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+    }
+
+    @Test
+    void actualizarTelefonoParcial_conIfMatchDebilODeOtroDocumentoNoDeberiaCoincidir() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        HttpHeaders debil = new HttpHeaders();
+        debil.setIfMatch("W/\"1-3\"");
+        HttpHeaders otroDocumento = new HttpHeaders();
+        otroDocumento.setIfMatch("\"2-3\"");
+        HttpHeaders cualquiera = new HttpHeaders();
+        cualquiera.setIfMatch("*");
+
+        assertEquals(MetadatosTelefono.VERSION_INEXISTENTE, MetadatosTelefono.versionExigida("1", debil));
+        assertEquals(MetadatosTelefono.VERSION_INEXISTENTE, MetadatosTelefono.versionExigida("1", otroDocumento));
+        assertNull(MetadatosTelefono.versionExigida("1", cualquiera));
+    }
+
+    @Test
+    void actualizarTelefonoParcial_deberiaRechazarCampoInvalidoSinEscribir() {
+        Telefono cambios = new Telefono();
+        cambios.setNombre("Nombre $$$");
+
+        ResponseEntity<?> response = telefonoController.actualizarTelefonoParcial("1", cambios, new HttpHeaders(),
+                locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.NOMBRE_CARACTERES_ESPECIALES.getCode(),
+                ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).actualizarTelefono(anyString(), any(), any());
+    }
+
     @Test
     void eliminarTelefono_deberiaEliminarTelefonoConExito() {
-        when(telefonoService.obtenerTelefonoPorId("1")).thenReturn(Optional.of(telefono));
+        when(telefonoService.eliminarTelefono("1")).thenReturn(Optional.of(telefono));
 
         ResponseEntity<Void> response = telefonoController.eliminarTelefono("1");
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(telefonoService, times(1)).eliminarTelefono("1");
+        verify(telefonoService, never()).obtenerTelefonoPorId(anyString());
     }
 
     @Test
     void eliminarTelefono_deberiaRetornarNotFoundSiNoExiste() {
-        when(telefonoService.obtenerTelefonoPorId("2")).thenReturn(Optional.empty());
+        when(telefonoService.eliminarTelefono("2")).thenReturn(Optional.empty());
 
         ResponseEntity<Void> response = telefonoController.eliminarTelefono("2");
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void eliminarTelefonos_deberiaRetornarEliminadosYNoEncontrados() {
+        ResultadoEliminacion resultado = new ResultadoEliminacion(List.of("1"), List.of("2"));
+        when(telefonoService.eliminarTelefonos(List.of("1", "2"))).thenReturn(resultado);
+
+        ResponseEntity<?> response = telefonoController.eliminarTelefonos(List.of("1", "2"), locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resultado, response.getBody());
+    }
+
+    @Test
+    void eliminarTelefonos_deberiaRechazarListaVaciaOQueExcedeElMaximo() {
+        assertEquals(HttpStatus.BAD_REQUEST, telefonoController.eliminarTelefonos(List.of(), locale).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                telefonoController.eliminarTelefonos(Collections.nCopies(5001, "1"), locale).getStatusCode());
+        verify(telefonoService, never()).eliminarTelefonos(any());
+    }
+
+    @Test
+    void crearTelefonosBulk_deberiaReportarResultadoPorElemento() {
+        Telefono invalido = new Telefono();
+        invalido.setImei("999999999999999");
+        ResultadoBulk creado = ResultadoBulk.exito(0, "1", telefono.getImei(), ResultadoBulk.CREADO);
+        when(telefonoService.guardarTelefonosBulk(List.of(telefono), false)).thenReturn(List.of(creado));
+
+        ResponseEntity<?> response = telefonoController.crearTelefonosBulk(Arrays.asList(invalido, telefono), false,
+                locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        @SuppressWarnings("unchecked")
+        List<ResultadoBulk> resultados = (List<ResultadoBulk>) response.getBody();
+        assertEquals(2, resultados.size());
+        assertEquals(ResultadoBulk.ERROR, resultados.get(0).getEstado());
+        assertEquals(ErrorCode.NOMBRE_REQUERIDO.getCode(), resultados.get(0).getCodigoError());
+        assertEquals("El nombre es requerido.", resultados.get(0).getMensaje());
+        assertEquals(ResultadoBulk.CREADO, resultados.get(1).getEstado());
+        assertEquals(1, resultados.get(1).getIndice());
+        verify(telefonoService, never()).obtenerTelefonoPorImei(anyString());
+    }
+
+    @Test
+    void crearTelefonosBulkNdjson_deberiaLeerUnTelefonoPorLinea() throws Exception {
+        String linea = objectMapper.writeValueAsString(telefono);
+        ByteArrayInputStream cuerpo = new ByteArrayInputStream((linea + "\n" + linea + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        when(telefonoService.guardarTelefonosBulk(anyList(), eq(true))).thenAnswer(invocation -> {
+            List<Telefono> lote = invocation.getArgument(0);
+            return Arrays.asList(ResultadoBulk.exito(0, "1", telefono.getImei(), ResultadoBulk.ACTUALIZADO),
+                    ResultadoBulk.error(1, telefono.getImei(), ErrorCode.IMEI_YA_EXISTE)).subList(0, lote.size());
+        });
+
+        ResponseEntity<?> response = telefonoController.crearTelefonosBulkNdjson(cuerpo, true, locale);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        @SuppressWarnings("unchecked")
+        List<ResultadoBulk> resultados = (List<ResultadoBulk>) response.getBody();
+        assertEquals(2, resultados.size());
+        assertEquals(ErrorCode.IMEI_YA_EXISTE.getCode(), resultados.get(1).getCodigoError());
+    }
+
+    @Test
+    void crearTelefonosBulkNdjson_deberiaRetornarErrorSiLineaEsInvalida() {
+        ByteArrayInputStream cuerpo = new ByteArrayInputStream("{no es json".getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = telefonoController.crearTelefonosBulkNdjson(cuerpo, false, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.BULK_INVALIDO.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).guardarTelefonosBulk(anyList(), anyBoolean());
+    }
+
+    @Test
+    void crearTelefonosBulk_deberiaRechazarElementosNull() {
+        ResponseEntity<?> response = telefonoController.crearTelefonosBulk(Arrays.asList(telefono, null), false,
+                locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.BULK_INVALIDO.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).guardarTelefonosBulk(anyList(), anyBoolean());
+    }
+
+    @Test
+    void crearTelefonosBulkNdjson_deberiaRechazarUnaLineaNull() throws Exception {
+        String linea = objectMapper.writeValueAsString(telefono);
+        ByteArrayInputStream cuerpo = new ByteArrayInputStream((linea + "\nnull\n").getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<?> response = telefonoController.crearTelefonosBulkNdjson(cuerpo, false, locale);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(ErrorCode.BULK_INVALIDO.getCode(), ((ErrorResponse) response.getBody()).getCodigoError());
+        verify(telefonoService, never()).guardarTelefonosBulk(anyList(), anyBoolean());
+    }
+
+    static MessageSource mensajes() {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        return messageSource;
+    }
+}
@@ -0,0 +1,452 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.component.ContadoresTelefono;
+import com.banco.admintelefonos.component.MetricasTelefono;
+import com.banco.admintelefonos.component.PoliticaCacheTelefono;
+import com.banco.admintelefonos.component.TelefonoCacheLocal;
+import com.banco.admintelefonos.dto.ResultadoBulk;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.banco.admintelefonos.model.EventoInvalidacion;
+import com.banco.admintelefonos.model.Telefono;
+import com.banco.admintelefonos.repository.TelefonoReactivoRepository;
+import com.banco.admintelefonos.service.TelefonoReactivoService;
+import com.banco.admintelefonos.service.TelefonoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TelefonoReactivoServiceTest {
+
+    @Mock
+    private TelefonoReactivoRepository telefonoReactivoRepository;
+
+    @Mock
+    private ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, byte[]> valueOperations;
+
+    @Mock
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Spy
+    private CodecCacheTelefono codecCacheTelefono = new CodecCacheTelefono(
+            new ObjectMapper().registerModule(new JavaTimeModule()), CodecCacheTelefono.CODEC_BINARIO);
+
+    @Mock
+    private TelefonoCacheLocal telefonoCacheLocal;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private MetricasTelefono metricasTelefono = new MetricasTelefono(meterRegistry);
+
+    @Spy
+    private PoliticaCacheTelefono politicaCacheTelefono = new PoliticaCacheTelefono(Duration.ofHours(1), 0.1, 1.0);
+
+    @InjectMocks
+    private TelefonoReactivoService telefonoReactivoService;
+
+    private Telefono telefono;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        telefono = new Telefono();
+        telefono.setId("1");
+        telefono.setNombre("Test Nombre");
+        telefono.setMarca("Test Marca");
+        telefono.setModelo("Test Modelo");
+        telefono.setNombreCorto("Test Corto");
+        telefono.setFechaCreacion(LocalDateTime.now());
+        telefono.setImei("123456789012345");
+
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(reactiveMongoTemplate.insert(any(EventoInvalidacion.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(reactiveMongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(Flux.empty());
+        when(reactiveMongoTemplate.upsert(any(Query.class), any(Update.class), eq(ContadoresTelefono.COLECCION)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+    }
+
+    @Test
+    void obtenerTelefonos_deberiaRetornarPaginaConTotal() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(telefonoReactivoRepository.findAllBy(pageable)).thenReturn(Flux.just(telefono));
+        when(telefonoReactivoRepository.count()).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonos(pageable))
+                .assertNext(pagina -> {
+                    assertEquals(1, pagina.getTotalElements());
+                    assertEquals(telefono, pagina.getContent().get(0));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaRetornarDesdeCacheLocal() {
+        when(telefonoCacheLocal.obtener("123456789012345")).thenReturn(telefono);
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonoPorImei("123456789012345"))
+                .expectNext(telefono)
+                .verifyComplete();
+
+        verifyNoInteractions(valueOperations, telefonoReactivoRepository);
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaRetornarDesdeRedis() throws Exception {
+        byte[] telefonoBytes = codecCacheTelefono.codificar(telefono);
+        when(valueOperations.get("telefono:imei:123456789012345")).thenReturn(Mono.just(telefonoBytes));
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonoPorImei("123456789012345"))
+                .expectNext(telefono)
+                .verifyComplete();
+
+        verify(telefonoCacheLocal).guardar("123456789012345", telefono);
+        verifyNoInteractions(telefonoReactivoRepository);
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaConsultarMongoYGuardarEnCache() throws Exception {
+        when(valueOperations.get("telefono:imei:123456789012345")).thenReturn(Mono.empty());
+        when(telefonoReactivoRepository.findByImei("123456789012345")).thenReturn(Mono.just(telefono));
+        when(valueOperations.set(eq("telefono:imei:123456789012345"), any(byte[].class), any(Duration.class)))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonoPorImei("123456789012345"))
+                .expectNext(telefono)
+                .verifyComplete();
+
+        verify(valueOperations).set(eq("telefono:imei:123456789012345"), any(byte[].class), any(Duration.class));
+        verify(telefonoCacheLocal).guardar("123456789012345", telefono);
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "fallo").counter().count());
+        // Mismos timers de Redis que la variante servlet
+        assertEquals(1, meterRegistry.get("telefono.redis").tag("operacion", "get").timer().count());
+        assertEquals(1, meterRegistry.get("telefono.redis").tag("operacion", "set").timer().count());
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaConsultarMongoSiRedisFalla() {
+        when(valueOperations.get(anyString())).thenReturn(Mono.error(new IllegalStateException("redis caido")));
+        when(telefonoReactivoRepository.findByImei("123456789012345")).thenReturn(Mono.empty());
+        when(valueOperations.set(anyString(), any(byte[].class), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonoPorImei("123456789012345"))
+                .verifyComplete();
+
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "error").counter().count());
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaResponderVacioConEntradaNegativa() {
+        byte[] ausente = codecCacheTelefono.ausente();
+        when(valueOperations.get("telefono:imei:999999999999999")).thenReturn(Mono.just(ausente));
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonoPorImei("999999999999999"))
+                .verifyComplete();
+
+        verifyNoInteractions(telefonoReactivoRepository);
+        verify(telefonoCacheLocal).registrarAusente("999999999999999");
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaCompartirConsultaEntreSuscriptoresSimultaneos() {
+        Sinks.One<Telefono> respuestaMongo = Sinks.one();
+        when(valueOperations.get(anyString())).thenReturn(Mono.empty());
+        when(telefonoReactivoRepository.findByImei("123456789012345")).thenReturn(respuestaMongo.asMono());
+        when(valueOperations.set(eq("telefono:imei:123456789012345"), any(byte[].class), any(Duration.class)))
+                .thenReturn(Mono.just(true));
+
+        Mono<Telefono> primera = telefonoReactivoService.obtenerTelefonoPorImei("123456789012345");
+        Mono<Telefono> segunda = telefonoReactivoService.obtenerTelefonoPorImei("123456789012345");
+        StepVerifier.create(Mono.zip(primera, segunda))
+                .then(() -> respuestaMongo.tryEmitValue(telefono))
+                .assertNext(respuestas -> {
+                    assertSame(telefono, respuestas.getT1());
+                    assertSame(telefono, respuestas.getT2());
+                })
+                .verifyComplete();
+
+        verify(telefonoReactivoRepository, times(1)).findByImei("123456789012345");
+        assertEquals(1, meterRegistry.get("telefono.cache.consultas.compartidas").counter().count());
+    }
+
+    @Test
+    void guardarTelefono_deberiaInvalidarCache() {
+        when(telefonoReactivoRepository.save(telefono)).thenReturn(Mono.just(telefono));
+        when(reactiveRedisTemplate.delete("telefono:imei:123456789012345")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(telefonoReactivoService.guardarTelefono(telefono))
+                .expectNext(telefono)
+                .verifyComplete();
+
+        InOrder orden = inOrder(reactiveMongoTemplate, telefonoReactivoRepository, reactiveRedisTemplate);
+        orden.verify(reactiveMongoTemplate).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("123456789012345")) && evento.getBloqueadoHasta() != null));
+        orden.verify(telefonoReactivoRepository).save(telefono);
+        orden.verify(reactiveMongoTemplate).updateFirst(any(Query.class), argThat((Update update) ->
+                update.getUpdateObject().containsKey("$unset")), eq(EventoInvalidacion.class));
+        orden.verify(reactiveRedisTemplate).delete("telefono:imei:123456789012345");
+        verify(telefonoCacheLocal).invalidar("123456789012345");
+    }
+
+    @Test
+    void guardarTelefono_deberiaLiberarLaInvalidacionSiElSaveFalla() {
+        when(telefonoReactivoRepository.save(telefono)).thenReturn(Mono.error(new IllegalStateException("mongo caido")));
+
+        StepVerifier.create(telefonoReactivoService.guardarTelefono(telefono))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(reactiveMongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class));
+        verifyNoInteractions(reactiveRedisTemplate);
+    }
+
+    @Test
+    void actualizarTelefono_deberiaEmitirConflictoSiLaVersionCambio() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Telefono.class))).thenReturn(Mono.empty());
+        when(telefonoReactivoRepository.existsById("1")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(telefonoReactivoService.actualizarTelefono("1", cambios, 2L))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        verify(reactiveMongoTemplate, never()).insert(any(EventoInvalidacion.class));
+    }
+
+    @Test
+    void actualizarTelefono_deberiaInvalidarCacheConElDocumentoDevuelto() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(Flux.just(telefono));
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Telefono.class))).thenReturn(Mono.just(telefono));
+        when(reactiveRedisTemplate.delete("telefono:imei:123456789012345")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(telefonoReactivoService.actualizarTelefono("1", cambios, null))
+                .expectNext(telefono)
+                .verifyComplete();
+
+        // La invalidacion se guarda reservada antes de escribir y se libera despues
+        InOrder orden = inOrder(reactiveMongoTemplate);
+        orden.verify(reactiveMongoTemplate).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("123456789012345")) && evento.getBloqueadoHasta() != null));
+        orden.verify(reactiveMongoTemplate).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Telefono.class));
+        orden.verify(reactiveMongoTemplate).updateFirst(any(Query.class), any(Update.class),
+                eq(EventoInvalidacion.class));
+        verify(reactiveMongoTemplate, times(1)).insert(any(EventoInvalidacion.class));
+        verify(telefonoCacheLocal).invalidar("123456789012345");
+        verify(telefonoReactivoRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    void eliminarTelefono_deberiaEliminarEInvalidarCache() {
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(Flux.just(telefono));
+        when(reactiveMongoTemplate.findAndRemove(any(Query.class), eq(Telefono.class))).thenReturn(Mono.just(telefono));
+        when(reactiveRedisTemplate.delete("telefono:imei:123456789012345")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(telefonoReactivoService.eliminarTelefono("1"))
+                .expectNext(true)
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate).upsert(any(Query.class), argThat((Update update) ->
+                update.getUpdateObject().get("$inc", Document.class).get("total").equals(-1L)),
+                eq(ContadoresTelefono.COLECCION));
+        InOrder orden = inOrder(reactiveMongoTemplate);
+        orden.verify(reactiveMongoTemplate).insert(argThat((EventoInvalidacion evento) ->
+                evento.getBloqueadoHasta() != null));
+        orden.verify(reactiveMongoTemplate).findAndRemove(any(Query.class), eq(Telefono.class));
+        verify(reactiveMongoTemplate, times(1)).insert(any(EventoInvalidacion.class));
+        verify(telefonoCacheLocal).invalidar("123456789012345");
+        verifyNoInteractions(telefonoReactivoRepository);
+    }
+
+    @Test
+    void actualizarTelefono_noDeberiaFallarSiLosContadoresFallan() {
+        Telefono cambios = new Telefono();
+        cambios.setMarca("Otra Marca");
+        when(reactiveMongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Telefono.class))).thenReturn(Mono.just(telefono));
+        when(reactiveMongoTemplate.upsert(any(Query.class), any(Update.class), eq(ContadoresTelefono.COLECCION)))
+                .thenReturn(Mono.error(new IllegalStateException("sin mongo")));
+        when(reactiveRedisTemplate.delete("telefono:imei:123456789012345")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(telefonoReactivoService.actualizarTelefono("1", cambios, null))
+                .expectNextMatches(actualizado -> "Otra Marca".equals(actualizado.getMarca()))
+                .verifyComplete();
+    }
+
+    @Test
+    void eliminarTelefono_deberiaRetornarFalseSiNoExiste() {
+        when(reactiveMongoTemplate.findAndRemove(any(Query.class), eq(Telefono.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(telefonoReactivoService.eliminarTelefono("1"))
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate, never()).insert(any(EventoInvalidacion.class));
+    }
+
+    @Test
+    void obtenerTelefonosPorCursor_deberiaEmitirElSiguienteCursorYRechazarUnoInvalido() {
+        Telefono primero = new Telefono();
+        primero.setId(new ObjectId().toHexString());
+        Telefono segundo = new Telefono();
+        segundo.setId(new ObjectId().toHexString());
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Telefono.class)))
+                .thenReturn(Flux.just(primero, segundo, telefono));
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonosPorCursor(null, 2, null))
+                .assertNext(pagina -> {
+                    assertEquals(List.of(primero, segundo), pagina.getContenido());
+                    assertTrue(pagina.isTieneSiguiente());
+                    assertNotNull(pagina.getSiguienteCursor());
+                })
+                .verifyComplete();
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonosPorCursor("no-es-un-cursor", 2, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void guardarTelefonosBulk_deberiaEscribirUnBulkYMapearLasLlavesDuplicadas() {
+        Telefono otro = new Telefono();
+        otro.setImei("999999999999999");
+        otro.setMarca("Otra Marca");
+        ReactiveBulkOperations bulkOperations = mock(ReactiveBulkOperations.class);
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(Flux.empty());
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Telefono.class))
+                .thenReturn(bulkOperations);
+        List<BulkWriteError> errores = List.of(new BulkWriteError(11000,
+                "E11000 duplicate key error index: imei_unico dup key", new BsonDocument(), 1));
+        when(bulkOperations.execute()).thenReturn(Mono.error(new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), errores, null, new ServerAddress(), Set.of())));
+        when(reactiveRedisTemplate.delete("telefono:imei:123456789012345")).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(telefonoReactivoService.guardarTelefonosBulk(List.of(telefono, otro), false))
+                .assertNext(resultados -> {
+                    assertEquals(ResultadoBulk.CREADO, resultados.get(0).getEstado());
+                    assertEquals(ErrorCode.IMEI_YA_EXISTE, resultados.get(1).getError());
+                })
+                .verifyComplete();
+
+        verify(bulkOperations).insert(telefono);
+        verify(bulkOperations).insert(otro);
+        verify(reactiveMongoTemplate).insert(any(EventoInvalidacion.class));
+        // La reserva se libera aunque el bulk termine con errores
+        verify(reactiveMongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class));
+        // Solo el telefono escrito cuenta y se invalida
+        verify(reactiveMongoTemplate).upsert(any(Query.class), argThat((Update update) ->
+                update.getUpdateObject().get("$inc", Document.class).get("total").equals(1L)),
+                eq(ContadoresTelefono.COLECCION));
+        verify(telefonoCacheLocal).invalidar("123456789012345");
+        verify(telefonoCacheLocal, never()).invalidar("999999999999999");
+    }
+
+    @Test
+    void obtenerTelefonosPorImei_deberiaLeerRedisConUnMgetYBuscarLosFaltantesEnMongo() throws Exception {
+        Telefono enMongo = new Telefono();
+        enMongo.setId("2");
+        enMongo.setImei("222222222222222");
+        byte[] telefonoBytes = codecCacheTelefono.codificar(telefono);
+        byte[] ausente = codecCacheTelefono.ausente();
+        when(valueOperations.multiGet(List.of("telefono:imei:333333333333333", "telefono:imei:123456789012345",
+                "telefono:imei:222222222222222")))
+                .thenReturn(Mono.just(Arrays.asList(null, telefonoBytes, null)));
+        when(telefonoReactivoRepository.findByImeiIn(List.of("333333333333333", "222222222222222")))
+                .thenReturn(Flux.just(enMongo));
+        when(valueOperations.set(anyString(), any(byte[].class), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(telefonoReactivoService.obtenerTelefonosPorImei(
+                        List.of("333333333333333", "123456789012345", "222222222222222", "123456789012345")))
+                .assertNext(resultado -> {
+                    assertEquals(List.of("123456789012345", "222222222222222"),
+                            List.copyOf(resultado.getEncontrados().keySet()));
+                    assertEquals(Map.of("123456789012345", telefono, "222222222222222", enMongo),
+                            resultado.getEncontrados());
+                    assertEquals(List.of("333333333333333"), resultado.getNoEncontrados());
+                })
+                .verifyComplete();
+
+        verify(telefonoCacheLocal).registrarAusente("333333333333333");
+        verify(valueOperations).set(eq("telefono:imei:222222222222222"), any(byte[].class), any(Duration.class));
+        verify(valueOperations).set(eq("telefono:imei:333333333333333"), eq(ausente),
+                any(Duration.class));
+    }
+
+    @Test
+    void eliminarTelefonos_deberiaBorrarEnUnaEscrituraEInvalidarLosImeisJuntos() {
+        Telefono otro = new Telefono();
+        otro.setId("2");
+        otro.setImei("222222222222222");
+        when(reactiveMongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(Flux.just(telefono, otro));
+        when(reactiveMongoTemplate.findAllAndRemove(any(Query.class), eq(Telefono.class)))
+                .thenReturn(Flux.just(telefono, otro));
+        when(reactiveRedisTemplate.delete("telefono:imei:123456789012345", "telefono:imei:222222222222222"))
+                .thenReturn(Mono.just(2L));
+
+        StepVerifier.create(telefonoReactivoService.eliminarTelefonos(List.of("2", "3", "1")))
+                .assertNext(resultado -> {
+                    assertEquals(List.of("2", "1"), resultado.getEliminados());
+                    assertEquals(List.of("3"), resultado.getNoEncontrados());
+                })
+                .verifyComplete();
+
+        verify(reactiveMongoTemplate, times(1)).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("123456789012345", "222222222222222"))
+                        && evento.getBloqueadoHasta() != null));
+        verify(reactiveRedisTemplate).delete("telefono:imei:123456789012345", "telefono:imei:222222222222222");
+        verify(reactiveMongoTemplate).upsert(any(Query.class), argThat((Update update) ->
+                update.getUpdateObject().get("$inc", Document.class).get("total").equals(-2L)),
+                eq(ContadoresTelefono.COLECCION));
+    }
+}
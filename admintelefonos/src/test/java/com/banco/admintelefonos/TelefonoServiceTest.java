@@ -1,25 +1,93 @@
 package com.banco.admintelefonos;
 
+import com.banco.admintelefonos.component.CodecCacheTelefono;
+import com.banco.admintelefonos.component.ContadoresTelefono;
+import com.banco.admintelefonos.component.IndiceImei;
+import com.banco.admintelefonos.component.LimitadorConcurrencia;
+import com.banco.admintelefonos.component.MetricasTelefono;
+import com.banco.admintelefonos.component.PoliticaCacheTelefono;
+import com.banco.admintelefonos.component.RelayInvalidaciones;
+import com.banco.admintelefonos.component.SnapshotImei;
+import com.banco.admintelefonos.component.TelefonoCacheLocal;
+import com.banco.admintelefonos.dto.CriteriosBusqueda;
+import com.banco.admintelefonos.dto.EntradaCacheTelefono;
+import com.banco.admintelefonos.dto.MetadatosTelefono;
+import com.banco.admintelefonos.dto.PaginaCursor;
+import com.banco.admintelefonos.dto.ResultadoBulk;
+import com.banco.admintelefonos.dto.ResultadoBusqueda;
+import com.banco.admintelefonos.dto.ResultadoConsultaImeis;
+import com.banco.admintelefonos.dto.ResultadoEliminacion;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.banco.admintelefonos.model.EventoInvalidacion;
 import com.banco.admintelefonos.model.Telefono;
 import com.banco.admintelefonos.repository.TelefonoRepository;
 import com.banco.admintelefonos.service.TelefonoService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,16 +98,34 @@ class TelefonoServiceTest {
     private TelefonoRepository telefonoRepository;
 
     @Mock
-    private RedisTemplate<String, String> redisTemplate;
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    @Spy
+    private CodecCacheTelefono codecCacheTelefono = new CodecCacheTelefono(
+            new ObjectMapper().registerModule(new JavaTimeModule()), CodecCacheTelefono.CODEC_BINARIO);
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private ValueOperations<String, byte[]> valueOperations;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private TelefonoCacheLocal telefonoCacheLocal;
 
     @Mock
-    private ValueOperations<String, String> valueOperations;
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private MetricasTelefono metricasTelefono = new MetricasTelefono(meterRegistry);
+
+    @Spy
+    private LimitadorConcurrencia limitadorConcurrencia = new LimitadorConcurrencia(10, 10, Duration.ofSeconds(1));
+
+    @Spy
+    private PoliticaCacheTelefono politicaCacheTelefono = new PoliticaCacheTelefono(Duration.ofHours(1), 0.1, 1.0);
+
+    @Mock
+    private ContadoresTelefono contadoresTelefono;
 
     @InjectMocks
     private TelefonoService telefonoService;
@@ -76,6 +162,92 @@ class TelefonoServiceTest {
         verify(telefonoRepository, times(1)).findAll(pageable);
     }
 
+    @Test
+    void obtenerTelefonos_deberiaAplicarLaProyeccionEnMongo() {
+        Pageable pageable = Pageable.ofSize(2);
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(List.of(telefono));
+
+        Page<Telefono> result = telefonoService.obtenerTelefonos(pageable, Set.of("id", "imei"));
+
+        assertEquals(List.of(telefono), result.getContent());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Telefono.class));
+        assertEquals(Set.of("id", "imei"), query.getValue().getFieldsObject().keySet());
+        assertEquals(2, query.getValue().getLimit());
+        // Una pagina incompleta desde el inicio ya da el total
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Telefono.class));
+        verify(telefonoRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void obtenerTelefonosPorCursor_deberiaRetornarSiguienteCursorSiHayMasElementos() {
+        List<Telefono> telefonos = new ArrayList<>();
+        for (String id : Arrays.asList("65f000000000000000000001", "65f000000000000000000002",
+                "65f000000000000000000003")) {
+            Telefono t = new Telefono();
+            t.setId(id);
+            telefonos.add(t);
+        }
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(telefonos);
+
+        PaginaCursor<Telefono> result = telefonoService.obtenerTelefonosPorCursor(null, 2);
+
+        assertEquals(2, result.getTamanio());
+        assertTrue(result.isTieneSiguiente());
+        assertEquals("o:65f000000000000000000002",
+                new String(Base64.getUrlDecoder().decode(result.getSiguienteCursor())));
+    }
+
+    @Test
+    void obtenerTelefonosPorCursor_deberiaContinuarDespuesDeUnIdDeTexto() {
+        List<Telefono> telefonos = new ArrayList<>();
+        for (String id : Arrays.asList("cliente-1", "cliente-2", "65f000000000000000000001")) {
+            Telefono t = new Telefono();
+            t.setId(id);
+            telefonos.add(t);
+        }
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(telefonos);
+
+        PaginaCursor<Telefono> primera = telefonoService.obtenerTelefonosPorCursor(null, 2);
+        telefonoService.obtenerTelefonosPorCursor(primera.getSiguienteCursor(), 2);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(query.capture(), eq(Telefono.class));
+        MappingMongoConverter converter = conversor();
+        Document filtro = new QueryMapper(converter).getMappedObject(query.getAllValues().get(1).getQueryObject(),
+                converter.getMappingContext().getPersistentEntity(Telefono.class));
+        // Los textos mayores y despues todos los ObjectId, que Mongo ordena despues de los textos
+        assertEquals(List.of(new Document("_id", new Document("$gt", "cliente-2")),
+                new Document("_id", new Document("$type", List.of("objectId")))), filtro.get("$or"));
+    }
+
+    @Test
+    void obtenerTelefonosPorCursor_deberiaRechazarCursorInvalido() {
+        String cursor = Base64.getUrlEncoder().encodeToString("no-es-un-id".getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> telefonoService.obtenerTelefonosPorCursor(cursor, 10));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Telefono.class));
+    }
+
+    @Test
+    void exportarTelefonos_deberiaAbrirCursorConFiltroDeMarcaYFechas() {
+        LocalDateTime desde = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime hasta = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(mongoTemplate.stream(any(Query.class), eq(Telefono.class))).thenReturn(Stream.of(telefono));
+
+        try (Stream<Telefono> result = telefonoService.exportarTelefonos("Test Marca", desde, hasta)) {
+            assertEquals(List.of(telefono), result.toList());
+        }
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Telefono.class));
+        assertEquals("Test Marca", query.getValue().getQueryObject().get("marca"));
+        Document fecha = (Document) query.getValue().getQueryObject().get("fechaCreacion");
+        assertEquals(desde, fecha.get("$gte"));
+        assertEquals(hasta, fecha.get("$lt"));
+        assertEquals(1000, query.getValue().getMeta().getCursorBatchSize());
+    }
+
     @Test
     void obtenerTelefonoPorId_deberiaRetornarTelefonoSiExiste() {
         when(telefonoRepository.findById("1")).thenReturn(Optional.of(telefono));
@@ -97,60 +269,690 @@ class TelefonoServiceTest {
         verify(telefonoRepository, times(1)).findById("2");
     }
 
+    @Test
+    void obtenerTelefonoPorImei_deberiaRetornarTelefonoDeCacheLocalSinConsultarRedis() {
+        String imei = "123456789012345";
+        when(telefonoCacheLocal.obtener(imei)).thenReturn(telefono);
+
+        Optional<Telefono> result = telefonoService.obtenerTelefonoPorImei(imei);
+
+        assertTrue(result.isPresent());
+        assertEquals(telefono, result.get());
+        verify(valueOperations, never()).get(anyString());
+        verify(telefonoRepository, never()).findByImei(imei);
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaResponderDesdeElSnapshotSinCacheNiMongo() {
+        SnapshotImei snapshotImei = mock(SnapshotImei.class);
+        ReflectionTestUtils.setField(telefonoService, "snapshotImei", snapshotImei);
+        when(snapshotImei.clave("123456789012345")).thenReturn(123456789012345L);
+        when(snapshotImei.clave("999999999999999")).thenReturn(999999999999999L);
+        when(snapshotImei.clave("ABC")).thenReturn(IndiceImei.SIN_CLAVE);
+        when(snapshotImei.obtener(123456789012345L)).thenReturn(telefono);
+        when(telefonoRepository.findByImei("ABC")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(telefono), telefonoService.obtenerTelefonoPorImei("123456789012345"));
+        assertEquals(Optional.empty(), telefonoService.obtenerTelefonoPorImei("999999999999999"));
+        assertEquals(Optional.empty(), telefonoService.obtenerTelefonoPorImei("ABC"));
+
+        verify(telefonoCacheLocal, never()).obtener("123456789012345");
+        verify(valueOperations, never()).get("telefono:imei:123456789012345");
+        verify(telefonoRepository, never()).findByImei("999999999999999");
+        // Los IMEIs que el snapshot no indexa siguen el camino normal
+        verify(telefonoRepository).findByImei("ABC");
+        assertEquals(2, meterRegistry.get("telefono.cache.imei").tag("resultado", "acierto_snapshot").counter().count());
+    }
+
     @Test
     void obtenerTelefonoPorImei_deberiaRetornarTelefonoDeCacheSiExiste() throws Exception {
         String imei = "123456789012345";
         String cacheKey = "telefono:imei:" + imei;
-        String telefonoJson = "{\"imei\":\"123456789012345\"}";
+        byte[] telefonoBytes = codecCacheTelefono.codificar(telefono);
 
-        when(valueOperations.get(cacheKey)).thenReturn(telefonoJson);
-        when(objectMapper.readValue(telefonoJson, Telefono.class)).thenReturn(telefono);
+        when(valueOperations.get(cacheKey)).thenReturn(telefonoBytes);
 
         Optional<Telefono> result = telefonoService.obtenerTelefonoPorImei(imei);
 
         assertTrue(result.isPresent());
         assertEquals(telefono, result.get());
         verify(telefonoRepository, never()).findByImei(imei);
+        verify(telefonoCacheLocal, times(1)).guardar(imei, telefono);
     }
 
     @Test
     void obtenerTelefonoPorImei_deberiaRetornarTelefonoDeRepositorioSiNoExisteEnCache() throws Exception {
         String imei = "123456789012345";
         String cacheKey = "telefono:imei:" + imei;
-        String telefonoJson = "{\"imei\":\"123456789012345\"}";
 
         when(valueOperations.get(cacheKey)).thenReturn(null);
         when(telefonoRepository.findByImei(imei)).thenReturn(Optional.of(telefono));
-        when(objectMapper.writeValueAsString(telefono)).thenReturn(telefonoJson);
 
         Optional<Telefono> result = telefonoService.obtenerTelefonoPorImei(imei);
 
         assertTrue(result.isPresent());
         assertEquals(telefono, result.get());
-        verify(valueOperations, times(1)).set(cacheKey, telefonoJson);
+        ArgumentCaptor<byte[]> guardado = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<Duration> ttl = ArgumentCaptor.forClass(Duration.class);
+        verify(valueOperations, times(1)).set(eq(cacheKey), guardado.capture(), ttl.capture());
+        EntradaCacheTelefono entrada = codecCacheTelefono.decodificarEntrada(guardado.getValue());
+        assertEquals(telefono, entrada.getTelefono());
+        assertEquals(ttl.getValue().toMillis(), entrada.getTtlMillis());
+        assertTrue(ttl.getValue().compareTo(Duration.ofMinutes(54)) >= 0
+                && ttl.getValue().compareTo(Duration.ofMinutes(66)) <= 0);
+        verify(telefonoCacheLocal, times(1)).guardar(imei, telefono);
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "fallo").counter().count());
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaRefrescarAnticipadamenteDesdeMongo() {
+        String imei = "123456789012345";
+        EntradaCacheTelefono entrada = new EntradaCacheTelefono(telefono, System.currentTimeMillis() - 3_600_000L,
+                3_600_000L, 5_000L);
+        byte[] telefonoBytes = codecCacheTelefono.codificarEntrada(entrada);
+        when(valueOperations.get("telefono:imei:" + imei)).thenReturn(telefonoBytes);
+        when(telefonoRepository.findByImei(imei)).thenReturn(Optional.of(telefono));
+        doReturn(true).when(politicaCacheTelefono).debeRefrescar(any(EntradaCacheTelefono.class), anyLong());
+
+        Optional<Telefono> result = telefonoService.obtenerTelefonoPorImei(imei);
+
+        assertEquals(Optional.of(telefono), result);
+        verify(telefonoRepository, times(1)).findByImei(imei);
+        verify(valueOperations, times(1)).set(eq("telefono:imei:" + imei), any(byte[].class), any(Duration.class));
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "refresco_anticipado").counter()
+                .count());
+        assertTrue(meterRegistry.get("telefono.cache.edad").timer().totalTime(TimeUnit.MINUTES) >= 59);
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaConsultarRepositorioSiRedisFalla() {
+        String imei = "123456789012345";
+        when(valueOperations.get("telefono:imei:" + imei)).thenThrow(new IllegalStateException("sin conexion"));
+        when(telefonoRepository.findByImei(imei)).thenReturn(Optional.of(telefono));
+
+        Optional<Telefono> result = telefonoService.obtenerTelefonoPorImei(imei);
+
+        assertTrue(result.isPresent());
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "error").counter().count());
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaResponderVacioConEntradaNegativaSinConsultarMongo() {
+        String imei = "999999999999999";
+        byte[] ausente = codecCacheTelefono.ausente();
+        when(valueOperations.get("telefono:imei:" + imei)).thenReturn(ausente);
+
+        Optional<Telefono> result = telefonoService.obtenerTelefonoPorImei(imei);
+
+        assertTrue(result.isEmpty());
+        verify(telefonoRepository, never()).findByImei(imei);
+        verify(telefonoCacheLocal, times(1)).registrarAusente(imei);
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "acierto_negativo").counter().count());
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaGuardarEntradaNegativaConTtlSiNoExiste() {
+        String imei = "999999999999999";
+        when(telefonoRepository.findByImei(imei)).thenReturn(Optional.empty());
+
+        Optional<Telefono> result = telefonoService.obtenerTelefonoPorImei(imei);
+
+        assertTrue(result.isEmpty());
+        ArgumentCaptor<byte[]> guardado = ArgumentCaptor.forClass(byte[].class);
+        verify(valueOperations, times(1)).set(eq("telefono:imei:" + imei), guardado.capture(),
+                eq(Duration.ofSeconds(30)));
+        assertTrue(codecCacheTelefono.esAusente(guardado.getValue()));
+        verify(telefonoCacheLocal, times(1)).registrarAusente(imei);
+    }
+
+    @Test
+    void obtenerTelefonoPorImei_deberiaCompartirConsultaEntrePeticionesSimultaneas() throws Exception {
+        String imei = "123456789012345";
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarConsulta = new CountDownLatch(1);
+        when(telefonoRepository.findByImei(imei)).thenAnswer(invocation -> {
+            consultaIniciada.countDown();
+            liberarConsulta.await(5, TimeUnit.SECONDS);
+            return Optional.of(telefono);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Telefono>> primera = executor.submit(() -> telefonoService.obtenerTelefonoPorImei(imei));
+            assertTrue(consultaIniciada.await(5, TimeUnit.SECONDS));
+            Future<Optional<Telefono>> segunda = executor.submit(() -> telefonoService.obtenerTelefonoPorImei(imei));
+            Counter compartidas = meterRegistry.get("telefono.cache.consultas.compartidas").counter();
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (compartidas.count() < 1 && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+            liberarConsulta.countDown();
+
+            assertEquals(Optional.of(telefono), primera.get(5, TimeUnit.SECONDS));
+            assertEquals(Optional.of(telefono), segunda.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(telefonoRepository, times(1)).findByImei(imei);
+        assertEquals(1, meterRegistry.get("telefono.cache.consultas.compartidas").counter().count());
+    }
+
+    @Test
+    void obtenerTelefonosPorImei_deberiaResolverCadaNivelConUnaSolaLlamada() {
+        Telefono local = telefonoConImei("111");
+        Telefono enRedis = telefonoConImei("222");
+        Telefono enMongo = telefonoConImei("444");
+        byte[] enRedisBytes = codecCacheTelefono.codificar(enRedis);
+        byte[] ausenteBytes = codecCacheTelefono.ausente();
+        when(telefonoCacheLocal.obtener("111")).thenReturn(local);
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(enRedisBytes, ausenteBytes, null, null));
+        when(telefonoRepository.findByImeiIn(anyCollection())).thenReturn(List.of(enMongo));
+        RedisStringCommands comandos = ejecutarPipelineCon();
+
+        ResultadoConsultaImeis result = telefonoService.obtenerTelefonosPorImei(
+                List.of("111", "222", "333", "444", "555", "222"));
+
+        assertEquals(List.of("111", "222", "444"), List.copyOf(result.getEncontrados().keySet()));
+        assertEquals(Map.of("111", local, "222", enRedis, "444", enMongo), result.getEncontrados());
+        assertEquals(List.of("333", "555"), result.getNoEncontrados());
+        verify(valueOperations, times(1)).multiGet(List.of("telefono:imei:222", "telefono:imei:333",
+                "telefono:imei:444", "telefono:imei:555"));
+        verify(telefonoRepository, times(1)).findByImeiIn(List.of("444", "555"));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(comandos).set(eq("telefono:imei:444".getBytes()), any(byte[].class), any(Expiration.class),
+                eq(SetOption.UPSERT));
+        verify(comandos).set(eq("telefono:imei:555".getBytes()), eq(ausenteBytes),
+                eq(Expiration.from(Duration.ofSeconds(30))), eq(SetOption.UPSERT));
+        verify(telefonoCacheLocal).registrarAusente("555");
+        verify(telefonoRepository, never()).findByImei(anyString());
+    }
+
+    @Test
+    void obtenerTelefonosPorImei_deberiaConsultarMongoSiRedisFalla() {
+        Telefono enMongo = telefonoConImei("111");
+        when(valueOperations.multiGet(anyList())).thenThrow(new RuntimeException("Redis no disponible"));
+        when(telefonoRepository.findByImeiIn(anyCollection())).thenReturn(List.of(enMongo));
+        ejecutarPipelineCon();
+
+        ResultadoConsultaImeis result = telefonoService.obtenerTelefonosPorImei(List.of("111", "222"));
+
+        assertEquals(Map.of("111", enMongo), result.getEncontrados());
+        assertEquals(List.of("222"), result.getNoEncontrados());
+        verify(telefonoRepository, times(1)).findByImeiIn(List.of("111", "222"));
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "error").counter().count());
+    }
+
+    @Test
+    void obtenerTelefonosPorImei_noDeberiaConsultarRedisNiMongoSiTodoEstaEnCacheLocal() {
+        when(telefonoCacheLocal.obtener("111")).thenReturn(telefono);
+        when(telefonoCacheLocal.estaAusente("222")).thenReturn(true);
+
+        ResultadoConsultaImeis result = telefonoService.obtenerTelefonosPorImei(List.of("111", "222"));
+
+        assertEquals(Map.of("111", telefono), result.getEncontrados());
+        assertEquals(List.of("222"), result.getNoEncontrados());
+        verifyNoInteractions(valueOperations, telefonoRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisStringCommands ejecutarPipelineCon() {
+        RedisStringCommands comandos = mock(RedisStringCommands.class);
+        RedisConnection conexion = mock(RedisConnection.class);
+        when(conexion.stringCommands()).thenReturn(comandos);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(conexion);
+            return List.of();
+        });
+        return comandos;
+    }
+
+    private static Telefono telefonoConImei(String imei) {
+        Telefono t = new Telefono();
+        t.setId("id-" + imei);
+        t.setImei(imei);
+        return t;
+    }
+
+    @Test
+    void obtenerMetadatosPorImei_deberiaLeerLaEntradaDeRedisSinDecodificarla() {
+        telefono.setVersion(3L);
+        telefono.setFechaModificacion(Instant.ofEpochMilli(1_718_000_000_000L));
+        byte[] entrada = codecCacheTelefono.codificarEntrada(new EntradaCacheTelefono(telefono, 1L, 60_000L, 1L));
+        when(valueOperations.get("telefono:imei:123456789012345")).thenReturn(entrada);
+
+        MetadatosTelefono metadatos = telefonoService.obtenerMetadatosPorImei("123456789012345");
+
+        assertEquals(MetadatosTelefono.de(telefono), metadatos);
+        verify(codecCacheTelefono, never()).decodificarEntrada(any());
+        verify(telefonoCacheLocal, never()).guardar(anyString(), any());
+        verify(telefonoRepository, never()).findByImei(anyString());
+    }
+
+    @Test
+    void obtenerMetadatosPorId_deberiaConsultarSoloLosValidadores() {
+        telefono.setVersion(3L);
+        when(mongoTemplate.findOne(any(Query.class), eq(Telefono.class))).thenReturn(telefono);
+
+        assertEquals(MetadatosTelefono.de(telefono), telefonoService.obtenerMetadatosPorId("1"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findOne(query.capture(), eq(Telefono.class));
+        assertEquals(new Document("version", 1).append("fechaModificacion", 1), query.getValue().getFieldsObject());
+        verify(telefonoRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void agregacionBusqueda_deberiaPonerTextoYPrefijosAntesDelFacet() {
+        CriteriosBusqueda criterios = new CriteriosBusqueda("galaxy", null, "Sam.sung", "A5", null,
+                LocalDateTime.of(2024, 1, 1, 0, 0), null, Set.of("marca"));
+
+        List<Document> etapas = pipeline(TelefonoService.agregacionBusqueda(criterios, 2, 10));
+
+        assertEquals(new Document("$search", "galaxy"), etapas.get(0).get("$match", Document.class).get("$text"));
+        List<Document> filtros = etapas.get(1).get("$match", Document.class).getList("$and", Document.class);
+        assertEquals("^Sam\\.sung", filtros.get(0).get("marca", Pattern.class).pattern());
+        assertEquals("^A5", filtros.get(1).get("modelo", Pattern.class).pattern());
+        // El contexto tipado convierte el LocalDateTime igual que las consultas del repositorio
+        assertInstanceOf(Date.class, filtros.get(2).get("fechaCreacion", Document.class).get("$gte"));
+        assertTrue(etapas.get(2).containsKey("$addFields"));
+        Document facet = etapas.get(3).get("$facet", Document.class);
+        assertEquals(Set.of("resultados", "total", "marca"), facet.keySet());
+        List<Document> resultados = facet.getList("resultados", Document.class);
+        assertEquals(List.of("puntaje", "fechaCreacion", "_id"),
+                List.copyOf(resultados.get(0).get("$sort", Document.class).keySet()));
+        assertEquals(20L, ((Number) resultados.get(1).get("$skip")).longValue());
+        assertEquals(10L, ((Number) resultados.get(2).get("$limit")).longValue());
+    }
+
+    @Test
+    void buscarTelefonos_deberiaLeerPaginaTotalYFacetasDeUnaAgregacion() {
+        MappingMongoConverter converter = conversor();
+        Document resultado = new Document("resultados", List.of(new Document("_id", "1").append("imei", "123")
+                        .append("marca", "Samsung").append("puntaje", 1.5)))
+                .append("total", List.of(new Document("n", 7)))
+                .append("marca", List.of(new Document("_id", "Samsung").append("count", 7)));
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(resultado), new Document()));
+        CriteriosBusqueda criterios = new CriteriosBusqueda(null, null, "Sam", null, null, null, null,
+                Set.of("marca"));
+
+        ResultadoBusqueda result = telefonoService.buscarTelefonos(criterios, 0, 20);
+
+        assertEquals("123", result.getContenido().get(0).getImei());
+        assertEquals(7, result.getTotal());
+        assertEquals(List.of(new ResultadoBusqueda.ConteoFaceta("Samsung", 7)), result.getFacetas().get("marca"));
+    }
+
+    private static List<Document> pipeline(TypedAggregation<Telefono> agregacion) {
+        MappingMongoConverter converter = conversor();
+        return agregacion.toPipeline(new TypeBasedAggregationOperationContext(Telefono.class,
+                converter.getMappingContext(), new QueryMapper(converter)));
+    }
+
+    // Con las conversiones por defecto, como el conversor de la aplicacion, LocalDateTime es un tipo simple
+    private static MappingMongoConverter conversor() {
+        MongoCustomConversions conversiones = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversiones.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversiones);
+        converter.afterPropertiesSet();
+        return converter;
     }
 
     @Test
     void guardarTelefono_deberiaGuardarTelefonoYInvalidarCache() throws Exception {
         when(telefonoRepository.save(telefono)).thenReturn(telefono);
-        when(objectMapper.writeValueAsString(telefono)).thenReturn("{\"imei\":\"123456789012345\"}");
 
         Telefono result = telefonoService.guardarTelefono(telefono);
 
         assertEquals(telefono, result);
-        verify(telefonoRepository, times(1)).save(telefono);
-        verify(redisTemplate, times(1)).delete("telefono:imei:123456789012345");
+        assertNotNull(result.getFechaModificacion());
+        InOrder orden = inOrder(mongoTemplate, telefonoRepository, redisTemplate);
+        orden.verify(mongoTemplate).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("123456789012345")) && evento.getBloqueadoHasta() != null));
+        orden.verify(telefonoRepository, times(1)).save(telefono);
+        ArgumentCaptor<Update> liberacion = ArgumentCaptor.forClass(Update.class);
+        orden.verify(mongoTemplate).updateFirst(any(Query.class), liberacion.capture(), eq(EventoInvalidacion.class));
+        orden.verify(redisTemplate, times(1)).delete(List.of("telefono:imei:123456789012345"));
+        assertEquals(new Document("bloqueadoHasta", 1), liberacion.getValue().getUpdateObject().get("$unset"));
+        verify(telefonoCacheLocal, times(1)).invalidar("123456789012345");
+        assertEquals(1L, incrementos(contadorAplicado()).get("total"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void guardarTelefono_noDeberiaPublicarseLaInvalidacionAntesDeTerminarElSave() {
+        List<EventoInvalidacion> outbox = outboxEnMemoria();
+        KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        RelayInvalidaciones relay = new RelayInvalidaciones(mongoTemplate, redisTemplate, kafkaTemplate,
+                metricasTelefono, 200, Duration.ofSeconds(1));
+        List<Integer> publicadosDuranteSave = new ArrayList<>();
+        when(telefonoRepository.save(telefono)).thenAnswer(invocation -> {
+            // El relay corre entre la insercion del evento y la escritura del telefono
+            relay.publicarPendientes();
+            publicadosDuranteSave.add(mockingDetails(kafkaTemplate).getInvocations().size());
+            return telefono;
+        });
+
+        telefonoService.guardarTelefono(telefono);
+        relay.publicarPendientes();
+
+        assertEquals(List.of(0), publicadosDuranteSave);
         verify(kafkaTemplate, times(1)).send("telefono-cache-invalidation", "123456789012345");
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    void guardarTelefono_deberiaLiberarLaInvalidacionSiElSaveFalla() {
+        when(telefonoRepository.save(telefono)).thenThrow(new IllegalStateException("mongo caido"));
+
+        assertThrows(IllegalStateException.class, () -> telefonoService.guardarTelefono(telefono));
+
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class));
+    }
+
+    /**
+     * Outbox sobre una lista con lo que usan el servicio y el relay: insercion, eventos
+     * libres, reclamo, liberacion de la reserva y borrado.
+     */
+    private List<EventoInvalidacion> outboxEnMemoria() {
+        List<EventoInvalidacion> outbox = new ArrayList<>();
+        when(mongoTemplate.insert(any(EventoInvalidacion.class))).thenAnswer(invocation -> {
+            EventoInvalidacion evento = invocation.getArgument(0);
+            evento.setId("e" + outbox.size());
+            outbox.add(evento);
+            return evento;
+        });
+        when(mongoTemplate.find(any(Query.class), eq(EventoInvalidacion.class))).thenAnswer(invocation -> {
+            Document filtro = invocation.getArgument(0, Query.class).getQueryObject();
+            return outbox.stream()
+                    .filter(evento -> filtro.containsKey("reclamo")
+                            ? filtro.get("reclamo").equals(evento.getReclamo())
+                            : evento.getBloqueadoHasta() == null || evento.getBloqueadoHasta().isBefore(Instant.now()))
+                    .toList();
+        });
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(EventoInvalidacion.class)))
+                .thenAnswer(invocation -> {
+                    Document set = invocation.getArgument(1, Update.class).getUpdateObject().get("$set", Document.class);
+                    for (EventoInvalidacion evento : outbox) {
+                        if (evento.getBloqueadoHasta() == null || evento.getBloqueadoHasta().isBefore(Instant.now())) {
+                            evento.setReclamo(set.getString("reclamo"));
+                            evento.setBloqueadoHasta((Instant) set.get("bloqueadoHasta"));
+                        }
+                    }
+                    return null;
+                });
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class)))
+                .thenAnswer(invocation -> {
+                    Object id = invocation.getArgument(0, Query.class).getQueryObject().get("id");
+                    outbox.stream()
+                            .filter(evento -> evento.getId().equals(id) && evento.getReclamo() == null)
+                            .forEach(evento -> evento.setBloqueadoHasta(null));
+                    return null;
+                });
+        when(mongoTemplate.remove(any(Query.class), eq(EventoInvalidacion.class))).thenAnswer(invocation -> {
+            outbox.removeIf(evento -> evento.getReclamo() != null);
+            return null;
+        });
+        return outbox;
+    }
+
+    @Test
+    void guardarTelefono_deberiaIgnorarVersionYFechaDelCuerpo() {
+        Instant fechaCliente = Instant.parse("2020-01-01T00:00:00Z");
+        telefono.setVersion(3L);
+        telefono.setFechaModificacion(fechaCliente);
+        when(telefonoRepository.save(telefono)).thenReturn(telefono);
+
+        telefonoService.guardarTelefono(telefono);
+
+        // Sin version el save es una insercion y el alta se cuenta
+        verify(telefonoRepository).save(argThat(guardado -> guardado.getVersion() == null
+                && !fechaCliente.equals(guardado.getFechaModificacion())));
+        assertEquals(1L, incrementos(contadorAplicado()).get("total"));
+    }
+
+    @Test
+    void guardarTelefono_noDeberiaFallarSiRedisNoBorraLaLlave() {
+        when(telefonoRepository.save(telefono)).thenReturn(telefono);
+        when(redisTemplate.delete(anyCollection())).thenThrow(new IllegalStateException("sin conexion"));
+
+        assertEquals(telefono, telefonoService.guardarTelefono(telefono));
+
+        verify(mongoTemplate, times(1)).insert(any(EventoInvalidacion.class));
+        assertEquals(1, meterRegistry.get("telefono.cache.imei").tag("resultado", "error").counter().count());
     }
 
     @Test
     void eliminarTelefono_deberiaEliminarTelefonoYInvalidarCache() {
-        when(telefonoRepository.findById("1")).thenReturn(Optional.of(telefono));
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(List.of(telefono));
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Telefono.class))).thenReturn(telefono);
+
+        Optional<Telefono> result = telefonoService.eliminarTelefono("1");
+
+        assertEquals(Optional.of(telefono), result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        InOrder orden = inOrder(mongoTemplate, redisTemplate);
+        // La invalidacion se guarda reservada antes de borrar, con el IMEI leido por id
+        orden.verify(mongoTemplate).find(argThat(consulta -> consulta.getFieldsObject().containsKey("imei")),
+                eq(Telefono.class));
+        orden.verify(mongoTemplate).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("123456789012345")) && evento.getBloqueadoHasta() != null));
+        orden.verify(mongoTemplate).findAndRemove(query.capture(), eq(Telefono.class));
+        orden.verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class));
+        orden.verify(redisTemplate, times(1)).delete(List.of("telefono:imei:123456789012345"));
+        verify(mongoTemplate, times(1)).insert(any(EventoInvalidacion.class));
+        assertEquals(new Document("id", "1"), query.getValue().getQueryObject());
+        verifyNoInteractions(telefonoRepository);
+        Document incrementos = incrementos(contadorAplicado());
+        assertEquals(-1L, incrementos.get("total"));
+        assertEquals(-1L, incrementos.get("porMarca.Test Marca"));
+    }
+
+    @Test
+    void eliminarTelefono_deberiaRetornarVacioSinInvalidarSiNoExiste() {
+        Optional<Telefono> result = telefonoService.eliminarTelefono("2");
+
+        assertFalse(result.isPresent());
+        verify(mongoTemplate, never()).insert(any(EventoInvalidacion.class));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void eliminarTelefono_deberiaGuardarLaInvalidacionDeUnDocumentoCreadoDespuesDeLeerElImei() {
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Telefono.class))).thenReturn(telefono);
 
         telefonoService.eliminarTelefono("1");
 
-        verify(telefonoRepository, times(1)).deleteById("1");
-        verify(redisTemplate, times(1)).delete("telefono:imei:123456789012345");
-        verify(kafkaTemplate, times(1)).send("telefono-cache-invalidation", "123456789012345");
+        verify(mongoTemplate, times(1)).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("123456789012345")) && evento.getBloqueadoHasta() == null));
+    }
+
+    @Test
+    void eliminarTelefonos_deberiaEliminarEnUnaLlamadaEInvalidarJuntos() {
+        Telefono otro = telefonoConImei("222");
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(List.of(telefono, otro));
+        when(mongoTemplate.findAllAndRemove(any(Query.class), eq(Telefono.class))).thenReturn(List.of(telefono, otro));
+
+        ResultadoEliminacion result = telefonoService.eliminarTelefonos(List.of("1", "9", "id-222", "1"));
+
+        assertEquals(List.of("1", "id-222"), result.getEliminados());
+        assertEquals(List.of("9"), result.getNoEncontrados());
+        InOrder orden = inOrder(mongoTemplate);
+        orden.verify(mongoTemplate, times(1)).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("123456789012345", "222")) && evento.getBloqueadoHasta() != null));
+        orden.verify(mongoTemplate, times(1)).findAllAndRemove(any(Query.class), eq(Telefono.class));
+        verify(mongoTemplate, times(1)).insert(any(EventoInvalidacion.class));
+        verify(redisTemplate, times(1)).delete(List.of("telefono:imei:123456789012345", "telefono:imei:222"));
+    }
+
+    @Test
+    void actualizarTelefono_deberiaAplicarSetDeLosCamposPresentesEnUnaLlamada() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        cambios.setTieneSistemaIOS(true);
+        telefono.setVersion(4L);
+        telefono.setTieneSistemaIOS(false);
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(List.of(telefono));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Telefono.class))).thenReturn(telefono);
+
+        Optional<Telefono> result = telefonoService.actualizarTelefono("1", cambios, 4L);
+
+        // El documento anterior se devuelve con los mismos cambios que se aplicaron en Mongo
+        assertEquals("Nuevo Modelo", result.get().getModelo());
+        assertEquals(true, result.get().getTieneSistemaIOS());
+        assertEquals("Test Nombre", result.get().getNombre());
+        assertEquals(5L, result.get().getVersion());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> opciones = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), opciones.capture(),
+                eq(Telefono.class));
+        assertEquals(new Document("id", "1").append("version", 4L), query.getValue().getQueryObject());
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals("Nuevo Modelo", set.get("modelo"));
+        assertEquals(true, set.get("tieneSistemaIOS"));
+        assertInstanceOf(Instant.class, set.get("fechaModificacion"));
+        assertEquals(3, set.size());
+        assertEquals(set.get("fechaModificacion"), result.get().getFechaModificacion());
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+        assertFalse(opciones.getValue().isReturnNew());
+        assertEquals(new Document("ios.no", -1L).append("ios.si", 1L), incrementos(contadorAplicado()));
+        verify(telefonoRepository, never()).findById(anyString());
+        verify(telefonoRepository, never()).save(any());
+        InOrder orden = inOrder(mongoTemplate);
+        orden.verify(mongoTemplate).insert(argThat((EventoInvalidacion evento) -> evento.getBloqueadoHasta() != null));
+        orden.verify(mongoTemplate).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Telefono.class));
+        orden.verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class));
+        verify(mongoTemplate, times(1)).insert(any(EventoInvalidacion.class));
+        verify(redisTemplate).delete(List.of("telefono:imei:123456789012345"));
+    }
+
+    @Test
+    void actualizarTelefono_deberiaIgnorarLaVersionDelCuerpo() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        cambios.setVersion(3L);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Telefono.class))).thenReturn(telefono);
+
+        telefonoService.actualizarTelefono("1", cambios, null);
+
+        verify(mongoTemplate).findAndModify(argThat(query -> query.getQueryObject().equals(new Document("id", "1"))),
+                any(Update.class), any(FindAndModifyOptions.class), eq(Telefono.class));
+    }
+
+    @Test
+    void actualizarTelefono_deberiaLanzarConflictoSiLaVersionCambio() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+        when(telefonoRepository.existsById("1")).thenReturn(true);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> telefonoService.actualizarTelefono("1", cambios, 4L));
+
+        verify(mongoTemplate, never()).insert(any(EventoInvalidacion.class));
+    }
+
+    @Test
+    void actualizarTelefono_deberiaRetornarVacioSiNoExiste() {
+        Telefono cambios = new Telefono();
+        cambios.setModelo("Nuevo Modelo");
+
+        assertEquals(Optional.empty(), telefonoService.actualizarTelefono("9", cambios, null));
+
+        verify(telefonoRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    void guardarTelefonosBulk_deberiaEscribirEnUnLoteEInvalidarUnaSolaVez() {
+        Telefono existente = new Telefono();
+        existente.setId("65f000000000000000000009");
+        existente.setImei("123456789012345");
+        Telefono nuevo = new Telefono();
+        nuevo.setImei("555555555555555");
+        Telefono repetido = new Telefono();
+        repetido.setImei("555555555555555");
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(List.of(existente));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Telefono.class)).thenReturn(bulkOperations);
+
+        List<ResultadoBulk> result = telefonoService.guardarTelefonosBulk(Arrays.asList(telefono, nuevo, repetido),
+                false);
+
+        assertEquals(ErrorCode.IMEI_YA_EXISTE, result.get(0).getError());
+        assertEquals(ResultadoBulk.CREADO, result.get(1).getEstado());
+        assertNotNull(result.get(1).getId());
+        assertEquals(ErrorCode.IMEI_YA_EXISTE, result.get(2).getError());
+        verify(bulkOperations, times(1)).insert(nuevo);
+        InOrder orden = inOrder(mongoTemplate, bulkOperations, redisTemplate);
+        orden.verify(mongoTemplate).insert(argThat((EventoInvalidacion evento) ->
+                evento.getImeis().equals(List.of("555555555555555")) && evento.getBloqueadoHasta() != null));
+        orden.verify(bulkOperations, times(1)).execute();
+        orden.verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(EventoInvalidacion.class));
+        orden.verify(redisTemplate, times(1)).delete(List.of("telefono:imei:555555555555555"));
+    }
+
+    @Test
+    void guardarTelefonosBulk_conUpsertDeberiaReemplazarImeiExistente() {
+        Telefono existente = new Telefono();
+        existente.setId("65f000000000000000000009");
+        existente.setImei("123456789012345");
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(List.of(existente));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Telefono.class)).thenReturn(bulkOperations);
+
+        List<ResultadoBulk> result = telefonoService.guardarTelefonosBulk(List.of(telefono), true);
+
+        assertEquals(ResultadoBulk.ACTUALIZADO, result.get(0).getEstado());
+        assertEquals("65f000000000000000000009", result.get(0).getId());
+        verify(bulkOperations, times(1)).replaceOne(any(Query.class), eq(telefono));
+        verify(bulkOperations, never()).insert(any(Object.class));
+        // El reemplazo resta el existente, sin marca, y suma el nuevo
+        Document incrementos = incrementos(contadorAplicado());
+        assertNull(incrementos.get("total"));
+        assertEquals(-1L, incrementos.get("porMarca.%00"));
+        assertEquals(1L, incrementos.get("porMarca.Test Marca"));
+    }
+
+    @Test
+    void guardarTelefonosBulk_deberiaMapearCadaLlaveDuplicadaASuIndice() {
+        Telefono conId = telefonoConImei("555555555555555");
+        conId.setId("65f000000000000000000001");
+        Telefono otro = telefonoConImei("666666666666666");
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.find(any(Query.class), eq(Telefono.class))).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Telefono.class)).thenReturn(bulkOperations);
+        List<BulkWriteError> errores = List.of(
+                new BulkWriteError(11000, "E11000 duplicate key error index: _id_ dup key", new BsonDocument(), 0),
+                new BulkWriteError(11000, "E11000 duplicate key error index: imei_unico dup key",
+                        new BsonDocument(), 1));
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("E11000", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), errores, null, new ServerAddress(), Set.of())));
+
+        List<ResultadoBulk> result = telefonoService.guardarTelefonosBulk(List.of(conId, otro), false);
+
+        assertEquals(ErrorCode.ID_YA_EXISTE, result.get(0).getError());
+        assertEquals(ErrorCode.IMEI_YA_EXISTE, result.get(1).getError());
+        verify(contadoresTelefono, never()).aplicar(argThat(delta -> !delta.vacio()));
+    }
+
+    private ContadoresTelefono.Delta contadorAplicado() {
+        ArgumentCaptor<ContadoresTelefono.Delta> delta = ArgumentCaptor.forClass(ContadoresTelefono.Delta.class);
+        verify(contadoresTelefono).aplicar(delta.capture());
+        return delta.getValue();
+    }
+
+    private static Document incrementos(ContadoresTelefono.Delta delta) {
+        Document inc = delta.update().getUpdateObject().get("$inc", Document.class);
+        return inc != null ? inc : new Document();
     }
-}
\ No newline at end of file
+}
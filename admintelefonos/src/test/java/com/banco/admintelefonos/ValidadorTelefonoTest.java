@@ -0,0 +1,96 @@
+package com.banco.admintelefonos;
+
+import com.banco.admintelefonos.component.ValidadorTelefono;
+import com.banco.admintelefonos.enums.ErrorCode;
+import com.banco.admintelefonos.model.Telefono;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidadorTelefonoTest {
+
+    private ValidadorTelefono validadorTelefono;
+    private Telefono telefono;
+
+    @BeforeEach
+    void setUp() {
+        validadorTelefono = new ValidadorTelefono();
+        telefono = new Telefono();
+        telefono.setNombre("Test Nombre");
+        telefono.setMarca("Test Marca");
+        telefono.setModelo("Test Modelo");
+        telefono.setNombreCorto("Test Corto");
+        telefono.setFechaCreacion(LocalDateTime.now());
+        telefono.setImei("123456789012345");
+        telefono.setEmailSoporte("test@example.com");
+    }
+
+    @Test
+    void validar_deberiaAceptarTelefonoValido() {
+        assertNull(validadorTelefono.validar(telefono, true));
+        assertTrue(validadorTelefono.validarTodos(telefono, true).isEmpty());
+    }
+
+    @Test
+    void validar_deberiaRequerirImeiSoloEnCreacion() {
+        telefono.setImei("   ");
+
+        assertEquals(ErrorCode.IMEI_REQUERIDO, validadorTelefono.validar(telefono, true));
+        assertNull(validadorTelefono.validar(telefono, false));
+    }
+
+    @Test
+    void validarParcial_deberiaRevisarSoloLosCamposPresentes() {
+        Telefono cambios = new Telefono();
+        assertNull(validadorTelefono.validarParcial(cambios));
+
+        cambios.setModelo("S24 Ultra");
+        assertNull(validadorTelefono.validarParcial(cambios));
+
+        cambios.setMarca("  ");
+        assertEquals(ErrorCode.MARCA_REQUERIDO, validadorTelefono.validarParcial(cambios));
+
+        cambios.setMarca("Samsung");
+        cambios.setEmailSoporte("sin-arroba");
+        assertEquals(ErrorCode.EMAIL_FORMATO_INVALIDO, validadorTelefono.validarParcial(cambios));
+    }
+
+    @Test
+    void validarTodos_deberiaRetornarUnErrorPorCampo() {
+        telefono.setNombre(" ");
+        telefono.setModelo("Modelo-X");
+        telefono.setFechaCreacion(null);
+
+        List<ErrorCode> errores = validadorTelefono.validarTodos(telefono, true);
+
+        assertEquals(List.of(ErrorCode.NOMBRE_REQUERIDO, ErrorCode.MODELO_CARACTERES_ESPECIALES,
+                ErrorCode.FECHA_CREACION_REQUERIDO), errores);
+        assertEquals(ErrorCode.NOMBRE_REQUERIDO, validadorTelefono.validar(telefono, true));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Galaxy A54", "A\tB", "linea\nnueva", "ñandu", "Marca_1", "Marca-1", " x ", "\u000B1" })
+    void validar_textoDeberiaCoincidirConLaExpresionRegularOriginal(String valor) {
+        telefono.setNombre(valor);
+        boolean esperado = Pattern.matches("[a-zA-Z0-9\\s]+", valor);
+
+        assertEquals(esperado, validadorTelefono.validar(telefono, true) == null);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "a@b", "soporte+1@banco.com.mx", "@banco.com", "soporte@", "a@b@c", "a b@c",
+            "soporte@banco_com", "x.y-z@d-e.f" })
+    void validar_emailDeberiaCoincidirConLaExpresionRegularOriginal(String email) {
+        telefono.setEmailSoporte(email);
+        boolean esperado = Pattern.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$", email);
+
+        assertEquals(esperado, validadorTelefono.validar(telefono, true) == null);
+    }
+}